@@ -23,7 +23,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.project.pm.commute.model.CommuteDAO;
+import com.project.pm.commute.service.CommuteRollupService;
 import com.project.pm.commute.service.CommuteService;
+import com.project.pm.commute.service.PayrollRunService;
+import com.project.pm.commute.service.SeveranceSnapshotService;
 import com.project.pm.employee.model.EmpVO;
 
 @Controller
@@ -35,6 +38,15 @@ public class AdminController {
 	@Autowired
 	private CommuteDAO dao;
 	
+	@Autowired
+	private CommuteRollupService rollup;
+	
+	@Autowired
+	private PayrollRunService payrollRun;
+	
+	@Autowired
+	private SeveranceSnapshotService severanceSnapshot;
+	
 	@RequestMapping(value="/admin/commuteManagement.pm")
 	public String commuteManagement(HttpServletRequest request) {
 		
@@ -513,6 +525,8 @@ public class AdminController {
 //			List<Map<String,String>> empList = service.empListWithRno(pageMap);
 			
 			// 페이징 처리한 글목록 가져오기 (검색이 있든지, 검색이 없든지 모두 다 포함한 것)
+			// 매일 계산해 두는 퇴직금 대상 스냅샷에서 읽는다 (오늘 계산한 스냅샷이 없으면 먼저 계산한다)
+			severanceSnapshot.getInfo();
 		    List<Map<String,String>> getSeverancePayList = service.getSeverancePayList(pageMap);
 			
 //			System.out.println("확인용 페이징 empList : "+ empListPaging);
@@ -572,12 +586,15 @@ public class AdminController {
 			pageMap.put("arr_dept", arr_dept); // 검색어를 입력한 경우 
 			pageMap.put("arr_status", arr_status); // 검색어를 입력한 경우 
 			
+			Map<String, String> snapshotInfo = severanceSnapshot.getInfo();
+			
 			int totalPage = service.getTotalPage(pageMap);
 			
 			// System.out.println("############## 확인용 ############"+totalPage);
 
 			JSONObject jsonObj = new JSONObject();
 			jsonObj.put("totalPage",totalPage); 
+			jsonObj.put("computed_at", snapshotInfo.get("computed_at")); // 퇴직금 대상을 계산한 시각
 			
 			return jsonObj.toString();
 		}
@@ -629,28 +646,136 @@ public class AdminController {
 		
 		
 		
+		// 모든구성원 급여지급
+		// 지급은 백그라운드 작업(PayrollRunService)으로 하고 작업번호만 바로 돌려준다. 진행상황은 /admin/payrollRunStatus.pm 으로 본다.
+		// 그 달에 실패하거나 멈춘 작업이 있으면 새로 만들지 않고 그 작업을 이어서 한다.
 		@ResponseBody
 		@RequestMapping(value="/admin/allPayment.pm", produces="text/plain;charset=UTF-8", method = {RequestMethod.POST})
 		public String allPayment(HttpServletRequest request, @RequestParam Map<String, Object> paraMap) {
 			
+			HttpSession session = request.getSession();
+			EmpVO empvo = (EmpVO) session.getAttribute("loginuser");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(empvo == null || !"9999".equals(empvo.getEmpno())) { // 관리자가 아닌데 접근했을 경우
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "관리자만 사용할 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
 			String month_payment = (String) paraMap.get("month_payment");
+			String startdate = (String) paraMap.get("startdate");
+			String enddate = (String) paraMap.get("enddate");
+			
+			if(month_payment == null || !month_payment.matches("^\\d{4}-\\d{2}$")
+			   || startdate == null || !startdate.matches("^\\d{4}-\\d{2}-\\d{2}$")
+			   || enddate == null || !enddate.matches("^\\d{4}-\\d{2}-\\d{2}$")) {
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "지급월, 기간을 확인하세요.");
+				return jsonObj.toString();
+			}
+			
+			Map<String, String> runMap = payrollRun.start(month_payment, startdate, enddate, empvo.getEmpno());
+			
+			jsonObj.put("n", 1);
+			jsonObj.put("run_no", runMap.get("run_no"));
+			jsonObj.put("resumed", "1".equals(runMap.get("resumed")));
+			
+			return jsonObj.toString();
+		}
+		
+		
+		// 급여 일괄지급 진행상황 (run_no 또는 month_payment)
+		@ResponseBody
+		@RequestMapping(value="/admin/payrollRunStatus.pm", produces="text/plain;charset=UTF-8", method = {RequestMethod.GET})
+		public String payrollRunStatus(HttpServletRequest request) {
+			
+			HttpSession session = request.getSession();
+			EmpVO empvo = (EmpVO) session.getAttribute("loginuser");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(empvo == null || !"9999".equals(empvo.getEmpno())) { // 관리자가 아닌데 접근했을 경우
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "관리자만 사용할 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			String run_no = request.getParameter("run_no");
+			String month_payment = request.getParameter("month_payment");
 			
-			List<Map<String, Object>> paymentList = service.getPaymentList(paraMap);
+			if(run_no != null && !run_no.matches("^[0-9]+$")) {
+				run_no = null;
+			}
 			
-			for(Map<String, Object> map : paymentList) {
-	    			
-	    			map.put("empno", map.get("empno"));
-	    			map.put("month_payment", month_payment);
-	    			map.put("salary", map.get("worktime_salary"));
-	    			map.put("over_salary", map.get("overtime_salary"));
+			Map<String, String> run = payrollRun.getStatus(run_no, month_payment);
 			
+			if(run == null) {
+				jsonObj.put("n", 0);
+				return jsonObj.toString();
 			}
 			
-			int n = service.checkedPayment(paymentList);
+			jsonObj = new JSONObject(run);
+			jsonObj.put("n", 1);
+			
+			return jsonObj.toString();
+		}
+		
+		
+		
+		
+		// 근무시간 집계 검사 (GET : 원본과 다른 것만 보기, POST : 다르면 원본에서 다시 만들기)
+		// 기간 없이 GET 하면 매일 밤 검사(verifyRecent)의 마지막 결과를 보여준다 (다시 만든 뒤라 지금 검사하면 나오지 않는 불일치)
+		@ResponseBody
+		@RequestMapping(value="/admin/verifyCommuteRollup.pm", produces="text/plain;charset=UTF-8", method = {RequestMethod.GET, RequestMethod.POST})
+		public String verifyCommuteRollup(HttpServletRequest request) {
+			
+			HttpSession session = request.getSession();
+			EmpVO empvo = (EmpVO) session.getAttribute("loginuser");
 			
 			JSONObject jsonObj = new JSONObject();
 			
-			jsonObj.put("n", n);
+			if(empvo == null || !"9999".equals(empvo.getEmpno())) { // 관리자가 아닌데 접근했을 경우
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "관리자만 사용할 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			String startdate = request.getParameter("startdate");
+			String enddate = request.getParameter("enddate");
+			
+			if(startdate == null && enddate == null && "GET".equalsIgnoreCase(request.getMethod())) {
+				
+				Map<String, Object> lastVerify = rollup.getLastVerify();
+				
+				jsonObj.put("n", 1);
+				jsonObj.put("lastVerify", lastVerify == null ? JSONObject.NULL : new JSONObject(lastVerify));
+				return jsonObj.toString();
+			}
+			
+			String datePattern = "^\\d{4}-\\d{2}-\\d{2}$";
+			
+			if(startdate == null || enddate == null || !startdate.matches(datePattern) || !enddate.matches(datePattern)) {
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "startdate, enddate 를 yyyy-mm-dd 로 입력하세요.");
+				return jsonObj.toString();
+			}
+			
+			boolean repair = "POST".equalsIgnoreCase(request.getMethod());
+			
+			List<Map<String, String>> diffList = repair ? rollup.repair(startdate, enddate) : rollup.verify(startdate, enddate);
+			
+			JSONArray jsonArr = new JSONArray();
+			
+			for(Map<String, String> diff : diffList) {
+				jsonArr.put(new JSONObject(diff));
+			}
+			
+			jsonObj.put("n", 1);
+			jsonObj.put("repaired", repair && diffList.size() > 0);
+			jsonObj.put("diffCount", diffList.size());
+			jsonObj.put("diffList", jsonArr);
 			
 			return jsonObj.toString();
 		}
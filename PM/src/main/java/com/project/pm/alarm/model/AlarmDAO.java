@@ -1,6 +1,7 @@
 package com.project.pm.alarm.model;
 
 import java.util.List;
+import java.util.Map;
 
 public interface AlarmDAO {
 	
@@ -22,4 +23,10 @@ public interface AlarmDAO {
 		// 안 읽은 소식 개수 알아오기
 		String getUnreadAlarmCnt(String empno);
 
+		// 공지 대상 부서 트리(하위부서 포함)의 부서번호 알아오기
+		List<String> getNoticeDeptnoList(String fk_deptno);
+
+		// 부서 1개에 속한 사원들에게 공지 알림 insert ... select 하기
+		int addNoticeAlarm(Map<String, String> paraMap);
+
 }
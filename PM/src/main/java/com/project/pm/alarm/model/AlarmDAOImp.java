@@ -1,6 +1,7 @@
 package com.project.pm.alarm.model;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
@@ -53,4 +54,18 @@ public class AlarmDAOImp implements AlarmDAO{
 			return n;
 		}
 
+		// 공지 대상 부서 트리(하위부서 포함)의 부서번호 알아오기
+		@Override
+		public List<String> getNoticeDeptnoList(String fk_deptno) {
+			List<String> deptnoList = sqlsession.selectList("service.getNoticeDeptnoList", fk_deptno);
+			return deptnoList;
+		}
+
+		// 부서 1개에 속한 사원들에게 공지 알림 insert ... select 하기
+		@Override
+		public int addNoticeAlarm(Map<String, String> paraMap) {
+			int n = sqlsession.insert("service.insertNoticeAlarm", paraMap);
+			return n;
+		}
+
 }
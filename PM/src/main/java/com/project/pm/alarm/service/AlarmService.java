@@ -25,5 +25,8 @@ public interface AlarmService {
 		// 안 읽은 소식 개수 알아오기
 		String getUnreadAlarmCnt(String empno);
 
+		// 공지 알림을 대상 부서 트리 전체에 부서 단위로 INSERT ... SELECT 하기 (추가된 알림 개수 리턴)
+		int addNoticeAlarm(Map<String, String> paraMap);
+
 
 }
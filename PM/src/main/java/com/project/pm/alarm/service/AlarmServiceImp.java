@@ -2,11 +2,15 @@ package com.project.pm.alarm.service;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.project.pm.alarm.model.AlarmDAO;
 import com.project.pm.alarm.model.AlarmVO;
@@ -35,14 +39,7 @@ public class AlarmServiceImp implements AlarmService{
 		String[] arr_fk_recipientno = str_fk_recipientno.split(",");
 		String[] arr_url2 = str_url2.split(",");
 		
-		String alarmType = "";
-		
-		if( "1".equals(paraMap.get("alarm_type"))) alarmType = "&#9200;";
-		if( "2".equals(paraMap.get("alarm_type"))) alarmType = "&#10071;";
-		if( "3".equals(paraMap.get("alarm_type"))) alarmType = "&#9989;";
-		if( "4".equals(paraMap.get("alarm_type"))) alarmType = "&#128161;";
-		if( "5".equals(paraMap.get("alarm_type"))) alarmType = "&#128226;";
-		if( "6".equals(paraMap.get("alarm_type"))) alarmType = "&#128178;";
+		String alarmType = getAlarmIcon(paraMap.get("alarm_type"));
 		
 		StringBuilder sb = new StringBuilder();
 		sb.append(" INSERT ALL ");
@@ -75,6 +72,62 @@ public class AlarmServiceImp implements AlarmService{
 		// mdao.sendMessenger(sb.toString()); 
 		adao.addAlarm(sb.toString());
 	}
+	
+	
+	// 알람 종류에 해당하는 아이콘 알아오기
+	private String getAlarmIcon(String alarm_type) {
+		String alarmType = "";
+		
+		if( "1".equals(alarm_type)) alarmType = "&#9200;";
+		if( "2".equals(alarm_type)) alarmType = "&#10071;";
+		if( "3".equals(alarm_type)) alarmType = "&#9989;";
+		if( "4".equals(alarm_type)) alarmType = "&#128161;";
+		if( "5".equals(alarm_type)) alarmType = "&#128226;";
+		if( "6".equals(alarm_type)) alarmType = "&#128178;";
+		
+		return alarmType;
+	}
+	
+	
+	// 공지 알림을 대상 부서 트리 전체에 부서 단위로 INSERT ... SELECT 하기 (추가된 알림 개수 리턴)
+	// 사원번호 목록을 자바로 가져와서 sql 문자열을 만들지 않고, DB 안에서 부서별로 바로 insert 한다.
+	// 알람번호는 addAlarm 과 같은 규칙(시각 + 순번)이며, 부서가 바뀌어도 순번이 겹치지 않도록 offset 을 넘겨준다.
+	@Override
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+	public int addNoticeAlarm(Map<String, String> paraMap) {
+		
+		String fk_deptno = paraMap.get("fk_deptno");
+		
+		if(fk_deptno == null || "".equals(fk_deptno.trim())) {
+			return 0;
+		}
+		
+		Calendar currentDate = Calendar.getInstance();
+		SimpleDateFormat dateft = new SimpleDateFormat("yyyyMMddHHmmssSSS");
+		
+		String time = dateft.format(currentDate.getTime());
+		
+		// 공지 대상 부서와 그 하위부서 번호 (전체공지인 경우 회사 전체 부서)
+		List<String> deptnoList = adao.getNoticeDeptnoList(fk_deptno);
+		
+		int totalCnt = 0;
+		
+		for(String deptno : deptnoList) {
+			
+			Map<String, String> alarmMap = new HashMap<>();
+			alarmMap.put("alarm_time", time);
+			alarmMap.put("offset", String.valueOf(totalCnt));
+			alarmMap.put("deptno", deptno);
+			alarmMap.put("url", paraMap.get("url"));
+			alarmMap.put("url2", paraMap.get("url2"));
+			alarmMap.put("alarm_content", paraMap.get("alarm_content"));
+			alarmMap.put("alarm_type", getAlarmIcon(paraMap.get("alarm_type")));
+			
+			totalCnt += adao.addNoticeAlarm(alarmMap);
+		}
+		
+		return totalCnt;
+	}
 
 
 	// 알람 조회하기
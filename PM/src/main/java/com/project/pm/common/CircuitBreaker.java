@@ -0,0 +1,86 @@
+package com.project.pm.common;
+
+/**
+ * 외부 호출용 회로 차단기(circuit breaker)
+ *
+ * - closed    : 그대로 호출한다. 연속 실패가 failureThreshold 번이면 open 이 된다.
+ * - open      : openMillis 동안 호출하지 않는다.
+ * - half-open : open 시간이 지나면 시험 호출 1번만 허락한다. 성공하면 closed, 실패하면 다시 open.
+ */
+public class CircuitBreaker {
+
+	public static final String CLOSED = "closed";
+	public static final String OPEN = "open";
+	public static final String HALF_OPEN = "half-open";
+
+	private final int failureThreshold;
+	private final long openMillis;
+
+	private int failures;
+	private long openUntil;
+	private boolean trialInFlight;
+
+
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openMillis;
+	}
+
+
+	// 지금 호출해도 되는지 (half-open 이면 시험 호출 1번만 true)
+	public synchronized boolean allow() {
+
+		String state = getState();
+
+		if(CLOSED.equals(state)) {
+			return true;
+		}
+
+		if(HALF_OPEN.equals(state) && !trialInFlight) {
+			trialInFlight = true;
+			return true;
+		}
+
+		return false;
+	}
+
+	public synchronized void success() {
+		failures = 0;
+		openUntil = 0;
+		trialInFlight = false;
+	}
+
+	public synchronized void failure() {
+
+		failures++;
+
+		if(trialInFlight || failures >= failureThreshold) {
+			open(openMillis);
+		}
+	}
+
+	// 허락받은 시험 호출을 하지 않은 경우 (보낼 것이 없었다 등)
+	public synchronized void cancelTrial() {
+		trialInFlight = false;
+	}
+
+	// 상대가 기다리라고 한 경우 (429 Retry-After 등) 그 시간만큼 open
+	public synchronized void openFor(long millis) {
+		open(Math.max(millis, 1));
+	}
+
+	public synchronized String getState() {
+
+		if(openUntil == 0) {
+			return CLOSED;
+		}
+
+		return System.currentTimeMillis() < openUntil ? OPEN : HALF_OPEN;
+	}
+
+	private void open(long millis) {
+		openUntil = System.currentTimeMillis() + millis;
+		trialInFlight = false;
+	}
+
+}
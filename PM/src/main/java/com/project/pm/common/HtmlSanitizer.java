@@ -0,0 +1,524 @@
+package com.project.pm.common;
+
+/**
+ * 스마트에디터 HTML 을 위한 허용목록(allowlist) 방식 XSS 필터
+ *
+ * 입력 문자열을 앞에서부터 한 번만 훑으면서 허용된 태그와 속성만 그대로 옮겨 적습니다.
+ * 태그/속성 목록은 클래스 로딩시 한 번만 만들어 두므로 호출할 때마다 정규식을 컴파일하지 않습니다.
+ * (한글이 들어간 문자열은 charAt 마다 범위 검사를 하므로 char[] 로 한 번 바꿔서 읽습니다)
+ *
+ * 처리 방식:
+ * - 허용된 태그: 허용된 속성만 남기고 다시 써준다 (on* 이벤트 속성 등은 사라진다)
+ * - script, style, iframe 등: 태그와 그 안의 내용까지 통째로 버린다
+ *   (embed, frame 같은 빈 태그나 &lt;svg/&gt; 처럼 스스로 닫는 태그, 닫는 태그가 없는 경우는 그 태그만 버린다)
+ * - 그 밖의 태그: 태그만 버리고 안의 글자는 남긴다
+ * - 주석, &lt;!DOCTYPE&gt;, &lt;? ?&gt;: 버린다
+ * - 태그가 아닌 '&lt;' (닫히지 않은 태그 등): &amp;lt; 로 바꾼다
+ * - href/src: http, https, mailto 와 상대경로만 허용한다 (src 는 에디터에 붙여넣은 data:image/png 등 그림도 허용, svg 는 제외)
+ * - style: expression(), javascript, url() 등이 들어있으면 속성을 버린다
+ */
+public final class HtmlSanitizer {
+
+	// 그대로 남겨둘 태그 (스마트에디터가 만들어내는 태그들)
+	private static final String[][] ALLOWED_TAGS = table(
+		"a", "b", "big", "blockquote", "br", "caption", "center", "code", "col", "colgroup",
+		"dd", "del", "div", "dl", "dt", "em", "font", "h1", "h2", "h3", "h4", "h5", "h6",
+		"hr", "i", "img", "ins", "li", "ol", "p", "pre", "s", "small", "span", "strike",
+		"strong", "sub", "sup", "table", "tbody", "td", "tfoot", "th", "thead", "tr", "u", "ul"
+	);
+
+	// 안의 내용까지 통째로 버릴 태그
+	private static final String[][] DROP_CONTENT_TAGS = table(
+		"script", "style", "iframe", "frame", "frameset", "object", "embed", "applet",
+		"noscript", "noembed", "xmp", "title", "textarea", "select", "svg", "math"
+	);
+
+	// 위 태그 중 닫는 태그가 없는 빈 태그 (태그만 버린다)
+	private static final String[] VOID_DROP_TAGS = { "embed", "frame" };
+
+	// 그대로 남겨둘 속성
+	private static final String[][] ALLOWED_ATTRS = table(
+		"align", "alt", "bgcolor", "border", "cellpadding", "cellspacing", "class", "color",
+		"colspan", "dir", "face", "height", "href", "lang", "rel", "rowspan", "size", "span",
+		"src", "start", "style", "summary", "target", "title", "type", "valign", "width"
+	);
+
+	// 허용하는 주소 스킴
+	private static final String[] SAFE_SCHEMES = { "http", "https", "mailto" };
+
+	// src 에 data: 로 넣어도 되는 그림 형식 (svg 는 스크립트를 담을 수 있어서 뺀다)
+	private static final String[] SAFE_DATA_IMAGES = { "png", "gif", "jpeg", "jpg", "webp", "bmp" };
+
+	// style 속성에 들어있으면 안되는 문자열
+	private static final String[] UNSAFE_STYLE = { "expression", "javascript", "vbscript", "behavior", "binding", "url(", "&#", "\\" };
+
+
+	// 이름 길이별로 나눠둔 표를 만든다 (찾을 때 문자열을 새로 만들지 않고 같은 길이의 후보만 비교하기 위함)
+	private static String[][] table(String... names) {
+
+		int max = 0;
+		for(String name : names) {
+			max = Math.max(max, name.length());
+		}
+
+		String[][] table = new String[max + 1][];
+
+		for(int len = 1; len <= max; len++) {
+			int cnt = 0;
+			for(String name : names) {
+				if(name.length() == len) cnt++;
+			}
+			table[len] = new String[cnt];
+			cnt = 0;
+			for(String name : names) {
+				if(name.length() == len) table[len][cnt++] = name;
+			}
+		}
+
+		return table;
+	}
+
+
+	// html 의 [start, end) 가 표에 있는 이름이면(대소문자 무시) 표에 들어있는 소문자 이름을 돌려준다
+	private static String lookup(String[][] table, char[] html, int start, int end) {
+
+		int len = end - start;
+
+		if(len <= 0 || len >= table.length) {
+			return null;
+		}
+
+		for(String name : table[len]) {
+			if(matchesLower(html, start, name)) {
+				return name;
+			}
+		}
+
+		return null;
+	}
+
+
+	private HtmlSanitizer() {}
+
+
+	/**
+	 * 에디터에서 넘어온 HTML 을 허용목록에 맞게 걸러주는 메서드
+	 *
+	 * @param html 걸러낼 HTML (null 이면 null 을 돌려준다)
+	 * @return 허용된 태그와 속성만 남은 HTML
+	 */
+	public static String sanitize(String html) {
+
+		if(html == null) {
+			return null;
+		}
+
+		int lt = html.indexOf('<');
+
+		// 태그가 하나도 없으면 새 문자열을 만들지 않는다
+		if(lt < 0) {
+			return html;
+		}
+
+		char[] buf = html.toCharArray();
+		int len = buf.length;
+		StringBuilder sb = new StringBuilder(len + 16);
+		int i = 0;
+
+		while(lt >= 0) {
+			sb.append(buf, i, lt - i);
+			i = readTag(buf, lt, sb);
+			lt = indexOf(buf, '<', i);
+		}
+
+		sb.append(buf, i, len - i);
+
+		return sb.toString();
+	}
+
+
+	// '<' 부터 태그 하나를 읽어서 걸러 적고, 다음에 읽을 위치를 돌려준다
+	private static int readTag(char[] html, int start, StringBuilder sb) {
+
+		int len = html.length;
+		int p = start + 1;
+
+		if(p >= len) {
+			sb.append("&lt;");
+			return p;
+		}
+
+		char c = html[p];
+
+		// 주석, <!DOCTYPE>, <![CDATA[, <? ?> 는 버린다
+		if(c == '!' || c == '?') {
+			// 빈 주석 <!--> , <!---> 도 닫힌 것으로 보도록 "-->" 는 "!" 다음부터 찾는다
+			int end = matchesLower(html, p, "!--") ? indexOf(html, "-->", p + 1) : indexOf(html, '>', p);
+
+			if(end < 0) {
+				return len;
+			}
+			return end + (html[end] == '-' ? 3 : 1);
+		}
+
+		boolean closing = false;
+
+		if(c == '/') {
+			closing = true;
+			p++;
+		}
+
+		int nameStart = p;
+
+		if(p >= len || !isLetter(html[p])) {
+			// 태그가 아닌 '<' 이다
+			sb.append("&lt;");
+			return start + 1;
+		}
+
+		while(p < len && isLetterOrDigit(html[p])) {
+			p++;
+		}
+
+		String name = lookup(ALLOWED_TAGS, html, nameStart, p);
+		String dropName = (name == null) ? lookup(DROP_CONTENT_TAGS, html, nameStart, p) : null;
+
+		boolean allowed = !closing && name != null;
+		int mark = sb.length();
+
+		if(allowed) {
+			sb.append('<').append(name);
+		}
+
+		int end = readAttributes(html, p, allowed ? sb : null);
+
+		// 닫히지 않은 태그는 글자로 취급한다
+		if(end < 0) {
+			sb.setLength(mark);
+			sb.append("&lt;");
+			return start + 1;
+		}
+
+		if(dropName != null) {
+			// 닫는 태그, 빈 태그, <svg/> 처럼 스스로 닫는 태그는 그 태그만 버린다
+			if(closing || isVoidDropTag(dropName) || html[end - 1] == '/') {
+				return end + 1;
+			}
+
+			// 닫는 태그가 없으면 여는 태그만 버리고 뒤의 내용은 그대로 걸러 적는다 (끝까지 지워버리지 않게)
+			int next = skipContent(html, dropName, end + 1);
+			return next < 0 ? end + 1 : next;
+		}
+
+		if(allowed) {
+			sb.append('>');
+		}
+		else if(closing && name != null) {
+			sb.append("</").append(name).append('>');
+		}
+
+		return end + 1;
+	}
+
+
+	// 태그 안의 속성들을 읽는다. sb 가 null 이 아니면 허용된 속성만 적어준다.
+	// 태그를 닫는 '>' 의 위치를 돌려주고, 닫히지 않았으면 -1 을 돌려준다.
+	private static int readAttributes(char[] html, int p, StringBuilder sb) {
+
+		int len = html.length;
+
+		while(true) {
+
+			// 공백과 '/' 건너뛰기
+			while(p < len) {
+				char c = html[p];
+				if(c == '>') {
+					return p;
+				}
+				if(c != '/' && !Character.isWhitespace(c)) {
+					break;
+				}
+				p++;
+			}
+
+			if(p >= len) {
+				return -1;
+			}
+
+			// 속성 이름
+			int nameStart = p;
+			while(p < len) {
+				char c = html[p];
+				if(c == '=' || c == '>' || c == '/' || Character.isWhitespace(c)) {
+					break;
+				}
+				p++;
+			}
+			int nameEnd = p;
+
+			// 속성 값
+			int valueStart = -1, valueEnd = -1;
+			int q = skipWhitespace(html, p);
+
+			if(q < len && html[q] == '=') {
+
+				q = skipWhitespace(html, q + 1);
+
+				if(q >= len) {
+					return -1;
+				}
+
+				char quote = html[q];
+
+				if(quote == '"' || quote == '\'') {
+					int close = indexOf(html, quote, q + 1);
+					if(close < 0) {
+						return -1;
+					}
+					valueStart = q + 1;
+					valueEnd = close;
+					p = close + 1;
+				}
+				else {
+					valueStart = q;
+					while(q < len && html[q] != '>' && !Character.isWhitespace(html[q])) {
+						q++;
+					}
+					valueEnd = q;
+					p = q;
+				}
+			}
+
+			if(sb != null && nameEnd > nameStart) {
+				writeAttribute(html, nameStart, nameEnd, valueStart, valueEnd, sb);
+			}
+		}
+	}
+
+
+	// 허용된 속성이면 name="value" 형태로 다시 적어준다
+	private static void writeAttribute(char[] html, int nameStart, int nameEnd, int valueStart, int valueEnd, StringBuilder sb) {
+
+		String name = lookup(ALLOWED_ATTRS, html, nameStart, nameEnd);
+
+		if(name == null) {
+			return;
+		}
+
+		if(valueStart < 0) {
+			sb.append(' ').append(name);
+			return;
+		}
+
+		if(("href".equals(name) || "src".equals(name)) && !isSafeUrl(html, valueStart, valueEnd, "src".equals(name))) {
+			return;
+		}
+
+		if("style".equals(name) && !isSafeStyle(html, valueStart, valueEnd)) {
+			return;
+		}
+
+		sb.append(' ').append(name).append("=\"");
+
+		// 특수문자가 없는 구간은 한번에 옮겨 적는다
+		int from = valueStart;
+
+		for(int i = valueStart; i < valueEnd; i++) {
+			char c = html[i];
+			if(c == '"' || c == '<' || c == '>') {
+				sb.append(html, from, i - from).append(c == '"' ? "&quot;" : (c == '<' ? "&lt;" : "&gt;"));
+				from = i + 1;
+			}
+		}
+
+		sb.append(html, from, valueEnd - from);
+		sb.append('"');
+	}
+
+
+	// 상대경로이거나 허용된 스킴이면 true (dataImage 가 true 면 data:image/png 등 그림도 허용)
+	private static boolean isSafeUrl(char[] html, int start, int end, boolean dataImage) {
+
+		for(int i = start; i < end; i++) {
+			char c = html[i];
+
+			if(c == '/' || c == '?' || c == '#') {
+				return true;	// 스킴이 없는 상대경로
+			}
+			if(c == '&') {
+				return false;	// 스킴 자리에 들어간 문자 엔티티 (javascript&#58; 등)
+			}
+			if(c == ':') {
+				// 스킴 사이에 끼워넣은 공백/제어문자는 브라우저가 무시하므로 빼고 비교한다
+				for(String scheme : SAFE_SCHEMES) {
+					if(schemeEquals(html, start, i, scheme)) {
+						return true;
+					}
+				}
+				return dataImage && schemeEquals(html, start, i, "data") && isSafeDataImage(html, i + 1, end);
+			}
+		}
+
+		return true;
+	}
+
+
+	// data: 뒤가 image/png; 또는 image/png, 처럼 허용된 그림 형식이면 true
+	private static boolean isSafeDataImage(char[] html, int start, int end) {
+
+		if(!matchesLower(html, start, "image/")) {
+			return false;
+		}
+
+		int p = start + 6;
+
+		for(String type : SAFE_DATA_IMAGES) {
+			int q = p + type.length();
+			if(q < end && matchesLower(html, p, type)
+				&& (html[q] == ';' || html[q] == ',')) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+
+	// [start, end) 에서 공백/제어문자를 뺀 글자가 scheme 과 같으면 true (대소문자 무시)
+	private static boolean schemeEquals(char[] html, int start, int end, String scheme) {
+
+		int k = 0;
+
+		for(int i = start; i < end; i++) {
+			char c = html[i];
+			if(c <= ' ') {
+				continue;
+			}
+			if(k >= scheme.length() || lower(c) != scheme.charAt(k++)) {
+				return false;
+			}
+		}
+
+		return k == scheme.length();
+	}
+
+
+	// style 속성값에 위험한 문자열이 없으면 true
+	private static boolean isSafeStyle(char[] html, int start, int end) {
+
+		for(int i = start; i < end; i++) {
+
+			char c = lower(html[i]);
+
+			// 위험한 문자열의 첫 글자가 아니면 바로 넘어간다
+			if(c != 'e' && c != 'j' && c != 'v' && c != 'b' && c != 'u' && c != '&' && c != '\\') {
+				continue;
+			}
+
+			for(String unsafe : UNSAFE_STYLE) {
+				if(unsafe.charAt(0) == c && i + unsafe.length() <= end
+					&& matchesLower(html, i, unsafe)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+
+	// </name> 이 나올때까지 건너뛴다 (대소문자 무시). </name> 이 없으면 -1 을 돌려준다.
+	private static int skipContent(char[] html, String name, int p) {
+
+		int len = html.length;
+
+		while(true) {
+			int lt = indexOf(html, "</", p);
+
+			if(lt < 0) {
+				return -1;
+			}
+
+			int nameEnd = lt + 2 + name.length();
+
+			if(matchesLower(html, lt + 2, name)
+				&& (nameEnd >= len || !isLetterOrDigit(html[nameEnd]))) {
+				int end = indexOf(html, '>', nameEnd);
+				return end < 0 ? len : end + 1;
+			}
+
+			p = lt + 2;
+		}
+	}
+
+
+	private static int skipWhitespace(char[] html, int p) {
+		while(p < html.length && Character.isWhitespace(html[p])) {
+			p++;
+		}
+		return p;
+	}
+
+	// html 의 start 부터가 소문자 name 과 같으면 true (ASCII 대소문자만 무시한다. 태그/속성 이름과 스킴은 ASCII 라서
+	// Character.toLowerCase 보다 빠르고, 'ſ' 같은 글자가 's' 로 취급되지도 않는다)
+	private static boolean matchesLower(char[] html, int start, String name) {
+
+		int n = name.length();
+
+		if(start < 0 || start + n > html.length) {
+			return false;
+		}
+
+		for(int i = 0; i < n; i++) {
+			if(lower(html[start + i]) != name.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// 닫는 태그가 없는 빈 태그인지 (embed, frame)
+	private static boolean isVoidDropTag(String name) {
+		for(String tag : VOID_DROP_TAGS) {
+			if(tag.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// String.indexOf 와 같다 (못 찾으면 -1)
+	private static int indexOf(char[] html, char c, int from) {
+		for(int i = from; i < html.length; i++) {
+			if(html[i] == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// str 은 소문자로 준다 (대소문자 무시)
+	private static int indexOf(char[] html, String str, int from) {
+		char first = str.charAt(0);
+		for(int i = indexOf(html, first, from); i >= 0 && i + str.length() <= html.length; i = indexOf(html, first, i + 1)) {
+			if(matchesLower(html, i, str)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static char lower(char c) {
+		return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isLetterOrDigit(char c) {
+		return isLetter(c) || (c >= '0' && c <= '9');
+	}
+
+} // end of class HtmlSanitizer
@@ -67,7 +67,9 @@ public class MyUtil {
 	 * 
 	 * 처리 방식:
 	 * - 스마트에디터 미사용 시: 모든 HTML 태그를 문자 엔티티로 변환 (주석 처리됨)
-	 * - 스마트에디터 사용 시: <script 태그만 선별적으로 무력화
+	 * - 스마트에디터 사용 시: HtmlSanitizer 로 허용된 태그와 속성만 남김
+	 *   (예전에는 replaceAll 로 &lt;script 만 바꿔서 호출할 때마다 정규식을 컴파일하고,
+	 *    onerror 같은 이벤트 속성이나 javascript: 주소는 막지 못했다)
 	 * 
 	 * @param str 보안 처리할 문자열 (사용자 입력값)
 	 * @return XSS 공격이 무력화된 안전한 문자열
@@ -83,9 +85,9 @@ public class MyUtil {
 		*/	
 		
 		// === 스마트에디터를 사용할 경우 ===
-		// HTML 태그는 허용하되, 위험한 <script 태그만 선별적으로 무력화
-		// 스마트에디터에서 생성한 정상적인 HTML은 유지하면서 보안 강화
-		str = str.replaceAll("<script", "&lt;script");
+		// 스마트에디터에서 생성한 정상적인 HTML은 유지하면서
+		// 허용목록에 없는 태그/속성(script, onerror, javascript: 등)은 한 번 훑으면서 걸러낸다
+		str = HtmlSanitizer.sanitize(str);
 		
 		return str;
 	}
@@ -0,0 +1,135 @@
+package com.project.pm.common;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 합칠 수 있는(mergeable) 분위수(p50, p95 ..) 추정용 히스토그램
+ *
+ * 값(초 단위 시간 등)을 로그 눈금 칸(bucket)에 세어 두기만 하므로
+ * 원본 값을 모두 들고 있지 않아도 되고, 칸별 건수를 더하기만 하면 두 sketch 가 합쳐진다.
+ * (부서별 sketch 를 더해서 전체를, 단계별 sketch 를 더해서 부서 전체를 만들 수 있다)
+ *
+ * 칸 i 는 (GAMMA^(i-1), GAMMA^i] 범위이고, 칸의 대표값은 실제 값과 최대 ACCURACY 만큼 차이난다.
+ * 1 이하의 값은 0번 칸에 센다.
+ */
+public class QuantileSketch {
+
+	// 상대 오차 (2%)
+	public static final double ACCURACY = 0.02;
+
+	private static final double GAMMA = (1 + ACCURACY) / (1 - ACCURACY);
+	private static final double LOG_GAMMA = Math.log(GAMMA);
+
+	private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+
+	// 값이 들어갈 칸 번호
+	public static int bucketOf(long value) {
+		if(value <= 1) {
+			return 0;
+		}
+		return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+	}
+
+	// 칸의 대표값
+	public static long valueOf(int bucket) {
+		if(bucket <= 0) {
+			return 1;
+		}
+		return Math.round(2 * Math.pow(GAMMA, bucket) / (GAMMA + 1));
+	}
+
+
+	// 값 1개 넣기
+	public void add(long value) {
+		addBucket(bucketOf(value), 1);
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	// 저장해 둔 요약값(건수, 합계, 최소, 최대) 넣기 (칸별 건수는 addBucket 으로 따로 넣는다)
+	public void addSummary(long count, long sum, long min, long max) {
+		if(count <= 0) {
+			return;
+		}
+		this.count += count;
+		this.sum += sum;
+		this.min = Math.min(this.min, min);
+		this.max = Math.max(this.max, max);
+	}
+
+	// 칸별 건수 넣기
+	public void addBucket(int bucket, long cnt) {
+		buckets.merge(bucket, cnt, Long::sum);
+	}
+
+	// 다른 sketch 합치기
+	public void merge(QuantileSketch other) {
+		addSummary(other.count, other.sum, other.min, other.max);
+		for(Map.Entry<Integer, Long> entry : other.buckets.entrySet()) {
+			addBucket(entry.getKey(), entry.getValue());
+		}
+	}
+
+
+	// q 분위수 (0 ~ 1, 값이 없으면 0)
+	public long quantile(double q) {
+
+		long total = 0;
+		for(long cnt : buckets.values()) {
+			total += cnt;
+		}
+
+		if(total == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.floor(q * (total - 1));
+		long seen = 0;
+
+		for(Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+			seen += entry.getValue();
+			if(seen > rank) {
+				long value = valueOf(entry.getKey());
+				if(count > 0) {
+					value = Math.max(min, Math.min(max, value)); // 실제 최소/최대를 넘지 않게
+				}
+				return value;
+			}
+		}
+
+		return count > 0 ? max : valueOf(buckets.lastKey());
+	}
+
+	public Map<Integer, Long> getBuckets() {
+		return buckets;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	public long getMin() {
+		return count > 0 ? min : 0;
+	}
+
+	public long getMax() {
+		return count > 0 ? max : 0;
+	}
+
+	public long getAvg() {
+		return count > 0 ? Math.round((double) sum / count) : 0;
+	}
+
+}
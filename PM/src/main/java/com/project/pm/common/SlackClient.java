@@ -0,0 +1,153 @@
+package com.project.pm.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.project.pm.parameter.controller.ParameterStringBuilder;
+
+/**
+ * Slack chat.postMessage 호출
+ *
+ * 연결/읽기 timeout 은 연결하기 전에 걸어두므로 Slack 이 느려도 timeout 이상 기다리지 않는다.
+ * 결과는 예외 대신 Result 로 돌려주고, 다시 보내면 되는 실패(retry)와 다시 보내도 안되는 실패를 나눈다.
+ * - 200 + ok:true                     : 성공
+ * - 429, 5xx, 연결/읽기 실패, ratelimited : retry (429 는 Retry-After 초를 같이 돌려준다)
+ * - 그 밖의 ok:false (토큰, 채널 오류 등) : 다시 보내지 않는다
+ */
+public class SlackClient {
+
+	public static class Result {
+
+		private final boolean ok;
+		private final boolean retry;
+		private final int retryAfterSec;
+		private final String error;
+
+		private Result(boolean ok, boolean retry, int retryAfterSec, String error) {
+			this.ok = ok;
+			this.retry = retry;
+			this.retryAfterSec = retryAfterSec;
+			this.error = error;
+		}
+
+		public boolean isOk() {
+			return ok;
+		}
+
+		public boolean isRetry() {
+			return retry;
+		}
+
+		public int getRetryAfterSec() {
+			return retryAfterSec;
+		}
+
+		public String getError() {
+			return error;
+		}
+	}
+
+	private final String url;
+	private final String token;
+	private final int connectTimeout;
+	private final int readTimeout;
+
+
+	public SlackClient(String url, String token, int connectTimeout, int readTimeout) {
+		this.url = url;
+		this.token = token;
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+	}
+
+
+	// channel 에 text 보내기
+	public Result post(String channel, String text) {
+
+		HttpURLConnection conn = null;
+
+		try {
+			conn = (HttpURLConnection) new URL(url).openConnection();
+
+			// 연결하기 전에 timeout 걸기
+			conn.setConnectTimeout(connectTimeout);
+			conn.setReadTimeout(readTimeout);
+
+			conn.setRequestMethod("POST");
+			conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+			conn.setRequestProperty("Authorization", "Bearer " + token);
+			conn.setDoOutput(true);
+
+			Map<String, String> params = new HashMap<>();
+			params.put("channel", channel);
+			params.put("text", text);
+
+			try (OutputStream out = conn.getOutputStream()) {
+				out.write(ParameterStringBuilder.getParamsString(params).getBytes(StandardCharsets.UTF_8));
+			}
+
+			int status = conn.getResponseCode();
+
+			if(status == 429) {
+				return new Result(false, true, conn.getHeaderFieldInt("Retry-After", 30), "HTTP 429");
+			}
+
+			String body = readBody(status >= 400 ? conn.getErrorStream() : conn.getInputStream());
+
+			if(status >= 500) {
+				return new Result(false, true, 0, "HTTP " + status);
+			}
+
+			if(status != 200) {
+				return new Result(false, false, 0, "HTTP " + status + " " + body);
+			}
+
+			JSONObject json = new JSONObject(body);
+
+			if(json.optBoolean("ok")) {
+				return new Result(true, false, 0, null);
+			}
+
+			String error = json.optString("error", "unknown");
+			return new Result(false, "ratelimited".equals(error) || "internal_error".equals(error), 0, error);
+
+		} catch (IOException e) {
+			return new Result(false, true, 0, e.getClass().getSimpleName() + ": " + e.getMessage());
+		} catch (JSONException e) {
+			return new Result(false, true, 0, "잘못된 응답: " + e.getMessage());
+		} finally {
+			if(conn != null) {
+				conn.disconnect();
+			}
+		}
+	}
+
+
+	private String readBody(InputStream in) throws IOException {
+
+		if(in == null) {
+			return "";
+		}
+
+		try (InputStream is = in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[4096];
+			int len;
+			while((len = is.read(buf)) != -1) {
+				out.write(buf, 0, len);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+package com.project.pm.common;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 문자열 2개의 차이(delta)를 만들고 적용하는 클래스
+ *
+ * 문서 수정이력처럼 앞 판과 거의 같은 문자열을 저장할 때 바뀐 부분만 남기기 위해 쓴다.
+ * 앞 판(base)을 BLOCK 글자 단위로 잘라 해시로 색인해두고, 새 판(target)을 한 글자씩 밀면서(rolling hash)
+ * 같은 블록을 찾으면 앞뒤로 최대한 늘려서 "앞 판의 off 부터 len 글자 복사" 로 적고,
+ * 못 찾은 부분은 "글자 그대로 넣기" 로 적는다.
+ *
+ * 형식 (숫자는 모두 varint):
+ * - 새 판 글자수
+ * - 명령 반복: (len &lt;&lt; 1 | 0) off  = 앞 판의 off 부터 len 글자 복사
+ *              (len &lt;&lt; 1 | 1) c1 c2 .. = len 글자 그대로 넣기 (UTF-16 char)
+ */
+public final class TextDelta {
+
+	// 색인할 블록 크기 (이보다 짧게 같은 부분은 그냥 넣기로 적는다)
+	private static final int BLOCK = 16;
+
+	private static final int P = 31;
+
+	// P^(BLOCK-1) : 밀어낸 글자의 해시값을 빼기 위한 값
+	private static final int POW;
+	static {
+		int pow = 1;
+		for(int i=0; i<BLOCK-1; i++) {
+			pow *= P;
+		}
+		POW = pow;
+	}
+
+	private TextDelta() {}
+
+
+	// base 를 target 으로 바꾸는 delta 만들기
+	public static byte[] encode(String base, String target) {
+
+		int n = target.length();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64 + n / 8);
+		writeVarint(out, n);
+
+		if(base.length() < BLOCK || n < BLOCK) {
+			if(n > 0) {
+				writeInsert(out, target, 0, n);
+			}
+			return out.toByteArray();
+		}
+
+		// 앞 판 블록 색인 (같은 해시면 앞쪽 블록)
+		Map<Integer, Integer> index = new HashMap<>(base.length() / BLOCK * 2);
+		for(int i=0; i + BLOCK <= base.length(); i += BLOCK) {
+			index.putIfAbsent(hash(base, i), i);
+		}
+
+		int pending = 0; // 아직 적지 않은 새 판의 시작 위치
+		int j = 0;
+		int h = hash(target, 0);
+
+		while(j + BLOCK <= n) {
+
+			Integer pos = index.get(h);
+
+			if(pos != null && target.regionMatches(j, base, pos, BLOCK)) {
+
+				// 뒤로 늘리기 (아직 적지 않은 부분까지만)
+				int s = pos;
+				int t = j;
+				while(t > pending && s > 0 && target.charAt(t-1) == base.charAt(s-1)) {
+					s--;
+					t--;
+				}
+
+				// 앞으로 늘리기
+				int e = j + BLOCK;
+				int be = pos + BLOCK;
+				while(e < n && be < base.length() && target.charAt(e) == base.charAt(be)) {
+					e++;
+					be++;
+				}
+
+				if(t > pending) {
+					writeInsert(out, target, pending, t);
+				}
+				writeVarint(out, (e - t) << 1);
+				writeVarint(out, s);
+
+				pending = e;
+				j = e;
+
+				if(j + BLOCK <= n) {
+					h = hash(target, j);
+				}
+				continue;
+			}
+
+			if(j + BLOCK < n) {
+				h = (h - target.charAt(j) * POW) * P + target.charAt(j + BLOCK);
+			}
+			j++;
+		}
+
+		if(pending < n) {
+			writeInsert(out, target, pending, n);
+		}
+
+		return out.toByteArray();
+	}
+
+
+	// base 에 delta 를 적용해서 새 판 만들기
+	public static String apply(String base, byte[] delta) {
+
+		int[] pos = {0};
+		int n = readVarint(delta, pos);
+
+		StringBuilder sb = new StringBuilder(n);
+
+		while(pos[0] < delta.length) {
+
+			int header = readVarint(delta, pos);
+			int len = header >>> 1;
+
+			if((header & 1) == 0) {
+				int off = readVarint(delta, pos);
+				if(off + len > base.length()) {
+					throw new IllegalStateException("delta 가 앞 판과 맞지 않습니다.");
+				}
+				sb.append(base, off, off + len);
+			}
+			else {
+				for(int i=0; i<len; i++) {
+					sb.append((char) readVarint(delta, pos));
+				}
+			}
+		}
+
+		if(sb.length() != n) {
+			throw new IllegalStateException("delta 적용 결과 길이가 맞지 않습니다.");
+		}
+
+		return sb.toString();
+	}
+
+
+	private static int hash(String str, int from) {
+		int h = 0;
+		for(int i=from; i<from+BLOCK; i++) {
+			h = h * P + str.charAt(i);
+		}
+		return h;
+	}
+
+	private static void writeInsert(ByteArrayOutputStream out, String str, int from, int to) {
+		writeVarint(out, ((to - from) << 1) | 1);
+		for(int i=from; i<to; i++) {
+			writeVarint(out, str.charAt(i));
+		}
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value) {
+		while((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(byte[] buf, int[] pos) {
+		int value = 0;
+		int shift = 0;
+		while(true) {
+			if(pos[0] >= buf.length || shift > 28) {
+				throw new IllegalStateException("delta 형식이 올바르지 않습니다.");
+			}
+			byte b = buf[pos[0]++];
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+}
@@ -1,10 +1,10 @@
 package com.project.pm.commute.controller;
 
 import java.io.BufferedReader;
-import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.HashMap;
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.json.JSONArray;
@@ -24,8 +25,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.project.pm.commute.model.CommuteVO;
 import com.project.pm.commute.service.CommuteService;
+import com.project.pm.commute.service.PunchIngestService;
 import com.project.pm.employee.model.EmpVO;
-import com.project.pm.parameter.controller.ParameterStringBuilder;
 
 @Controller
 public class CommuteController {
@@ -33,6 +34,12 @@ public class CommuteController {
 	@Autowired
 	private CommuteService service;
 	
+	@Autowired
+	private PunchIngestService punchIngest;
+	
+	// 출입카드 단말기 토큰 (-Dpm.punch.token= , 비어 있으면 관리자 로그인으로만 넣을 수 있다)
+	private static final String PUNCH_TOKEN = System.getProperty("pm.punch.token", "");
+	
 	// 출근 메소드
 		@ResponseBody
 		@RequestMapping(value="/commute/commuteStart.pm", produces="text/plain;charset=UTF-8", method = {RequestMethod.POST})
@@ -44,17 +51,63 @@ public class CommuteController {
 			
 			String fk_empno = request.getParameter("fk_empno");
 			
-			int n = service.commuteStart(fk_empno);
+			// 슬랙 알림은 보낼함에만 넣고 바로 돌아온다 (SlackOutboxService 가 따로 보낸다)
+			int n = service.commuteStart(fk_empno, name);
 			
 			JSONObject jsonObj = new JSONObject();
 			jsonObj.put("n", n);
 			
-			if(n > 0) {
-				System.out.println("들어옴");
-				try {
-					sendSlack(name+"님이 " + getTime() + "에 출근 하셨습니다.");
-				} catch (Exception e) {
-					e.printStackTrace();
+			return jsonObj.toString();
+		}
+		
+		
+		// 출입카드 기록 한꺼번에 넣기
+		// 본문은 CSV(empno,time[,type]) 또는 NDJSON({"empno":..,"time":..,"type":..}) 한줄에 1건, type 은 IN, OUT 또는 빈칸
+		// format=ndjson 파라미터나 Content-Type 에 json 이 있으면 NDJSON, 아니면 CSV 로 읽는다.
+		// 결과에 줄별 오류/경고(reportList: line, level, message)를 돌려준다.
+		@ResponseBody
+		@RequestMapping(value="/commute/ingestPunches.pm", produces="text/plain;charset=UTF-8", method = {RequestMethod.POST})
+		public String ingestPunches(HttpServletRequest request, HttpServletResponse response) throws IOException {
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			HttpSession session = request.getSession(false);
+			EmpVO loginuser = session == null ? null : (EmpVO)session.getAttribute("loginuser");
+			
+			String token = request.getHeader("X-Punch-Token");
+			
+			boolean isAdmin = loginuser != null && "9999".equals(loginuser.getEmpno());
+			boolean isDevice = !"".equals(PUNCH_TOKEN) && token != null
+			                   && MessageDigest.isEqual(PUNCH_TOKEN.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+			
+			if(!isAdmin && !isDevice) { // 관리자도 단말기도 아닌데 접근했을 경우
+				response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+				jsonObj.put("n", 0);
+				return jsonObj.toString();
+			}
+			
+			String format = request.getParameter("format");
+			String contentType = request.getContentType();
+			
+			boolean ndjson = format != null ? "ndjson".equalsIgnoreCase(format)
+			                                : contentType != null && contentType.toLowerCase().contains("json");
+			
+			Map<String, Object> batch;
+			
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+				batch = punchIngest.parse(reader, ndjson);
+			}
+			
+			Map<String, Object> resultMap = punchIngest.apply(batch);
+			
+			jsonObj.put("n", 1);
+			
+			for(Map.Entry<String, Object> entry : resultMap.entrySet()) {
+				if("reportList".equals(entry.getKey())) {
+					jsonObj.put("reportList", new JSONArray((List<?>) entry.getValue()));
+				}
+				else {
+					jsonObj.put(entry.getKey(), entry.getValue());
 				}
 			}
 			
@@ -110,21 +163,14 @@ public class CommuteController {
 			paraMap.put("fk_empno",fk_empno);
 			paraMap.put("worktime",worktime);
 			paraMap.put("overtime",overtime);
+			paraMap.put("name",name);
 			
+			// 슬랙 알림은 보낼함에만 넣고 바로 돌아온다 (SlackOutboxService 가 따로 보낸다)
 			int n = service.commuteEnd(paraMap);
 			
 			JSONObject jsonObj = new JSONObject();
 			jsonObj.put("n", n);
 			
-			if(n > 0) {
-				System.out.println("들어옴");
-				try {
-					sendSlack(name+"님이 " + getTime() + "에 퇴근 하셨습니다.");
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			
 			return jsonObj.toString();
 		}
 		
@@ -270,48 +316,6 @@ public class CommuteController {
 			
 		}
 		
-		public void sendSlack(String message) throws Exception {
-	        //create a connection to a given URL using POST method
-	        URL url = new URL("https://slack.com/api/chat.postMessage");
-	        HttpURLConnection httpURLConnection = (HttpURLConnection) url.openConnection();
-	        
-	        //Setting Headers
-	        httpURLConnection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-	        httpURLConnection.setRequestProperty("Authorization", "Bearer ");
-	        httpURLConnection.setRequestMethod("POST");
-
-	        //Adding Request Params
-	        Map<String, String> params = new HashMap<>();
-	        params.put("channel", "C04EF7EHM6F");
-	        params.put("text", message);
-	        params.put("pretty", "1");
-	        httpURLConnection.setDoOutput(true);
-	        DataOutputStream out = new DataOutputStream(httpURLConnection.getOutputStream());
-	        out.writeBytes(ParameterStringBuilder.getParamsString(params));
-	        out.flush();
-	        out.close();
-
-	        //Configuring TimeOut
-	        httpURLConnection.setConnectTimeout(5000);
-	        httpURLConnection.setReadTimeout(5000);
-
-	        //Reading the Response
-	        BufferedReader in = new BufferedReader(
-	                new InputStreamReader(httpURLConnection.getInputStream())
-	        );
-	        String inputLine;
-	        StringBuffer content = new StringBuffer();
-	        while ((inputLine = in.readLine()) != null) {
-	            content.append(inputLine);
-	        }
-	        in.close();
-
-	        //Disconnect
-	        httpURLConnection.disconnect();
-
-	        //Print the content
-	        System.out.println("content = " + content);
-	    }
 		
 		
 		
@@ -335,14 +339,6 @@ public class CommuteController {
 		}
 		
 		
-		// 현재 시간을 가져오는 메소드
-		private String getTime() {
-			
-			Calendar calendar = Calendar.getInstance();
-			SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-			
-			return formatter.format(calendar.getTime());
-		}
 	
 
 }
@@ -4,6 +4,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.cursor.Cursor;
+
 public interface CommuteDAO {
 	
 		// 출근 메소드
@@ -52,5 +54,79 @@ public interface CommuteDAO {
 
 		List<Map<String, Object>> avgSalaryByDept();
 
+		// 슬랙 보낼함에 메시지 넣기 (channel, message)
+		int insertSlackOutbox(Map<String, String> paraMap);
+
+		// 보낼 메시지 잡아두기 (leaseSec, limit → claimList)
+		void claimSlackOutbox(Map<String, String> paraMap);
+
+		// 잡아둔 메시지 가져오기
+		List<Map<String, String>> getSlackOutbox(List<String> outboxNoList);
+
+		// 보낸 메시지 표시
+		int markSlackSent(List<String> outboxNoList);
+
+		// 못 보낸 메시지 나중에 다시 보내게 표시
+		int retrySlackOutbox(Map<String, Object> paraMap);
+
+		// 다시 보내도 안되는 메시지 표시
+		int failSlackOutbox(Map<String, Object> paraMap);
+
+		// 오래된 보낸 메시지 지우기
+		int purgeSlackOutbox(String days);
+
+		// 사원 1명의 하루 근무시간 집계를 원본에서 다시 계산하기 (fk_empno, work_day(없으면 오늘))
+		int refreshCommuteDay(Map<String, String> paraMap);
+
+		// 여러 (사원, 날짜)의 근무시간 집계를 한번에 다시 계산하기 (fk_empno, work_day 목록, 100개 이하씩)
+		int refreshCommuteDays(List<Map<String, String>> dayList);
+
+		// 근무시간 집계가 원본과 다른 것 (startdate, enddate)
+		List<Map<String, String>> verifyCommuteRollup(Map<String, String> paraMap);
+
+		// 근무시간 집계를 원본에서 다시 만들기 (startdate, enddate)
+		int rebuildCommuteRollup(Map<String, String> paraMap);
+
+		// 급여 일괄지급 시작 (month_payment, startdate, enddate, fk_empno → run_no, resumed)
+		void startPayrollRun(Map<String, String> paraMap);
+
+		// 급여 일괄지급 작업 1건
+		Map<String, String> getPayrollRun(String run_no);
+
+		// 그 달의 가장 최근 급여 일괄지급 작업
+		Map<String, String> getLastPayrollRun(String month_payment);
+
+		// stale_min 분 동안 진행이 없는 급여 일괄지급 작업번호
+		List<String> getStalePayrollRuns(String stale_min);
+
+		// 급여 일괄지급 전체 건수 정하기
+		int setPayrollRunTotal(Map<String, String> paraMap);
+
+		// 다음 chunk 지급 대상 (cursor, 트랜잭션 안에서 읽는다)
+		Cursor<Map<String, String>> getPayrollChunk(Map<String, String> paraMap);
+
+		// 급여 지급 기록 JDBC batch insert (empno, month_payment, salary, over_salary)
+		int insertSalaryPaymentBatch(List<Map<String, String>> paymentList);
+
+		// chunk 1개 끝 (run_no, last_empno, cnt)
+		int updatePayrollRunProgress(Map<String, String> paraMap);
+
+		// 급여 일괄지급 끝
+		int finishPayrollRun(String run_no);
+
+		// 급여 일괄지급 실패 (run_no, error)
+		int failPayrollRun(Map<String, String> paraMap);
+
+		// 퇴직금 대상 스냅샷 다시 계산하기 (→ row_cnt)
+		void refreshSeveranceSnapshot(Map<String, String> paraMap);
+
+		// 스냅샷 마지막 계산 시각
+		Map<String, String> getSnapshotInfo(String snapshot_name);
+
+		// 사원번호 중 있는 사원번호만
+		List<String> getExistingEmpnos(List<String> empnoList);
+
+		// 출입카드 근무 기록 JDBC batch upsert (같은 날 기록이 있으면 출근은 더 이른 것, 퇴근은 더 늦은 것으로)
+		int upsertCommuteBatch(List<PunchShiftVO> shiftList);
 
 }
@@ -1,12 +1,19 @@
 package com.project.pm.commute.model;
 
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
+import javax.sql.DataSource;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -14,6 +21,43 @@ public class CommuteDAOImp implements CommuteDAO{
 	
 	@Resource
 	private SqlSessionTemplate sqlsession;
+	
+	// JDBC batch 용 (트랜잭션 안이면 sqlsession 과 같은 connection 을 받는다)
+	@Resource
+	private DataSource dataSource;
+	
+	// upsertCommuteBatch 에서 executeBatch 1번에 보낼 건수
+	private static final int UPSERT_BATCH_SIZE = 500;
+	
+	// 출입카드 근무 upsert
+	// 그날(출근일) 기록이 있으면 출근은 더 이른 것, 퇴근은 더 늦은 것으로 바꾸고 없으면 insert 한다.
+	// 근무시간/초과근무시간(분)은 화면의 퇴근하기와 같은 규칙 : 5시간 넘게 일하고 14시 전에 출근했으면 점심 1시간을 빼고, 8시간 넘은 만큼이 초과근무
+	// (start_work_time 은 on 절에 쓸 수 없으므로 기존 행은 rowid 로 찾는다)
+	private static final String UPSERT_COMMUTE_SQL =
+		  " merge into tbl_commute C "
+		+ " using ( "
+		+ "     select fk_empno, rid, new_start, new_end "
+		+ "          , case when new_end is null then null else floor(work_min) end AS worktime "
+		+ "          , case when new_end is null then null when work_min > 480 then floor(work_min - 480) else 0 end AS overtime "
+		+ "     from ( "
+		+ "         select fk_empno, rid, new_start, new_end "
+		+ "              , (new_end - new_start)*24*60 "
+		+ "                - case when (new_end - new_start)*24 > 5 and to_number(to_char(new_start, 'hh24')) < 14 then 60 else 0 end AS work_min "
+		+ "         from ( "
+		+ "             select P.fk_empno, X.rid "
+		+ "                  , least(nvl(X.start_work_time, P.s_time), P.s_time) AS new_start "
+		+ "                  , case when X.end_work_time is null and P.e_time is null then null "
+		+ "                         else greatest(nvl(X.end_work_time, P.e_time), nvl(P.e_time, X.end_work_time)) end AS new_end "
+		+ "             from ( select to_number(?) AS fk_empno, to_date(?, 'yyyy-mm-dd hh24:mi:ss') AS s_time, to_date(?, 'yyyy-mm-dd hh24:mi:ss') AS e_time from dual ) P "
+		+ "             left join ( select rowid AS rid, fk_empno, start_work_time, end_work_time from tbl_commute ) X "
+		+ "             on X.fk_empno = P.fk_empno and X.start_work_time >= trunc(P.s_time) and X.start_work_time < trunc(P.s_time) + 1 "
+		+ "         ) "
+		+ "     ) "
+		+ " ) S "
+		+ " on (C.rowid = S.rid) "
+		+ " when matched then update set C.start_work_time = S.new_start, C.end_work_time = S.new_end, C.worktime = S.worktime, C.overtime = S.overtime "
+		+ " when not matched then insert (fk_empno, start_work_time, end_work_time, worktime, overtime) "
+		+ "                       values (S.fk_empno, S.new_start, S.new_end, S.worktime, S.overtime) ";
 
 	// 출근 메소드
 		@Override
@@ -125,4 +169,236 @@ public class CommuteDAOImp implements CommuteDAO{
 			return avgSalaryByDeptList;
 		}
 
+		// 슬랙 보낼함에 메시지 넣기
+		@Override
+		public int insertSlackOutbox(Map<String, String> paraMap) {
+			int n = sqlsession.insert("manage.insertSlackOutbox", paraMap);
+			return n;
+		}
+
+		// 보낼 메시지 잡아두기
+		@Override
+		public void claimSlackOutbox(Map<String, String> paraMap) {
+			sqlsession.update("manage.claimSlackOutbox", paraMap);
+		}
+
+		// 잡아둔 메시지 가져오기
+		@Override
+		public List<Map<String, String>> getSlackOutbox(List<String> outboxNoList) {
+			List<Map<String, String>> outboxList = sqlsession.selectList("manage.getSlackOutbox", outboxNoList);
+			return outboxList;
+		}
+
+		// 보낸 메시지 표시
+		@Override
+		public int markSlackSent(List<String> outboxNoList) {
+			int n = sqlsession.update("manage.markSlackSent", outboxNoList);
+			return n;
+		}
+
+		// 못 보낸 메시지 나중에 다시 보내게 표시
+		@Override
+		public int retrySlackOutbox(Map<String, Object> paraMap) {
+			int n = sqlsession.update("manage.retrySlackOutbox", paraMap);
+			return n;
+		}
+
+		// 다시 보내도 안되는 메시지 표시
+		@Override
+		public int failSlackOutbox(Map<String, Object> paraMap) {
+			int n = sqlsession.update("manage.failSlackOutbox", paraMap);
+			return n;
+		}
+
+		// 오래된 보낸 메시지 지우기
+		@Override
+		public int purgeSlackOutbox(String days) {
+			int n = sqlsession.delete("manage.purgeSlackOutbox", days);
+			return n;
+		}
+
+		// 사원 1명의 하루 근무시간 집계를 원본에서 다시 계산하기
+		@Override
+		public int refreshCommuteDay(Map<String, String> paraMap) {
+			int n = sqlsession.update("manage.refreshCommuteDay", paraMap);
+			return n;
+		}
+
+		// 여러 (사원, 날짜)의 근무시간 집계를 한번에 다시 계산하기
+		@Override
+		public int refreshCommuteDays(List<Map<String, String>> dayList) {
+			Map<String, Object> paraMap = new HashMap<>();
+			paraMap.put("dayList", dayList);
+			int n = sqlsession.update("manage.refreshCommuteDays", paraMap);
+			return n;
+		}
+
+		// 근무시간 집계가 원본과 다른 것
+		@Override
+		public List<Map<String, String>> verifyCommuteRollup(Map<String, String> paraMap) {
+			List<Map<String, String>> diffList = sqlsession.selectList("manage.verifyCommuteRollup", paraMap);
+			return diffList;
+		}
+
+		// 근무시간 집계를 원본에서 다시 만들기
+		@Override
+		public int rebuildCommuteRollup(Map<String, String> paraMap) {
+			int n = sqlsession.update("manage.rebuildCommuteRollup", paraMap);
+			return n;
+		}
+
+		// 급여 일괄지급 시작
+		@Override
+		public void startPayrollRun(Map<String, String> paraMap) {
+			sqlsession.update("manage.startPayrollRun", paraMap);
+		}
+
+		// 급여 일괄지급 작업 1건
+		@Override
+		public Map<String, String> getPayrollRun(String run_no) {
+			Map<String, String> run = sqlsession.selectOne("manage.getPayrollRun", run_no);
+			return run;
+		}
+
+		// 그 달의 가장 최근 급여 일괄지급 작업
+		@Override
+		public Map<String, String> getLastPayrollRun(String month_payment) {
+			Map<String, String> run = sqlsession.selectOne("manage.getLastPayrollRun", month_payment);
+			return run;
+		}
+
+		// stale_min 분 동안 진행이 없는 급여 일괄지급 작업번호
+		@Override
+		public List<String> getStalePayrollRuns(String stale_min) {
+			List<String> runNoList = sqlsession.selectList("manage.getStalePayrollRuns", stale_min);
+			return runNoList;
+		}
+
+		// 급여 일괄지급 전체 건수 정하기
+		@Override
+		public int setPayrollRunTotal(Map<String, String> paraMap) {
+			int n = sqlsession.update("manage.setPayrollRunTotal", paraMap);
+			return n;
+		}
+
+		// 다음 chunk 지급 대상
+		@Override
+		public Cursor<Map<String, String>> getPayrollChunk(Map<String, String> paraMap) {
+			return sqlsession.selectCursor("manage.getPayrollChunk", paraMap);
+		}
+
+		// 급여 지급 기록 JDBC batch insert
+		// PreparedStatement 1개에 addBatch 로 모아서 한번에 보낸다. (INSERT ALL 처럼 건수만큼 긴 sql 을 만들지 않는다)
+		@Override
+		public int insertSalaryPaymentBatch(List<Map<String, String>> paymentList) {
+			
+			if(paymentList == null || paymentList.size() == 0) {
+				return 0;
+			}
+			
+			String sql = " insert into tbl_salary_payment(fk_empno, month_payment, salary, over_salary) "
+			           + " values(?, to_date(?,'yyyy-mm'), ?, ?) ";
+			
+			Connection conn = DataSourceUtils.getConnection(dataSource);
+			
+			try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+				
+				for(Map<String, String> payment : paymentList) {
+					pstmt.setLong(1, Long.parseLong(payment.get("empno")));
+					pstmt.setString(2, payment.get("month_payment"));
+					pstmt.setBigDecimal(3, new BigDecimal(payment.get("salary")));
+					pstmt.setBigDecimal(4, new BigDecimal(payment.get("over_salary")));
+					pstmt.addBatch();
+				}
+				
+				pstmt.executeBatch();
+				
+				return paymentList.size();
+				
+			} catch (SQLException e) {
+				throw new IllegalStateException("급여 지급 기록 실패 : " + e.getMessage(), e);
+			} finally {
+				DataSourceUtils.releaseConnection(conn, dataSource);
+			}
+		}
+
+		// chunk 1개 끝
+		@Override
+		public int updatePayrollRunProgress(Map<String, String> paraMap) {
+			int n = sqlsession.update("manage.updatePayrollRunProgress", paraMap);
+			return n;
+		}
+
+		// 급여 일괄지급 끝
+		@Override
+		public int finishPayrollRun(String run_no) {
+			int n = sqlsession.update("manage.finishPayrollRun", run_no);
+			return n;
+		}
+
+		// 급여 일괄지급 실패
+		@Override
+		public int failPayrollRun(Map<String, String> paraMap) {
+			int n = sqlsession.update("manage.failPayrollRun", paraMap);
+			return n;
+		}
+
+		// 퇴직금 대상 스냅샷 다시 계산하기
+		@Override
+		public void refreshSeveranceSnapshot(Map<String, String> paraMap) {
+			sqlsession.update("manage.refreshSeveranceSnapshot", paraMap);
+		}
+
+		// 스냅샷 마지막 계산 시각
+		@Override
+		public Map<String, String> getSnapshotInfo(String snapshot_name) {
+			Map<String, String> info = sqlsession.selectOne("manage.getSnapshotInfo", snapshot_name);
+			return info;
+		}
+
+		// 사원번호 중 있는 사원번호만
+		@Override
+		public List<String> getExistingEmpnos(List<String> empnoList) {
+			List<String> existList = sqlsession.selectList("manage.getExistingEmpnos", empnoList);
+			return existList;
+		}
+
+		// 출입카드 근무 기록 JDBC batch upsert
+		@Override
+		public int upsertCommuteBatch(List<PunchShiftVO> shiftList) {
+			
+			if(shiftList == null || shiftList.size() == 0) {
+				return 0;
+			}
+			
+			Connection conn = DataSourceUtils.getConnection(dataSource);
+			
+			try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_COMMUTE_SQL)) {
+				
+				int cnt = 0;
+				
+				for(PunchShiftVO shift : shiftList) {
+					pstmt.setString(1, shift.getFk_empno());
+					pstmt.setString(2, shift.getStart_work_time());
+					pstmt.setString(3, shift.getEnd_work_time());
+					pstmt.addBatch();
+					
+					if(++cnt % UPSERT_BATCH_SIZE == 0) {
+						pstmt.executeBatch();
+					}
+				}
+				
+				if(cnt % UPSERT_BATCH_SIZE != 0) {
+					pstmt.executeBatch();
+				}
+				
+				return cnt;
+				
+			} catch (SQLException e) {
+				throw new IllegalStateException("근무 기록 upsert 실패 : " + e.getMessage(), e);
+			} finally {
+				DataSourceUtils.releaseConnection(conn, dataSource);
+			}
+		}
+
 }
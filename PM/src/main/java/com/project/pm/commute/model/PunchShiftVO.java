@@ -0,0 +1,24 @@
+package com.project.pm.commute.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+// 출입카드 기록(punch)을 사원, 날짜별로 짝지은 근무 1건 (tbl_commute 1행이 된다)
+@Setter
+@Getter
+@ToString
+public class PunchShiftVO {
+
+	private String fk_empno;
+	private String work_day;          // yyyy-mm-dd (출근한 날)
+	private String start_work_time;   // yyyy-mm-dd hh24:mi:ss
+	private String end_work_time;     // yyyy-mm-dd hh24:mi:ss, 퇴근 기록이 없으면 null
+
+	// 이 근무를 만든 요청 줄 번호 (오류 보고용)
+	private List<Integer> lineList = new ArrayList<>();
+
+}
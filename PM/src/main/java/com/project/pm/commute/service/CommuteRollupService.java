@@ -0,0 +1,23 @@
+package com.project.pm.commute.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface CommuteRollupService {
+
+	// 사원 1명의 하루(yyyy-mm-dd, null 이면 오늘) 근무시간 집계를 다시 계산하기 (출근/퇴근/정정 트랜잭션 안에서)
+	void refreshDay(String fk_empno, String work_day);
+
+	// startdate ~ enddate 의 집계 중 원본과 다른 것
+	List<Map<String, String>> verify(String startdate, String enddate);
+
+	// startdate ~ enddate 의 집계를 원본에서 다시 만들고, 다시 만들기 전에 달랐던 것을 리턴
+	List<Map<String, String>> repair(String startdate, String enddate);
+
+	// 최근 며칠의 집계를 검사해서 다르면 다시 만들기 (스케줄러)
+	int verifyRecent();
+
+	// 마지막 verifyRecent 결과 (startdate, enddate, checked_at, diffCount, diffList), 아직 돌지 않았으면 null
+	Map<String, Object> getLastVerify();
+
+}
@@ -0,0 +1,124 @@
+package com.project.pm.commute.service;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.pm.commute.model.CommuteDAO;
+
+// 근무시간 일별/월별 집계(tbl_commute_daily, tbl_commute_monthly)
+// 관리자 근무기록, 급여정산, 인사이트는 원본(tbl_commute) 대신 이 집계를 읽고, 오늘 기록만 원본에서 읽는다.
+// 출근/퇴근(정정)할 때마다 그 날짜 1개만 원본에서 다시 계산하므로 집계는 원본과 같아야 하고,
+// 매일 밤 최근 VERIFY_DAYS 일을 원본과 비교해서 다르면 그 기간을 다시 만든다.
+@Service
+public class CommuteRollupServiceImp implements CommuteRollupService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CommuteRollupServiceImp.class);
+
+	// 매일 밤 검사할 기간 (오늘 포함)
+	private static final int VERIFY_DAYS = 7;
+
+	// 마지막 검사 결과에 남겨둘 최대 불일치 수 (건수는 모두 센다)
+	private static final int MAX_KEEP_DIFF = 100;
+
+	@Autowired
+	private CommuteDAO dao;
+
+	// 마지막 verifyRecent 결과 (/admin/verifyCommuteRollup.pm 에서 본다)
+	private volatile Map<String, Object> lastVerify;
+
+
+	// 사원 1명의 하루 근무시간 집계를 다시 계산하기
+	@Override
+	public void refreshDay(String fk_empno, String work_day) {
+
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("fk_empno", fk_empno);
+		paraMap.put("work_day", work_day);
+
+		dao.refreshCommuteDay(paraMap);
+	}
+
+
+	// 집계 중 원본과 다른 것
+	@Override
+	public List<Map<String, String>> verify(String startdate, String enddate) {
+		return dao.verifyCommuteRollup(toParaMap(startdate, enddate));
+	}
+
+
+	// 집계를 원본에서 다시 만들기
+	@Override
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+	public List<Map<String, String>> repair(String startdate, String enddate) {
+
+		Map<String, String> paraMap = toParaMap(startdate, enddate);
+
+		List<Map<String, String>> diffList = dao.verifyCommuteRollup(paraMap);
+
+		if(diffList.size() > 0) {
+			dao.rebuildCommuteRollup(paraMap);
+		}
+
+		return diffList;
+	}
+
+
+	// 최근 VERIFY_DAYS 일 검사
+	@Override
+	@Scheduled(cron="0 40 3 * * *")
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+	public int verifyRecent() {
+
+		Calendar calendar = Calendar.getInstance();
+		SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
+
+		String enddate = formatter.format(calendar.getTime());
+		calendar.add(Calendar.DATE, -(VERIFY_DAYS - 1));
+		String startdate = formatter.format(calendar.getTime());
+
+		List<Map<String, String>> diffList = repair(startdate, enddate);
+
+		if(diffList.size() > 0) {
+			logger.warn("근무시간 집계 {} ~ {} 불일치 {}건 다시 만듦 (내용은 /admin/verifyCommuteRollup.pm)", startdate, enddate, diffList.size());
+		}
+
+		Map<String, Object> result = new HashMap<>();
+		result.put("startdate", startdate);
+		result.put("enddate", enddate);
+		result.put("checked_at", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+		result.put("diffCount", diffList.size());
+		result.put("diffList", new ArrayList<>(diffList.subList(0, Math.min(diffList.size(), MAX_KEEP_DIFF))));
+		lastVerify = result;
+
+		return diffList.size();
+	}
+
+
+	@Override
+	public Map<String, Object> getLastVerify() {
+		return lastVerify;
+	}
+
+
+	private Map<String, String> toParaMap(String startdate, String enddate) {
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("startdate", startdate);
+		paraMap.put("enddate", enddate);
+		return paraMap;
+	}
+
+}
@@ -8,13 +8,16 @@ import com.project.pm.commute.model.CommuteVO;
 
 public interface CommuteService {
 	
-	// 출근 메소드
-		int commuteStart(String fk_empno);
+	// 출근 메소드 (출근하면 슬랙 보낼함에 출근 알림을 같이 넣는다)
+		int commuteStart(String fk_empno, String name);
 
-		// 출근했는지 확인하는 메소드
+		// 출근했는지 확인하는 메소드 (오늘 기록은 메모리에 캐시한다)
 		CommuteVO checkCommute(String fk_empno);
 
-		// 퇴근 메소드
+		// 오늘 출퇴근 기록 캐시 비우기 (자정 스케줄러, 근무기록을 DB 에서 직접 고친 뒤)
+		void clearTodayCache();
+
+		// 퇴근 메소드 (퇴근하면 슬랙 보낼함에 퇴근 알림을 같이 넣는다, paraMap 의 name 은 알림에 쓸 이름)
 		int commuteEnd(Map<String, String> paraMap);
 
 		// 특정사원의 일주일 출근기록을 가져오는 메소드
@@ -1,12 +1,23 @@
 package com.project.pm.commute.service;
 
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.project.pm.commute.model.CommuteDAO;
 import com.project.pm.commute.model.CommuteVO;
@@ -16,25 +27,94 @@ public class CommuteServiceImp implements CommuteService{
 	
 	@Autowired
 	private CommuteDAO dao;
+	
+	@Autowired
+	private SlackOutboxService slackOutbox;
+	
+	@Autowired
+	private CommuteRollupService rollup;
+	
+	// 오늘 출퇴근 기록 캐시 (사이드바가 페이지마다 checkCommute 를 부른다)
+	// 날짜별로 만들어서 날짜가 바뀌면 통째로 버린다. 아직 출근 전(기록 없음)도 Optional.empty() 로 캐시한다.
+	private static class TodayCache {
+		
+		private final long until; // 다음 자정 (millis)
+		private final Map<String, Optional<CommuteVO>> commuteMap = new ConcurrentHashMap<>();
+		
+		private TodayCache() {
+			Calendar calendar = Calendar.getInstance();
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			calendar.add(Calendar.DATE, 1);
+			this.until = calendar.getTimeInMillis();
+		}
+	}
+	
+	private volatile TodayCache todayCache = new TodayCache();
+	
+	// 출근/퇴근할 때마다 올린다. DB 에서 읽는 동안 이 값이 바뀌었으면 읽은 기록은 이미 옛날 것이므로 캐시하지 않는다.
+	private final AtomicLong cacheVersion = new AtomicLong();
 
 	// 출근 메소드
+		// 출근 기록, 오늘 근무시간 집계, 슬랙 알림(보낼함)을 같은 트랜잭션에 넣는다. 실제 전송은 SlackOutboxService 가 따로 한다.
 		@Override
-		public int commuteStart(String fk_empno) {
+		@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+		public int commuteStart(String fk_empno, String name) {
 			int n = dao.commuteStart(fk_empno);
+			
+			if(n > 0) {
+				rollup.refreshDay(fk_empno, null);
+				evictTodayCache(fk_empno);
+				slackOutbox.enqueue(name+"님이 " + getTime() + "에 출근 하셨습니다.");
+			}
 			return n;
 		}
 
 		// 출근했는지 확인하는 메소드
+		// 오늘 처음 물어볼 때만 DB 에서 읽고, 그 뒤로는 출근/퇴근하거나 날짜가 바뀔 때까지 캐시에서 준다.
 		@Override
 		public CommuteVO checkCommute(String fk_empno) {
+			
+			TodayCache cache = getTodayCache();
+			
+			Optional<CommuteVO> cached = cache.commuteMap.get(fk_empno);
+			
+			if(cached != null) {
+				return cached.orElse(null);
+			}
+			
+			long version = cacheVersion.get();
+			
 			CommuteVO commentvo = dao.checkCommute(fk_empno);
+			
+			if(version == cacheVersion.get()) {
+				cache.commuteMap.putIfAbsent(fk_empno, Optional.ofNullable(commentvo));
+			}
+			
 			return commentvo;
 		}
+		
+		// 오늘 출퇴근 기록 캐시 비우기 (자정)
+		@Override
+		@Scheduled(cron="0 0 0 * * *")
+		public void clearTodayCache() {
+			cacheVersion.incrementAndGet();
+			todayCache = new TodayCache();
+		}
 
 		// 퇴근 메소드
 		@Override
+		@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
 		public int commuteEnd(Map<String, String> paraMap) {
 			int n = dao.commuteEnd(paraMap);
+			
+			if(n > 0) {
+				rollup.refreshDay(paraMap.get("fk_empno"), null);
+				evictTodayCache(paraMap.get("fk_empno"));
+				slackOutbox.enqueue(paraMap.get("name")+"님이 " + getTime() + "에 퇴근 하셨습니다.");
+			}
 			return n;
 		}
 
@@ -140,4 +220,49 @@ public class CommuteServiceImp implements CommuteService{
 			return avgSalaryByDeptList;
 		}
 
+		// 오늘 캐시 (자정 스케줄러보다 먼저 날짜가 바뀌어도 어제 캐시는 쓰지 않는다)
+		private TodayCache getTodayCache() {
+			
+			TodayCache cache = todayCache;
+			
+			if(System.currentTimeMillis() >= cache.until) {
+				synchronized (this) {
+					cache = todayCache;
+					if(System.currentTimeMillis() >= cache.until) {
+						cache = new TodayCache();
+						todayCache = cache;
+					}
+				}
+			}
+			
+			return cache;
+		}
+		
+		// 사원 1명의 오늘 캐시 지우기
+		// 지금 지우고 commit 된 뒤에 한번 더 지운다. (commit 전에 다른 요청이 옛 기록을 읽어 다시 넣었을 수 있다)
+		private void evictTodayCache(String fk_empno) {
+			
+			cacheVersion.incrementAndGet();
+			todayCache.commuteMap.remove(fk_empno);
+			
+			if(TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int status) {
+						cacheVersion.incrementAndGet();
+						todayCache.commuteMap.remove(fk_empno);
+					}
+				});
+			}
+		}
+		
+		// 현재 시간을 가져오는 메소드
+		private String getTime() {
+			
+			Calendar calendar = Calendar.getInstance();
+			SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+			
+			return formatter.format(calendar.getTime());
+		}
+
 }
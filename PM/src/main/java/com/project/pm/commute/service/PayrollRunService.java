@@ -0,0 +1,16 @@
+package com.project.pm.commute.service;
+
+import java.util.Map;
+
+public interface PayrollRunService {
+
+	// 급여 일괄지급 시작 (그 달에 끝나지 않은 작업이 있으면 이어서 한다), run_no 와 resumed(1: 이어서 함) 리턴
+	Map<String, String> start(String month_payment, String startdate, String enddate, String fk_empno);
+
+	// 급여 일괄지급 진행상황 (run_no 가 없으면 month_payment 의 가장 최근 작업)
+	Map<String, String> getStatus(String run_no, String month_payment);
+
+	// 진행이 멈춘 작업 이어서 하기 (스케줄러)
+	int resumeStale();
+
+}
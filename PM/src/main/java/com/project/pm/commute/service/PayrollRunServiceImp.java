@@ -0,0 +1,244 @@
+package com.project.pm.commute.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.pm.commute.model.CommuteDAO;
+
+// 급여 일괄지급(payroll run)
+// "모든구성원 지급" 은 작업(tbl_payroll_run)만 만들고 바로 돌아가고, 실제 지급은 전용 스레드에서 한다.
+// - 사원번호순으로 CHUNK_SIZE 명씩 cursor 로 읽어서 BATCH_SIZE 건씩 JDBC batch 로 tbl_salary_payment 에 insert 한다.
+// - chunk 마다 insert 와 진행 위치(last_empno, done_cnt)를 한 트랜잭션으로 commit 한다.
+//   실패하면 작업은 failed 로 남고, 같은 달을 다시 지급하면 마지막 commit 된 위치 다음 사원부터 이어서 한다.
+// - 서버가 죽어서 running 으로 남은 작업은 STALE_MIN 분 뒤에 스케줄러가 이어서 한다.
+// - 다 끝나면 퇴직금 대상 스냅샷을 다시 계산한다.
+@Service
+public class PayrollRunServiceImp implements PayrollRunService {
+
+	// 트랜잭션 1개에서 지급할 사원 수
+	private static final int CHUNK_SIZE = 500;
+
+	// JDBC batch 1번에 insert 할 건수
+	private static final int BATCH_SIZE = 100;
+
+	// 이 시간 동안 진행이 없는 running 작업은 멈춘 것으로 본다
+	private static final int STALE_MIN = 5;
+
+	@Autowired
+	private CommuteDAO dao;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private SeveranceSnapshotService severanceSnapshot;
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "payroll-run");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// 이 서버에서 실행중(대기중)인 작업번호
+	private final Set<String> activeRuns = ConcurrentHashMap.newKeySet();
+
+
+	// 급여 일괄지급 시작
+	@Override
+	public Map<String, String> start(String month_payment, String startdate, String enddate, String fk_empno) {
+
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("month_payment", month_payment);
+		paraMap.put("startdate", startdate);
+		paraMap.put("enddate", enddate);
+		paraMap.put("fk_empno", fk_empno);
+
+		dao.startPayrollRun(paraMap);
+
+		String run_no = paraMap.get("run_no");
+
+		// 이어서 하는 작업은 처음에 정한 기간으로 지급한다
+		Map<String, String> run = dao.getPayrollRun(run_no);
+		dao.setPayrollRunTotal(toChunkMap(run));
+
+		submit(run_no);
+
+		Map<String, String> resultMap = new HashMap<>();
+		resultMap.put("run_no", run_no);
+		resultMap.put("resumed", paraMap.get("resumed"));
+
+		return resultMap;
+	}
+
+
+	// 급여 일괄지급 진행상황
+	@Override
+	public Map<String, String> getStatus(String run_no, String month_payment) {
+
+		Map<String, String> run = (run_no != null) ? dao.getPayrollRun(run_no) : dao.getLastPayrollRun(month_payment);
+
+		if(run == null) {
+			return null;
+		}
+
+		long total = Long.parseLong(run.get("total_cnt"));
+		long done = Long.parseLong(run.get("done_cnt"));
+
+		run.put("percent", String.valueOf(total > 0 ? Math.min(100, done * 100 / total) : ("done".equals(run.get("status")) ? 100 : 0)));
+
+		return run;
+	}
+
+
+	// 진행이 멈춘 작업 이어서 하기
+	@Override
+	@Scheduled(fixedDelay=60000)
+	public int resumeStale() {
+
+		int cnt = 0;
+
+		for(String run_no : dao.getStalePayrollRuns(String.valueOf(STALE_MIN))) {
+			if(submit(run_no)) {
+				cnt++;
+			}
+		}
+
+		return cnt;
+	}
+
+
+	@PreDestroy
+	public void destroy() throws InterruptedException {
+		// 진행중인 chunk 는 rollback 되고, 다음 기동 후 resumeStale 이 이어서 한다
+		executor.shutdownNow();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+
+	// 작업을 전용 스레드에 넣기 (이미 이 서버에서 실행중이면 넣지 않는다)
+	private boolean submit(String run_no) {
+
+		if(!activeRuns.add(run_no)) {
+			return false;
+		}
+
+		executor.execute(() -> {
+			try {
+				run(run_no);
+			} finally {
+				activeRuns.remove(run_no);
+			}
+		});
+
+		return true;
+	}
+
+	// 작업 1건을 끝까지 (chunk 마다 commit)
+	private void run(String run_no) {
+
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		tx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+		try {
+			while(!Thread.currentThread().isInterrupted()) {
+
+				Map<String, String> run = dao.getPayrollRun(run_no);
+
+				if(run == null || !"running".equals(run.get("status"))) {
+					return;
+				}
+
+				Integer cnt = tx.execute(status -> processChunk(run));
+
+				if(cnt == null || cnt == 0) {
+					dao.finishPayrollRun(run_no);
+					severanceSnapshot.refresh(); // 최근 급여 평균(예상퇴직금)이 바뀌었다
+					return;
+				}
+			}
+
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+
+			Map<String, String> paraMap = new HashMap<>();
+			paraMap.put("run_no", run_no);
+			paraMap.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+
+			dao.failPayrollRun(paraMap);
+		}
+	}
+
+	// chunk 1개 지급하고 진행 위치 저장 (같은 트랜잭션), 지급한 사원 수 리턴
+	private int processChunk(Map<String, String> run) {
+
+		Map<String, String> chunkMap = toChunkMap(run);
+		chunkMap.put("chunk", String.valueOf(CHUNK_SIZE));
+
+		List<Map<String, String>> batch = new ArrayList<>(BATCH_SIZE);
+		String last_empno = null;
+		int cnt = 0;
+
+		try (Cursor<Map<String, String>> cursor = dao.getPayrollChunk(chunkMap)) {
+
+			for(Map<String, String> payment : cursor) {
+
+				payment.put("month_payment", run.get("month_payment"));
+				batch.add(payment);
+				last_empno = payment.get("empno");
+				cnt++;
+
+				if(batch.size() == BATCH_SIZE) {
+					dao.insertSalaryPaymentBatch(batch);
+					batch.clear();
+				}
+			}
+
+		} catch (IOException e) {
+			throw new IllegalStateException("급여 지급 대상 읽기 실패", e);
+		}
+
+		dao.insertSalaryPaymentBatch(batch);
+
+		if(cnt > 0) {
+			Map<String, String> paraMap = new HashMap<>();
+			paraMap.put("run_no", run.get("run_no"));
+			paraMap.put("last_empno", last_empno);
+			paraMap.put("cnt", String.valueOf(cnt));
+
+			dao.updatePayrollRunProgress(paraMap);
+		}
+
+		return cnt;
+	}
+
+	// 작업의 기간, 지급월, 진행 위치
+	private Map<String, String> toChunkMap(Map<String, String> run) {
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("run_no", run.get("run_no"));
+		paraMap.put("month_payment", run.get("month_payment"));
+		paraMap.put("startdate", run.get("startdate"));
+		paraMap.put("enddate", run.get("enddate"));
+		paraMap.put("last_empno", run.get("last_empno"));
+		return paraMap;
+	}
+
+}
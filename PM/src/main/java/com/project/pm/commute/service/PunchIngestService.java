@@ -0,0 +1,15 @@
+package com.project.pm.commute.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Map;
+
+public interface PunchIngestService {
+
+	// 출입카드 기록(CSV 또는 NDJSON)을 한줄씩 읽어 중복을 빼고 사원, 날짜별 근무로 짝짓기 (DB 는 읽지 않는다)
+	Map<String, Object> parse(BufferedReader reader, boolean ndjson) throws IOException;
+
+	// parse 결과를 tbl_commute 에 반영하고, 줄별 오류 보고를 포함한 결과를 리턴
+	Map<String, Object> apply(Map<String, Object> batch);
+
+}
@@ -0,0 +1,426 @@
+package com.project.pm.commute.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.project.pm.commute.model.CommuteDAO;
+import com.project.pm.commute.model.PunchShiftVO;
+
+// 출입카드 기록(punch) 한꺼번에 넣기
+// 1) parse : 요청 본문을 한줄씩 읽으면서 (사원번호, 시각, 구분) 으로 바꾸고 똑같은 줄은 뺀다. 잘못된 줄은 줄 번호와 함께 보고한다.
+//            사원별로 시각순 정렬해서 출근~퇴근을 짝짓는다. 퇴근은 출근 뒤 MAX_SHIFT_HOURS 시간 안이면 자정을 넘겨도 같은 근무이고,
+//            하루에 근무가 여러번이면 tbl_commute 는 하루 1행이므로 가장 이른 출근 ~ 가장 늦은 퇴근으로 합친다.
+//            구분(IN/OUT)이 없는 기록은 열린 근무가 없으면 출근, 있으면 퇴근으로 본다. (09:00, 12:00, 13:00, 18:00 => 09:00 ~ 18:00)
+// 2) apply : 없는 사원번호를 빼고 JDBC batch merge 로 tbl_commute 에 넣는다. 이미 그날 기록이 있으면 출근은 더 이른 것, 퇴근은 더 늦은 것으로 바꾼다.
+//            그 다음 넣은 (사원, 날짜)의 근무시간 집계만 다시 계산하고, 커밋 후에 오늘 출근기록 캐시를 비운다.
+//            (기간 전체를 다시 만드는 rebuildCommuteRollup 은 집계 테이블을 통째로 잠가서 그동안 모든 출근/퇴근이 기다리므로 쓰지 않는다)
+// 본문을 받는 동안에는 DB 연결을 잡지 않도록 parse 와 apply(트랜잭션)를 나눴다.
+@Service
+public class PunchIngestServiceImp implements PunchIngestService {
+
+	// 한 요청의 최대 줄 수 (-Dpm.punch.maxLines= 로 바꿀 수 있다)
+	private static final int MAX_LINES = Integer.getInteger("pm.punch.maxLines", 200000);
+
+	// 보고할 최대 오류/경고 수 (건수는 모두 센다)
+	private static final int MAX_REPORT = 1000;
+
+	// 출근 뒤 이 시간 안의 퇴근까지 같은 근무로 본다
+	private static final int MAX_SHIFT_HOURS = 16;
+
+	// 지금보다 이 시간(분) 넘게 뒤의 기록은 받지 않는다 (출입카드 단말기 시계 차이 허용)
+	private static final int FUTURE_TOLERANCE_MIN = 10;
+
+	// 사원번호 in (...) 1번에 넣을 최대 개수
+	private static final int EMPNO_CHUNK = 1000;
+
+	// refreshCommuteDays 1번에 넘길 (사원, 날짜) 개수
+	private static final int REFRESH_CHUNK = 100;
+
+	private static final String IN = "IN";
+	private static final String OUT = "OUT";
+
+	private static final DateTimeFormatter DB_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private static final Pattern EMPNO = Pattern.compile("\\d{1,10}");
+
+	@Autowired
+	private CommuteDAO dao;
+
+	@Autowired
+	private CommuteService commuteService;
+
+
+	// 출입카드 기록 1건
+	private static class Punch implements Comparable<Punch> {
+
+		final LocalDateTime time;
+		final String type;   // IN, OUT, 없으면 null
+		final int line;
+
+		Punch(LocalDateTime time, String type, int line) {
+			this.time = time;
+			this.type = type;
+			this.line = line;
+		}
+
+		@Override
+		public int compareTo(Punch other) {
+			return time.compareTo(other.time);
+		}
+	}
+
+
+	// 한줄씩 읽어 근무로 짝짓기
+	@Override
+	public Map<String, Object> parse(BufferedReader reader, boolean ndjson) throws IOException {
+
+		List<Map<String, String>> reportList = new ArrayList<>();
+		int[] counts = new int[2]; // 오류, 경고
+
+		Map<String, List<Punch>> punchMap = new HashMap<>();
+		Set<String> seen = new HashSet<>();
+
+		LocalDateTime limit = LocalDateTime.now().plusMinutes(FUTURE_TOLERANCE_MIN);
+
+		int lines = 0;
+		int accepted = 0;
+		int duplicates = 0;
+		boolean tooMany = false;
+
+		String text;
+
+		while((text = reader.readLine()) != null) {
+
+			lines++;
+
+			if(lines > MAX_LINES) {
+				report(reportList, counts, lines, "error", "한번에 " + MAX_LINES + "줄까지만 받습니다. 이 줄부터는 넣지 않았습니다.");
+				tooMany = true;
+				break;
+			}
+
+			text = text.trim();
+
+			if(text.isEmpty()) {
+				continue;
+			}
+
+			String empno;
+			String time;
+			String type;
+
+			if(ndjson) {
+				try {
+					JSONObject json = new JSONObject(text);
+					empno = json.optString("empno", "").trim();
+					time = json.optString("time", "").trim();
+					type = json.optString("type", "").trim();
+				} catch (JSONException e) {
+					report(reportList, counts, lines, "error", "JSON 형식이 아닙니다.");
+					continue;
+				}
+			}
+			else {
+				String[] arr = text.split(",", -1);
+
+				// 첫 줄 머리글 (empno,time,type)
+				if(lines == 1 && !EMPNO.matcher(arr[0].trim()).matches()) {
+					continue;
+				}
+
+				if(arr.length < 2 || arr.length > 3) {
+					report(reportList, counts, lines, "error", "empno,time[,type] 형식이 아닙니다.");
+					continue;
+				}
+
+				empno = arr[0].trim();
+				time = arr[1].trim();
+				type = arr.length == 3 ? arr[2].trim() : "";
+			}
+
+			if(!EMPNO.matcher(empno).matches()) {
+				report(reportList, counts, lines, "error", "사원번호가 올바르지 않습니다.");
+				continue;
+			}
+
+			LocalDateTime punchTime;
+
+			try {
+				punchTime = toTime(time);
+			} catch (DateTimeException e) {
+				report(reportList, counts, lines, "error", "시각은 yyyy-MM-dd HH:mm:ss 형식이어야 합니다.");
+				continue;
+			}
+
+			if(punchTime.isAfter(limit)) {
+				report(reportList, counts, lines, "error", "미래 시각입니다.");
+				continue;
+			}
+
+			type = type.toUpperCase();
+
+			if("".equals(type)) {
+				type = null;
+			}
+			else if(!IN.equals(type) && !OUT.equals(type)) {
+				report(reportList, counts, lines, "error", "구분은 IN, OUT 또는 빈칸이어야 합니다.");
+				continue;
+			}
+
+			// 단말기가 같은 기록을 다시 보낸 것 (시각 형식이 달라도 같은 시각이면 같은 기록)
+			if(!seen.add(empno + "|" + punchTime.toEpochSecond(ZoneOffset.UTC) + "|" + type)) {
+				duplicates++;
+				continue;
+			}
+
+			punchMap.computeIfAbsent(empno, k -> new ArrayList<>()).add(new Punch(punchTime, type, lines));
+			accepted++;
+		}
+
+		List<PunchShiftVO> shiftList = new ArrayList<>();
+
+		for(Map.Entry<String, List<Punch>> entry : punchMap.entrySet()) {
+			pair(entry.getKey(), entry.getValue(), shiftList, reportList, counts);
+		}
+
+		Map<String, Object> batch = new HashMap<>();
+		batch.put("shiftList", shiftList);
+		batch.put("reportList", reportList);
+		batch.put("lines", tooMany ? MAX_LINES : lines);
+		batch.put("accepted", accepted);
+		batch.put("duplicates", duplicates);
+		batch.put("errors", counts[0]);
+		batch.put("warnings", counts[1]);
+
+		return batch;
+	}
+
+
+	// tbl_commute 에 반영하기
+	@Override
+	@SuppressWarnings("unchecked")
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+	public Map<String, Object> apply(Map<String, Object> batch) {
+
+		List<PunchShiftVO> shiftList = (List<PunchShiftVO>) batch.get("shiftList");
+		List<Map<String, String>> reportList = (List<Map<String, String>>) batch.get("reportList");
+		int[] counts = { (Integer) batch.get("errors"), (Integer) batch.get("warnings") };
+
+		// 없는 사원번호 빼기
+		Set<String> empnoSet = new LinkedHashSet<>();
+		for(PunchShiftVO shift : shiftList) {
+			empnoSet.add(shift.getFk_empno());
+		}
+		List<String> empnoList = new ArrayList<>(empnoSet);
+
+		Set<String> existSet = new HashSet<>();
+		for(int i=0; i<empnoList.size(); i+=EMPNO_CHUNK) {
+			existSet.addAll(dao.getExistingEmpnos(empnoList.subList(i, Math.min(empnoList.size(), i + EMPNO_CHUNK))));
+		}
+
+		List<PunchShiftVO> upsertList = new ArrayList<>();
+
+		for(PunchShiftVO shift : shiftList) {
+
+			if(!existSet.contains(shift.getFk_empno())) {
+				for(int line : shift.getLineList()) {
+					report(reportList, counts, line, "error", "없는 사원번호입니다.");
+				}
+				continue;
+			}
+
+			upsertList.add(shift);
+		}
+
+		int upserted = dao.upsertCommuteBatch(upsertList);
+
+		if(upserted > 0) {
+			// 넣은 (사원, 날짜)만 REFRESH_CHUNK 개씩 다시 계산한다 (사원 행 잠금 순서가 요청끼리 같도록 사원번호, 날짜 순으로)
+			// 근무는 사원, 날짜별로 1건이므로 (사원, 날짜)는 겹치지 않는다
+			upsertList.sort((a, b) -> {
+				int cmp = Long.compare(Long.parseLong(a.getFk_empno()), Long.parseLong(b.getFk_empno()));
+				return cmp != 0 ? cmp : a.getWork_day().compareTo(b.getWork_day());
+			});
+
+			List<Map<String, String>> dayList = new ArrayList<>();
+
+			for(PunchShiftVO shift : upsertList) {
+				Map<String, String> day = new HashMap<>();
+				day.put("fk_empno", shift.getFk_empno());
+				day.put("work_day", shift.getWork_day());
+				dayList.add(day);
+			}
+
+			for(int i=0; i<dayList.size(); i+=REFRESH_CHUNK) {
+				dao.refreshCommuteDays(dayList.subList(i, Math.min(dayList.size(), i + REFRESH_CHUNK)));
+			}
+
+			if(TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int status) {
+						commuteService.clearTodayCache();
+					}
+				});
+			}
+			else {
+				commuteService.clearTodayCache();
+			}
+		}
+
+		reportList.sort((a, b) -> Integer.compare(Integer.parseInt(a.get("line")), Integer.parseInt(b.get("line"))));
+
+		Map<String, Object> resultMap = new HashMap<>();
+		resultMap.put("lines", batch.get("lines"));
+		resultMap.put("accepted", batch.get("accepted"));
+		resultMap.put("duplicates", batch.get("duplicates"));
+		resultMap.put("shifts", shiftList.size());
+		resultMap.put("upserted", upserted);
+		resultMap.put("errors", counts[0]);
+		resultMap.put("warnings", counts[1]);
+		resultMap.put("reportList", reportList);
+		resultMap.put("truncated", counts[0] + counts[1] > reportList.size());
+
+		return resultMap;
+	}
+
+
+	// 사원 1명의 기록을 시각순으로 출근~퇴근 짝짓기 (하루에 여러번이면 합친다)
+	private void pair(String empno, List<Punch> punchList, List<PunchShiftVO> shiftList,
+	                  List<Map<String, String>> reportList, int[] counts) {
+
+		punchList.sort(null);
+
+		Map<LocalDate, PunchShiftVO> dayMap = new TreeMap<>();
+		Map<LocalDate, LocalDateTime> startMap = new HashMap<>();
+
+		LocalDateTime openStart = null;
+		PunchShiftVO open = null;
+
+		for(Punch punch : punchList) {
+
+			boolean inShift = open != null && !punch.time.isAfter(openStart.plusHours(MAX_SHIFT_HOURS));
+
+			// 열린 근무가 없는데 같은 날 이미 끝난 근무가 있으면 그 근무에 이어 붙인다 (점심 외출 등)
+			if(!inShift && !IN.equals(punch.type)) {
+				PunchShiftVO sameDay = dayMap.get(punch.time.toLocalDate());
+				if(sameDay != null) {
+					open = sameDay;
+					openStart = startMap.get(punch.time.toLocalDate());
+					inShift = true;
+				}
+			}
+
+			if(IN.equals(punch.type) || (punch.type == null && !inShift)) {
+
+				if(!inShift || !punch.time.toLocalDate().equals(openStart.toLocalDate())) {
+					// 새 근무 (그날 근무가 이미 있으면 그 근무에 합친다)
+					LocalDate day = punch.time.toLocalDate();
+					open = dayMap.get(day);
+
+					if(open == null) {
+						open = new PunchShiftVO();
+						open.setFk_empno(empno);
+						open.setWork_day(day.toString());
+						open.setStart_work_time(punch.time.format(DB_FORMAT));
+						dayMap.put(day, open);
+						startMap.put(day, punch.time);
+					}
+
+					openStart = startMap.get(day);
+				}
+
+				open.getLineList().add(punch.line);
+				continue;
+			}
+
+			// 퇴근
+			if(!inShift) {
+				report(reportList, counts, punch.line, "warning", "출근 기록이 없는 퇴근이라 넣지 않았습니다.");
+				continue;
+			}
+
+			if(punch.time.isAfter(openStart)) {
+				String end = punch.time.format(DB_FORMAT);
+				if(open.getEnd_work_time() == null || end.compareTo(open.getEnd_work_time()) > 0) {
+					open.setEnd_work_time(end);
+				}
+			}
+
+			open.getLineList().add(punch.line);
+		}
+
+		shiftList.addAll(dayMap.values());
+	}
+
+	// 2022-11-20 09:00:00, 2022-11-20T09:00:00, 2022-11-20 09:00 => 시각
+	// (줄마다 부르므로 DateTimeFormatter 대신 자리별로 읽는다. 있을 수 없는 날짜는 LocalDateTime.of 가 DateTimeException)
+	private LocalDateTime toTime(String time) {
+
+		int len = time.length();
+
+		if((len != 16 && len != 19) || time.charAt(4) != '-' || time.charAt(7) != '-'
+		   || (time.charAt(10) != ' ' && time.charAt(10) != 'T') || time.charAt(13) != ':' || (len == 19 && time.charAt(16) != ':')) {
+			throw new DateTimeException(time);
+		}
+
+		return LocalDateTime.of(digits(time, 0, 4), digits(time, 5, 7), digits(time, 8, 10),
+		                        digits(time, 11, 13), digits(time, 14, 16), len == 19 ? digits(time, 17, 19) : 0);
+	}
+
+	private int digits(String str, int begin, int end) {
+
+		int value = 0;
+
+		for(int i=begin; i<end; i++) {
+			char c = str.charAt(i);
+			if(c < '0' || c > '9') {
+				throw new DateTimeException(str);
+			}
+			value = value * 10 + (c - '0');
+		}
+
+		return value;
+	}
+
+	// 줄별 오류/경고 보고 (MAX_REPORT 건까지만 적고 건수는 모두 센다)
+	private void report(List<Map<String, String>> reportList, int[] counts, int line, String level, String message) {
+
+		counts["error".equals(level) ? 0 : 1]++;
+
+		if(reportList.size() >= MAX_REPORT) {
+			return;
+		}
+
+		Map<String, String> map = new HashMap<>();
+		map.put("line", String.valueOf(line));
+		map.put("level", level);
+		map.put("message", message);
+		reportList.add(map);
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.project.pm.commute.service;
+
+import java.util.Map;
+
+public interface SeveranceSnapshotService {
+
+	// 퇴직금 대상 스냅샷 다시 계산하기 (스케줄러, 급여 일괄지급 후), 대상 수 리턴
+	int refresh();
+
+	// 스냅샷 마지막 계산 시각 (computed_at, row_cnt), 오늘 계산한 스냅샷이 없으면 먼저 계산한다
+	Map<String, String> getInfo();
+
+}
@@ -0,0 +1,57 @@
+package com.project.pm.commute.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.pm.commute.model.CommuteDAO;
+
+// 퇴직금 대상 스냅샷 (tbl_severance_snapshot)
+// 근속개월, 근속일수, 예상퇴직금은 날짜가 바뀔 때만 달라지므로 매일 자정이 지나면 한번 계산해 두고
+// 관리자 퇴직금 화면(/admin/getSeverancePayList.pm)은 스냅샷을 검색/페이징만 한다.
+// 스케줄러가 돌지 못한 날(서버가 꺼져 있었다 등)은 그날 처음 화면을 열 때 계산한다.
+@Service
+public class SeveranceSnapshotServiceImp implements SeveranceSnapshotService {
+
+	private static final String SNAPSHOT_NAME = "severance";
+
+	@Autowired
+	private CommuteDAO dao;
+
+
+	// 퇴직금 대상 스냅샷 다시 계산하기 (삭제와 insert 가 한 문장이라 읽는 쪽은 계산이 끝날 때까지 이전 스냅샷을 본다)
+	@Override
+	@Scheduled(cron="0 5 0 * * *")
+	public synchronized int refresh() {
+
+		Map<String, String> paraMap = new HashMap<>();
+
+		dao.refreshSeveranceSnapshot(paraMap);
+
+		return Integer.parseInt(paraMap.get("row_cnt"));
+	}
+
+
+	// 스냅샷 마지막 계산 시각
+	@Override
+	public Map<String, String> getInfo() {
+
+		Map<String, String> info = dao.getSnapshotInfo(SNAPSHOT_NAME);
+
+		if(info == null || !"1".equals(info.get("is_today"))) {
+			synchronized (this) {
+				info = dao.getSnapshotInfo(SNAPSHOT_NAME);
+				if(info == null || !"1".equals(info.get("is_today"))) {
+					refresh();
+					info = dao.getSnapshotInfo(SNAPSHOT_NAME);
+				}
+			}
+		}
+
+		return info;
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.project.pm.commute.service;
+
+public interface SlackOutboxService {
+
+	// 보낼 메시지를 보낼함에 넣기 (부르는 쪽 트랜잭션에서 insert 만 하고 네트워크는 쓰지 않는다)
+	void enqueue(String message);
+
+	// 보낼함에서 메시지를 꺼내 보내기 (스케줄러), 보내기 시작한 메시지 수 리턴
+	int drain();
+
+	// 보낸지 오래된 메시지 지우기 (스케줄러)
+	int purge();
+
+}
@@ -0,0 +1,246 @@
+package com.project.pm.commute.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.pm.common.CircuitBreaker;
+import com.project.pm.common.SlackClient;
+import com.project.pm.commute.model.CommuteDAO;
+
+// 슬랙 알림 보내기 (outbox)
+// 출근/퇴근 요청은 tbl_slack_outbox 에 insert 만 하고 바로 끝난다. 실제 전송은 여기서 따로 한다.
+// - 1초마다 보낼 메시지를 잡아서(claim) 채널별로 최대 MAX_BATCH 줄씩 묶어 한번에 보낸다. (chat.postMessage 1번 = 메시지 여러줄)
+// - 동시에 보내는 묶음은 MAX_CONCURRENCY 개까지 (전용 스레드에서 보내므로 스케줄러 스레드는 기다리지 않는다)
+// - 실패하면 BASE_BACKOFF_SEC * 2^시도횟수 초(최대 MAX_BACKOFF_SEC) 뒤에 다시 보내고, MAX_TRY 번 실패하면 포기한다.
+// - 연속 FAILURE_THRESHOLD 번 실패하면 OPEN_SEC 동안 보내지 않는다(circuit breaker). 429 면 Retry-After 동안 쉰다.
+@Service
+public class SlackOutboxServiceImp implements SlackOutboxService {
+
+	// 보낼 채널, 토큰, 주소 (-Dpm.slack.channel=, -Dpm.slack.token=, -Dpm.slack.url= 로 바꿀 수 있다)
+	private static final String CHANNEL = System.getProperty("pm.slack.channel", "C04EF7EHM6F");
+	private static final String TOKEN = System.getProperty("pm.slack.token", "");
+	private static final String URL = System.getProperty("pm.slack.url", "https://slack.com/api/chat.postMessage");
+
+	private static final int CONNECT_TIMEOUT = 3000;
+	private static final int READ_TIMEOUT = 5000;
+
+	// 한번에 묶어 보낼 최대 줄 수, 글자 수
+	private static final int MAX_BATCH = 20;
+	private static final int MAX_BATCH_CHARS = 3000;
+
+	// 동시에 보낼 최대 묶음 수
+	private static final int MAX_CONCURRENCY = 2;
+
+	// 다시 보내기
+	private static final int MAX_TRY = 8;
+	private static final int BASE_BACKOFF_SEC = 5;
+	private static final int MAX_BACKOFF_SEC = 600;
+
+	// 잡아둔 메시지를 보내다가 서버가 죽었을 때 다시 보낼 때까지의 시간
+	private static final int LEASE_SEC = 300;
+
+	// circuit breaker
+	private static final int FAILURE_THRESHOLD = 5;
+	private static final int OPEN_SEC = 60;
+
+	@Autowired
+	private CommuteDAO dao;
+
+	private final SlackClient client = new SlackClient(URL, TOKEN, CONNECT_TIMEOUT, READ_TIMEOUT);
+
+	private final CircuitBreaker breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_SEC * 1000L);
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENCY, r -> {
+		Thread t = new Thread(r, "slack-outbox");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// 보내는중인 묶음 수 제한 (drain 만 잡고, 보내는 스레드가 놓는다)
+	private final Semaphore permits = new Semaphore(MAX_CONCURRENCY);
+
+
+	// 보낼 메시지를 보낼함에 넣기
+	@Override
+	public void enqueue(String message) {
+
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("channel", CHANNEL);
+		paraMap.put("message", message);
+
+		dao.insertSlackOutbox(paraMap);
+	}
+
+
+	// 보낼함에서 메시지를 꺼내 보내기
+	// 빈 자리(permit) 수 * MAX_BATCH 줄까지만 잡으므로 잡아둔 메시지는 거의 모두 바로 보내기 시작한다.
+	// half-open 이면 시험으로 1줄만 보낸다.
+	@Override
+	@Scheduled(fixedDelay=1000)
+	public int drain() {
+
+		int free = permits.availablePermits();
+
+		if(free == 0 || !breaker.allow()) {
+			return 0;
+		}
+
+		boolean trial = CircuitBreaker.HALF_OPEN.equals(breaker.getState());
+
+		List<List<Map<String, String>>> batchList;
+
+		try {
+			Map<String, String> paraMap = new HashMap<>();
+			paraMap.put("leaseSec", String.valueOf(LEASE_SEC));
+			paraMap.put("limit", String.valueOf(trial ? 1 : free * MAX_BATCH));
+
+			dao.claimSlackOutbox(paraMap);
+
+			String claimList = paraMap.get("claimList");
+
+			if(claimList == null || "".equals(claimList)) {
+				if(trial) {
+					breaker.cancelTrial(); // 보낼 것이 없으면 시험 호출도 없던 것으로
+				}
+				return 0;
+			}
+
+			batchList = toBatchList(dao.getSlackOutbox(Arrays.asList(claimList.split(","))));
+
+		} catch (RuntimeException e) {
+			if(trial) {
+				breaker.failure();
+			}
+			e.printStackTrace();
+			return 0;
+		}
+
+		int cnt = 0;
+
+		for(List<Map<String, String>> batch : batchList) {
+
+			// 긴 메시지가 많아 묶음이 빈 자리보다 많아지면 남은 묶음은 잡아둔 시간(LEASE_SEC)이 지난 뒤에 보낸다
+			if(!permits.tryAcquire()) {
+				break;
+			}
+
+			cnt += batch.size();
+
+			executor.execute(() -> {
+				try {
+					send(batch);
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				} finally {
+					permits.release();
+				}
+			});
+		}
+
+		return cnt;
+	}
+
+
+	// 보낸지 7일 지난 메시지 지우기
+	@Override
+	@Scheduled(cron="0 20 4 * * *")
+	public int purge() {
+		return dao.purgeSlackOutbox("7");
+	}
+
+
+	@PreDestroy
+	public void destroy() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(READ_TIMEOUT + CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+
+	// 묶음 1개 보내고 결과 적기
+	private void send(List<Map<String, String>> batch) {
+
+		List<String> outboxNoList = new ArrayList<>();
+		StringBuilder text = new StringBuilder();
+
+		for(Map<String, String> outbox : batch) {
+			outboxNoList.add(outbox.get("outbox_no"));
+			if(text.length() > 0) {
+				text.append('\n');
+			}
+			text.append(outbox.get("message"));
+		}
+
+		SlackClient.Result result = client.post(batch.get(0).get("channel"), text.toString());
+
+		if(result.isOk()) {
+			breaker.success();
+			dao.markSlackSent(outboxNoList);
+			return;
+		}
+
+		Map<String, Object> paraMap = new HashMap<>();
+		paraMap.put("outboxNoList", outboxNoList);
+		paraMap.put("error", result.getError());
+
+		if(!result.isRetry()) {
+			breaker.success(); // Slack 은 응답했다 (토큰, 채널 등 설정 오류)
+			dao.failSlackOutbox(paraMap);
+			return;
+		}
+
+		if(result.getRetryAfterSec() > 0) {
+			breaker.openFor(result.getRetryAfterSec() * 1000L);
+		}
+		else {
+			breaker.failure();
+		}
+
+		paraMap.put("maxTry", String.valueOf(MAX_TRY));
+		paraMap.put("minSec", String.valueOf(result.getRetryAfterSec()));
+		paraMap.put("baseSec", String.valueOf(BASE_BACKOFF_SEC));
+		paraMap.put("maxSec", String.valueOf(MAX_BACKOFF_SEC));
+		paraMap.put("jitter", String.valueOf(1 + ThreadLocalRandom.current().nextInt(21) / 100.0)); // 1.00 ~ 1.20 배
+
+		dao.retrySlackOutbox(paraMap);
+	}
+
+	// 채널별로(잡아온 순서 = 채널, 번호순) MAX_BATCH 줄, MAX_BATCH_CHARS 글자까지 묶기
+	private List<List<Map<String, String>>> toBatchList(List<Map<String, String>> outboxList) {
+
+		List<List<Map<String, String>>> batchList = new ArrayList<>();
+		List<Map<String, String>> batch = null;
+		int chars = 0;
+
+		for(Map<String, String> outbox : outboxList) {
+
+			int len = outbox.get("message").length() + 1;
+
+			if(batch == null || batch.size() >= MAX_BATCH || chars + len > MAX_BATCH_CHARS
+			   || !batch.get(0).get("channel").equals(outbox.get("channel"))) {
+				batch = new ArrayList<>();
+				batchList.add(batch);
+				chars = 0;
+			}
+
+			batch.add(outbox);
+			chars += len;
+		}
+
+		return batchList;
+	}
+
+}
@@ -49,7 +49,9 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 // 프로젝트 내부 의존성
 import com.project.pm.common.FileManager;
 import com.project.pm.employee.model.EmpDAO;
+import com.project.pm.employee.model.EmpVO;
 import com.project.pm.employee.service.EmpService;
+import com.project.pm.employee.service.InsightSnapshotService;
 
 /**
  * 직원(Employee) 관리 기능을 담당하는 메인 컨트롤러
@@ -151,6 +153,14 @@ public class EmpController {
 	 */
 	@Autowired
 	private FileManager fileManager;
+	
+	/**
+	 * 인사이트 대시보드 스냅샷 서비스
+	 * 
+	 * 대시보드 차트 집계를 주기적으로 계산해서 메모리에 들고 있습니다.
+	 */
+	@Autowired
+	private InsightSnapshotService insightSnapshot;
 
 	/**
 	 * 구성원 관리 메인 페이지 표시
@@ -188,6 +198,61 @@ public class EmpController {
 		return "emp/insight.admin";
 	}
 	
+	/**
+	 * 인사이트 대시보드 차트 데이터 (한번에)
+	 * 
+	 * 성비, 부서별 인원수, 부서별 최근 한달 평균 근무시간, 부서별 평균연봉을 JSON 1개로 반환합니다.
+	 * 메모리에 계산해 둔 스냅샷을 그대로 내려주므로 DB 를 읽지 않습니다.
+	 * 브라우저가 보낸 If-None-Match 가 현재 ETag 와 같으면 본문 없이 304 를 반환합니다.
+	 * 
+	 * @return {"genderRate":[...], "empCntDept":[...], "sumWorktimeByDept":[...], "avgSalaryByDept":[...], "updated_at":"..."}
+	 */
+	@ResponseBody
+	@RequestMapping(value = "/insight/dashboard.pm", produces = "text/plain;charset=UTF-8", method = {RequestMethod.GET})
+	public String insightDashboard(HttpServletRequest request, HttpServletResponse response) {
+		
+		Map<String, String> snapshotMap = insightSnapshot.getSnapshot();
+		String etag = snapshotMap.get("etag");
+		
+		// 매번 다시 확인하게 하고(no-cache), 같으면 304
+		response.setHeader("ETag", etag);
+		response.setHeader("Cache-Control", "private, no-cache");
+		
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		
+		if(ifNoneMatch != null && ifNoneMatch.replace("W/", "").contains(etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return null;
+		}
+		
+		return snapshotMap.get("json");
+	}
+	
+	/**
+	 * 인사이트 대시보드 집계 바로 다시 계산하기 (관리자)
+	 * 
+	 * @return {"n":1} 또는 관리자가 아니면 {"n":0}
+	 */
+	@ResponseBody
+	@RequestMapping(value = "/insight/refresh.pm", produces = "text/plain;charset=UTF-8", method = {RequestMethod.POST})
+	public String insightRefresh(HttpServletRequest request) {
+		
+		HttpSession session = request.getSession();
+		EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+		
+		JSONObject jsonObj = new JSONObject();
+		
+		if(loginuser == null || !"9999".equals(loginuser.getEmpno())) { // 관리자가 아닌데 접근했을 경우
+			jsonObj.put("n", 0);
+			return jsonObj.toString();
+		}
+		
+		insightSnapshot.refresh();
+		
+		jsonObj.put("n", 1);
+		return jsonObj.toString();
+	}
+	
 	/**
 	 * AJAX를 통한 직원 목록 조회 (기본 검색)
 	 * 
@@ -122,9 +122,6 @@ public interface EmpDAO {
 	/** 남아있는 결재 문서 검색 */
 	int checkApproval(Map<String, Object> paraMap);
 
-	/** 사원 상태 퇴직으로 update */
-	int updateRetirement(Map<String, Object> paraMap);
-
 	int getManagerEmpnoRegist(Map<String, Object> paraMap);
 
 	/** 이메일을 전달받아 해당하는 사원의 사번 알아오기 */
@@ -139,6 +136,9 @@ public interface EmpDAO {
 	/** 부서별 구성원 인원수 */
 	List<Map<String, Object>> empCntDept();
 
+	/** 인사이트 대시보드 차트 4개의 집계를 한번에 (kind, label, value) */
+	List<Map<String, String>> getInsightSnapshot();
+
 	/** 구성원 잔여 연차 구하기  
 	 * @param paraMap */
 	Map<String, String> getAnnualLeaveCnt(Map<String, String> paraMap);
@@ -271,13 +271,6 @@ public class EmpDAOImp implements EmpDAO{
 			return result;
 		}
 
-		@Override
-		public int updateRetirement(Map<String, Object> paraMap) {
-			int result = sqlsession.update("emp.updateRetirement", paraMap);
-//			int result = sqlsession.delete("emp.deleteEmp", paraMap);
-			return result;
-		}
-
 		@Override 
 		public int getManagerEmpnoRegist(Map<String, Object> paraMap) {
 			int manager_yn = sqlsession.selectOne("emp.getManagerEmpnoRegist",paraMap);
@@ -308,6 +301,12 @@ public class EmpDAOImp implements EmpDAO{
 			return empCntList;
 		}
 
+		@Override
+		public List<Map<String, String>> getInsightSnapshot() {
+			List<Map<String, String>> snapshotList = sqlsession.selectList("emp.getInsightSnapshot");
+			return snapshotList;
+		}
+
 		@Override
 		public Map<String, String> getAnnualLeaveCnt(Map<String,String> paraMap) {
 			Map<String,String> AnnualLeaveCntMap = sqlsession.selectOne("emp.getAnnualLeaveCnt",paraMap);
@@ -18,12 +18,17 @@ import org.springframework.transaction.annotation.Transactional;
 import com.project.pm.common.ExcelRead;
 import com.project.pm.common.ExcelReadOption;
 import com.project.pm.employee.model.EmpDAO;
+import com.project.pm.workflow.service.ApprovalLineService;
 
 @Service
 public class EmpServiceImp implements EmpService{
 	
 	@Autowired
 	private EmpDAO dao;
+	
+	// 부서 결재라인 캐시 (부서/직위가 바뀌면 비운다)
+	@Autowired
+	private ApprovalLineService approvalLine;
 
 	@Override
 	public List<Map<String, String>> getEmpList(Map<String, String> empMap) {
@@ -241,6 +246,9 @@ public class EmpServiceImp implements EmpService{
 			dao.updateManagerEmpnoRegist(paraMap);
 		}
 		
+		// 부서장/팀장 매핑까지 바뀐 뒤에 결재라인 캐시 비우기
+		approvalLine.invalidate();
+		
 		return registResult;
 	}
 
@@ -260,13 +268,17 @@ public class EmpServiceImp implements EmpService{
 	}
 	
 	
+	// 인사발령 (발령내역 insert, 사원 부서/직위 update, 부서장/팀장 매핑 update 를 한 트랜잭션으로)
 	@Override
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
 	public int personnelAppointment(Map<String, Object> paraMap) {
 		
 		int insert_psa = 0 ,
 			update_dept_mapping =0,
 			update_emp = 0 ;  
 		
+		int result = 0;
+		
 		// 1. 인사발령 테이블에 insert
 		insert_psa = dao.insertPsa(paraMap);
 		
@@ -305,17 +317,22 @@ public class EmpServiceImp implements EmpService{
 			update_emp = dao.updatePsa(paraMap);
 		}
 		
+		result = update_emp;
+		
 		if(update_emp == 1) {
 			// 3. 부서 매핑 테이블 update (팀장 또는 부서장인 경우)
 			if( (position != null || "".equals(position)) && ( "부서장".equals(position) || "팀장".equals(position) ) ) {
 				update_dept_mapping = dao.updateManagerEmpno(paraMap);
-				return update_dept_mapping;
+				result = update_dept_mapping;
 			}
 		}
 		
+		// 부서/직위/부서장 매핑이 모두 바뀐 뒤에 결재라인 캐시 비우기 (커밋 후에 한번 더 비운다)
+		approvalLine.invalidate();
+		
 		// 4. 공지 작성 
 		
-		return update_emp;
+		return result;
 	
 	}
 
@@ -549,6 +566,7 @@ public class EmpServiceImp implements EmpService{
         
         try {
             dao.insertExcel(paramMap);
+            approvalLine.invalidate();
         }catch(Exception e) {
             e.printStackTrace();
         }
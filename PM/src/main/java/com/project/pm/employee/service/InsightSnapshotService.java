@@ -0,0 +1,13 @@
+package com.project.pm.employee.service;
+
+import java.util.Map;
+
+public interface InsightSnapshotService {
+
+	/** 인사이트 대시보드 집계를 다시 계산하기 (스케줄러, 관리자 요청) */
+	void refresh();
+
+	/** 메모리에 들고 있는 대시보드 JSON 과 그 ETag (json, etag), 처음이면 먼저 계산한다 */
+	Map<String, String> getSnapshot();
+
+}
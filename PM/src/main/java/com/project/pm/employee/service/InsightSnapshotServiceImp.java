@@ -0,0 +1,146 @@
+package com.project.pm.employee.service;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.pm.common.Sha256;
+import com.project.pm.employee.model.EmpDAO;
+
+/**
+ * 인사이트 대시보드 스냅샷
+ * 
+ * 성비, 부서별 인원수, 부서별 최근 한달 평균 근무시간, 부서별 평균연봉을 한 문장(emp.getInsightSnapshot)으로 집계해서
+ * 차트가 쓰는 모양의 JSON 1개로 메모리에 들고 있는다. 대시보드를 열 때는 이 JSON 만 내려주므로 DB 를 읽지 않는다.
+ * REFRESH_MIN 분마다 다시 계산하고, 관리자는 바로 다시 계산할 수 있다.
+ * 내용이 같으면 ETag 도 같으므로 브라우저가 가진 것과 같으면 304 로 끝난다.
+ */
+@Service
+public class InsightSnapshotServiceImp implements InsightSnapshotService {
+
+	/** 다시 계산하는 간격 (분) */
+	private static final int REFRESH_MIN = 10;
+
+	@Autowired
+	private EmpDAO dao;
+
+	/** JSON 과 ETag 를 같이 바꾸기 위해 묶어 둔다 */
+	private static class Snapshot {
+		
+		private final String json;
+		private final String etag;
+		
+		private Snapshot(String json, String etag) {
+			this.json = json;
+			this.etag = etag;
+		}
+	}
+
+	private volatile Snapshot snapshot;
+
+
+	/** 인사이트 대시보드 집계를 다시 계산하기 */
+	@Override
+	@Scheduled(fixedDelay=REFRESH_MIN * 60 * 1000, initialDelay=REFRESH_MIN * 60 * 1000)
+	public synchronized void refresh() {
+
+		List<Map<String, String>> rowList = dao.getInsightSnapshot();
+
+		// 차트별 배열 (예전 개별 요청의 응답과 같은 키)
+		JSONArray genderRate = new JSONArray();
+		JSONArray empCntDept = new JSONArray();
+		JSONArray sumWorktimeByDept = new JSONArray();
+		JSONArray avgSalaryByDept = new JSONArray();
+
+		for(Map<String, String> row : rowList) {
+
+			JSONObject item = new JSONObject();
+
+			switch (row.get("kind")) {
+				case "genderRate":
+					item.put("gender", row.get("label"));
+					item.put("rate", row.get("value"));
+					genderRate.put(item);
+					break;
+				case "empCntDept":
+					item.put("deptname", row.get("label"));
+					item.put("empCnt", row.get("value"));
+					empCntDept.put(item);
+					break;
+				case "sumWorktimeByDept":
+					item.put("deptname", row.get("label"));
+					item.put("avg_worktime", row.get("value"));
+					sumWorktimeByDept.put(item);
+					break;
+				case "avgSalaryByDept":
+					item.put("deptname", row.get("label"));
+					item.put("avg_salary", row.get("value"));
+					avgSalaryByDept.put(item);
+					break;
+				default:
+					break;
+			}
+		}
+
+		JSONObject data = new JSONObject();
+		data.put("genderRate", genderRate);
+		data.put("empCntDept", empCntDept);
+		data.put("sumWorktimeByDept", sumWorktimeByDept);
+		data.put("avgSalaryByDept", avgSalaryByDept);
+
+		// ETag 는 집계 내용으로만 만든다 (계산 시각이 바뀌어도 내용이 같으면 304)
+		String etag = "\"" + Sha256.encrypt(data.toString()).substring(0, 32) + "\"";
+
+		Snapshot before = snapshot;
+
+		if(before != null && before.etag.equals(etag)) {
+			return;
+		}
+
+		// 집계 내용이 마지막으로 바뀐 시각
+		data.put("updated_at", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(Calendar.getInstance().getTime()));
+
+		snapshot = new Snapshot(data.toString(), etag);
+	}
+
+
+	/** 메모리에 들고 있는 대시보드 JSON 과 그 ETag */
+	@Override
+	public Map<String, String> getSnapshot() {
+
+		Snapshot current = current();
+
+		Map<String, String> resultMap = new HashMap<>();
+		resultMap.put("json", current.json);
+		resultMap.put("etag", current.etag);
+
+		return resultMap;
+	}
+
+
+	/** 서버 기동 후 처음 요청이면 먼저 계산한다 */
+	private Snapshot current() {
+
+		Snapshot current = snapshot;
+
+		if(current == null) {
+			synchronized (this) {
+				if(snapshot == null) {
+					refresh();
+				}
+				current = snapshot;
+			}
+		}
+
+		return current;
+	}
+
+}
@@ -25,6 +25,7 @@ import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.web.servlet.ModelAndView;
 
 import com.project.pm.common.FileManager;
+import com.project.pm.common.MyUtil;
 import com.project.pm.employee.model.EmpVO;
 import com.project.pm.file.model.FileVO;
 import com.project.pm.messenger.model.MessengerVO;
@@ -751,6 +752,9 @@ public class MessengerController {
 			EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
 			msgvo.setFk_senderno(loginuser.getEmpno());
 			
+			// 스마트에디터 내용 XSS 필터링
+			msgvo.setContent(MyUtil.secureCode(msgvo.getContent()));
+			
 			// 첨부파일 여부
 			String str_attachCount = mrequest.getParameter("attachCount");
 			
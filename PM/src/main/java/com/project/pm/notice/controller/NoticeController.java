@@ -14,10 +14,14 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.web.servlet.ModelAndView;
 
+import com.project.pm.alarm.service.AlarmService;
 import com.project.pm.common.FileManager;
+import com.project.pm.common.MyUtil;
 import com.project.pm.notice.model.CommentVO;
 import com.project.pm.notice.model.NoticeDAO;
 import com.project.pm.notice.model.*;
+import com.project.pm.notice.service.NoticeFeedService;
+import com.project.pm.notice.service.NoticeReadService;
 import com.project.pm.notice.service.NoticeService;
 import com.project.pm.employee.model.EmpVO;
 
@@ -30,6 +34,15 @@ public class NoticeController {
 	
 	@Autowired
 	private NoticeDAO dao;
+	
+	@Autowired
+	private AlarmService alarmService;
+	
+	@Autowired
+	private NoticeReadService readService;
+	
+	@Autowired
+	private NoticeFeedService feedService;
 
 	
 	// 파일업로드 및 다운로드를 해주는 FileManager 클래스 의존객체 주입하기(DI : Dependency Injection) ===  
@@ -88,10 +101,10 @@ public class NoticeController {
  	}
  	
  	
- 	// 공지글 작성 (공지 작성시 aop 알림 설정 + 파일 첨부)
+ 	// 공지글 작성 (공지 작성시 대상 부서 트리 전체 알림 + 파일 첨부)
  	@ResponseBody
  	@RequestMapping(value = "/notice/sendNotice.pm", produces="text/plain;charset=UTF-8")
- 	public void addAlarm_sendNotice(Map<String, String> paraMap, NoticeVO noticevo, MultipartHttpServletRequest mrequest) {
+ 	public String sendNotice(NoticeVO noticevo, MultipartHttpServletRequest mrequest) {
  		
  		
  		// !! 첨부파일 업로드 하기 시작 !! //
@@ -173,6 +186,9 @@ public class NoticeController {
     	EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
  		noticevo.setFk_senderno(loginuser.getEmpno()); // 작성 -> vo 인서트
  		
+ 		// 스마트에디터 내용 XSS 필터링
+ 		noticevo.setContent(MyUtil.secureCode(noticevo.getContent()));
+ 		
  		
         
     	if(attach.isEmpty() ) {
@@ -189,36 +205,26 @@ public class NoticeController {
  		// 첨부 파일 없는 글쓰기
  		// service.sendNotice(noticevo);
  		
- 		List<String> empnoList = new ArrayList<String>();
- 		 
- 		if("1".equals( noticevo.getFk_deptno())) {
- 			
- 		}
- 		else {
- 			
- 			empnoList = service.getEmpnoList(noticevo.getFk_deptno());
- 		}
- 		
- 		// 해당 사원 번호 알아오기
- 		String ste_empnoList = String.join(",", empnoList );
- 		
- 		// System.out.println(noticevo.getSubject());	
- 		// System.out.println(noticevo.getFk_deptno());	
- 		// System.out.println(noticevo.getContent());	
- 		
  		// seq최신 공지번호 알아오기 (noticevo는 입력한 것을 가져오는)
  		String notino = service.getSeqNotino(loginuser.getEmpno());
 //		System.out.println(notino);
  		
-// 		System.out.println(empnoList);
- 		
- 		// === AOP After Advice를 사용하기 === //
- 		paraMap.put("fk_recipientno", ste_empnoList); // 받는사람 (여러명일때는 ,,으로 구분된 str)
+ 		// === 공지 알림 보내기 === //
+ 		// 받는 사원번호 목록을 가져와서 문자열로 합치지 않고, 대상 부서 트리 전체에 부서 단위로 insert ... select 한다.
+ 		// (전체공지 fk_deptno = 1 인 경우에는 회사 전체가 대상이 된다.)
+ 		Map<String, String> paraMap = new HashMap<>();
+ 		paraMap.put("fk_deptno", noticevo.getFk_deptno()); // 받는 부서 (하위부서 포함)
  		paraMap.put("url", "/notice/noticeList.pm?alarm_noticeno=" );
- 		paraMap.put("url2", notino ); // 연결되는 pknum등...  (여러개일때는 ,,으로 구분된 str)(대신 받는 사람 수랑 같아야됨)
+ 		paraMap.put("url2", notino ); // 연결되는 공지번호
  		paraMap.put("alarm_content", loginuser.getName() + "님이 공지를 작성하셨습니다. 확인해 주세요." );
  		paraMap.put("alarm_type", "5" );
  		
+ 		int alarmCnt = alarmService.addNoticeAlarm(paraMap);
+ 		
+ 		JSONObject jsonObj = new JSONObject();
+ 		jsonObj.put("alarmCnt", alarmCnt);
+ 		
+ 		return jsonObj.toString();
  	}
  
  	
@@ -290,16 +296,6 @@ public class NoticeController {
 		int startRno = 0; // 시작 행번호
 		int endRno = 0;   // 끝 행번호
 		
-		// 총 게시물 건수 (total Count) 
-		totalCount = service.getTotalCount(paraMap); 
-		// System.out.println("확인용 totalCount : " + totalCount); 확인용 totalCount : 6
-		
-		// 만약에 총 게시물 건수(totalCount)가 22라면 총페이지수는 3개가 되어야 한다
-		totalPage = (int) Math.ceil( (double)totalCount/sizePerPage );
-		// (double)22/10 ==> 2.2 ==> Math.ceil(2.2) == > 3.0 ==> 3
-		// (double)30/10 ==> 3.0 ==> Math.ceil(3.0) == > 3.0 ==> 3
-		// System.out.println(totalPage);
-		
 		// 만약에 str_currentShowPageNo이 null 이라면 즉, 게시판에 보여지는 초기화면이라면
 		if(str_currentShowPageNo == null) {
 			currentShowPageNo =1 ;
@@ -307,10 +303,10 @@ public class NoticeController {
 			try {
 				currentShowPageNo = Integer.parseInt(str_currentShowPageNo);
 				
-				// 또 장난쳐올 경우 ( 숫자인데 없는 페이지 )
-				if(currentShowPageNo < 1 || currentShowPageNo > totalPage) {// 유저가 페이지수 장난칠 수도 있다 겟방식이라서
-		              currentShowPageNo = 1;
-		        }
+				// 또 장난쳐올 경우 ( 0 이하 페이지 ), 숫자인데 없는 페이지는 목록을 가져온 다음에 확인한다.
+				if(currentShowPageNo < 1) {
+					currentShowPageNo = 1;
+				}
 				
 			} catch (NumberFormatException e) {
 				currentShowPageNo =1 ;
@@ -345,7 +341,25 @@ public class NoticeController {
 		// 검색어 없는 전체 공지 리스트 페이징 처리
 		
 		// 페이징 처리 된 검색어 가능한 리스트
+		// 새 글 피드의 기준 리비전은 목록을 읽기 전에 잡아둔다 (읽는 도중에 바뀐 공지는 다음 피드에서 다시 내려간다)
+		long feedRevision = feedService.getRevision();
+		
+		// 글목록과 총 게시물 건수를 한번에 가져오기 (count(*) over() 로 totalCount 컬럼에 담겨온다)
 		List<Map<String, String>> showAllNoticeList = service.showAllNoticeList(paraMap);
+		totalCount = getTotalCount(showAllNoticeList);
+		
+		// 숫자인데 없는 페이지로 장난쳐온 경우 (목록이 비어있다) 1페이지를 다시 가져온다.
+		if(showAllNoticeList.isEmpty() && currentShowPageNo != 1) {
+			currentShowPageNo = 1;
+			paraMap.put("startRno", "1");
+			paraMap.put("endRno", String.valueOf(sizePerPage));
+			
+			showAllNoticeList = service.showAllNoticeList(paraMap);
+			totalCount = getTotalCount(showAllNoticeList);
+		}
+		
+		// 만약에 총 게시물 건수(totalCount)가 22라면 총페이지수는 3개가 되어야 한다
+		totalPage = (int) Math.ceil( (double)totalCount/sizePerPage );
 		
 		if(!"".equals(searchWord)) {
 			mav.addObject("searchWord", searchWord);
@@ -459,6 +473,20 @@ public class NoticeController {
 		mav.addObject("totalCount", totalCount);
 		mav.addObject("pageBar", pageBar);
 		
+		// 검색어 없는 첫 페이지를 본 경우에만 새 글 피드의 기준점으로 삼는다
+		if(currentShowPageNo == 1 && "".equals(searchWord)) {
+			String lastNotino = null;
+			for(Map<String, String> map : showAllNoticeList) {
+				if(lastNotino == null || Long.parseLong(map.get("notino")) > Long.parseLong(lastNotino)) {
+					lastNotino = map.get("notino");
+				}
+			}
+			feedService.markSeen(empno, feedRevision, lastNotino);
+			
+			mav.addObject("feedRevision", feedRevision);
+			mav.addObject("lastNotino", lastNotino);
+		}
+		
 		
 		mav.setViewName("notice/noticeList.admin"); 
 		
@@ -480,6 +508,10 @@ public class NoticeController {
 		
 		// map 으로 넣기( 해당 글의 공지번호를 통해 글 하나만 가져오기)
 	    Map<String, String> notice = service.showNoticeContent(notino);
+	    
+	    // 공지 읽음 표시하기
+	    EmpVO loginuser = (EmpVO) request.getSession().getAttribute("loginuser");
+	    readService.markRead(notino, loginuser.getEmpno());
 
 	    // ajax
         JSONObject jsonObj = new JSONObject(); 
@@ -505,6 +537,111 @@ public class NoticeController {
     }
     
 	
+	// 공지 읽음 현황 조회하기(ajax) - 공지 작성자, 관리자만 조회 가능
+	@ResponseBody
+	@RequestMapping(value="/notice/getReadStatus.pm", method= {RequestMethod.POST}, produces="text/plain;charset=UTF-8")
+	public String getReadStatus(HttpServletRequest request) {
+		
+		String notino = request.getParameter("notino");
+		
+		HttpSession session = request.getSession();
+		EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+		
+		JSONObject jsonObj = new JSONObject();
+		
+		if(!canViewReadStatus(loginuser, notino)) {
+			jsonObj.put("result", 0);
+			jsonObj.put("message", "공지 작성자만 읽음 현황을 볼 수 있습니다.");
+			return jsonObj.toString();
+		}
+		
+		List<String> unreadList = readService.getUnreadEmpnoList(notino);
+		
+		jsonObj.put("result", 1);
+		jsonObj.put("notino", notino);
+		jsonObj.put("readCount", readService.getReadCount(notino));
+		jsonObj.put("recipientCount", readService.getRecipientCount(notino));
+		jsonObj.put("unreadCount", unreadList.size());
+		jsonObj.put("unreadList", new JSONArray(unreadList));
+		
+		return jsonObj.toString();
+	}
+	
+	
+	// 특정 사원의 공지 읽음 여부 조회하기(ajax) - 공지 작성자, 관리자만 조회 가능
+	@ResponseBody
+	@RequestMapping(value="/notice/hasRead.pm", method= {RequestMethod.POST}, produces="text/plain;charset=UTF-8")
+	public String hasRead(HttpServletRequest request) {
+		
+		String notino = request.getParameter("notino");
+		String empno = request.getParameter("empno");
+		
+		HttpSession session = request.getSession();
+		EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+		
+		JSONObject jsonObj = new JSONObject();
+		
+		if(empno == null || !empno.trim().matches("\\d{1,9}")) {
+			jsonObj.put("result", 0);
+			jsonObj.put("message", "사원번호가 올바르지 않습니다.");
+			return jsonObj.toString();
+		}
+		
+		if(!canViewReadStatus(loginuser, notino)) {
+			jsonObj.put("result", 0);
+			jsonObj.put("message", "공지 작성자만 읽음 여부를 볼 수 있습니다.");
+			return jsonObj.toString();
+		}
+		
+		empno = empno.trim();
+		
+		jsonObj.put("result", 1);
+		jsonObj.put("notino", notino);
+		jsonObj.put("empno", empno);
+		jsonObj.put("hasRead", readService.hasRead(notino, empno));
+		
+		return jsonObj.toString();
+	}
+	
+	
+	// 읽음 현황을 볼 수 있는지 (있는 공지의 작성자이거나 관리자)
+	private boolean canViewReadStatus(EmpVO loginuser, String notino) {
+		
+		if(loginuser == null || notino == null || !notino.matches("\\d{1,10}")) {
+			return false;
+		}
+		
+		Map<String, String> target = dao.getNoticeReadTarget(notino);
+		
+		return target != null && ( loginuser.getEmpno().equals(target.get("fk_senderno")) || "9999".equals(loginuser.getEmpno()) );
+	}
+	
+	
+	// 마지막으로 본 이후 새로 올라왔거나 바뀐 공지만 가져오기(ajax)
+	// 바뀐 것이 없으면 DB 조회 없이 빈 목록을 돌려주고, reload 가 true 이면 목록 전체를 다시 불러와야 한다.
+	@ResponseBody
+	@RequestMapping(value="/notice/getNoticeFeed.pm", produces="text/plain;charset=UTF-8")
+	public String getNoticeFeed(HttpServletRequest request) {
+		
+		HttpSession session = request.getSession();
+		EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+		
+		String lastRevision = request.getParameter("lastRevision");
+		String lastNotino = request.getParameter("lastNotino");
+		
+		NoticeFeedVO feedvo = feedService.getNoticeFeed(loginuser.getEmpno(), lastRevision, lastNotino);
+		
+		JSONObject jsonObj = new JSONObject();
+		jsonObj.put("revision", feedvo.getRevision());
+		jsonObj.put("lastNotino", feedvo.getLastNotino());
+		jsonObj.put("reload", feedvo.isReload());
+		jsonObj.put("noticeList", feedvo.getNoticeList());
+		jsonObj.put("removedList", feedvo.getRemovedList());
+		
+		return jsonObj.toString();
+	}
+	
+	
 	// 첨부파일 조회하기
 	@ResponseBody
 	@RequestMapping(value = "/notice/getFile.pm", produces="text/plain;charset=UTF-8" )
@@ -633,6 +770,9 @@ public class NoticeController {
 	@RequestMapping(value = "/notice/editNoticeFrm.pm", produces="text/plain;charset=UTF-8",  method= {RequestMethod.POST})
 	public ModelAndView editNoticeEnd(ModelAndView mav, NoticeVO noticevo, HttpServletRequest request) {
 		
+		// 스마트에디터 내용 XSS 필터링
+		noticevo.setContent(MyUtil.secureCode(noticevo.getContent()));
+		
 		int result = service.editNotice(noticevo);
 		
 		/*
@@ -900,16 +1040,6 @@ public class NoticeController {
 		int startRno = 0; // 시작 행번호
 		int endRno = 0;   // 끝 행번호
 		
-		// 총 게시물 건수 (total Count) 
-		totalCount = service.getDepTotalCount(paraMap); 
-		// System.out.println("확인용 부서 totalCount : " + totalCount);
-		
-		// 만약에 총 게시물 건수(totalCount)가 22라면 총페이지수는 3개가 되어야 한다
-		totalPage = (int) Math.ceil( (double)totalCount/sizePerPage );
-		// (double)22/10 ==> 2.2 ==> Math.ceil(2.2) == > 3.0 ==> 3
-		// (double)30/10 ==> 3.0 ==> Math.ceil(3.0) == > 3.0 ==> 3
-		// System.out.println(totalPage);
-		
 		// 만약에 str_currentShowPageNo이 null 이라면 즉, 게시판에 보여지는 초기화면이라면
 		if(str_currentShowPageNo == null) {
 			currentShowPageNo =1 ;
@@ -917,9 +1047,9 @@ public class NoticeController {
 			try {
 				currentShowPageNo = Integer.parseInt(str_currentShowPageNo);
 				
-				// 또 장난쳐올 경우 ( 숫자인데 없는 페이지 )
-				if(currentShowPageNo <1 || currentShowPageNo> totalPage) {
-					currentShowPageNo =1 ;
+				// 또 장난쳐올 경우 ( 0 이하 페이지 ), 숫자인데 없는 페이지는 목록을 가져온 다음에 확인한다.
+				if(currentShowPageNo < 1) {
+					currentShowPageNo = 1;
 				}
 				
 			} catch (NumberFormatException e) {
@@ -953,7 +1083,22 @@ public class NoticeController {
 		// 페이징 처리 안한 전체 공지 리스트
 		// List<Map<String, String>> showAllNoticeList = service.showAllNoticeList(loginuser.getFk_deptno());
 		// 검색어 없는 전체 공지 리스트 페이징 처리
+		// 글목록과 총 게시물 건수를 한번에 가져오기 (count(*) over() 로 totalCount 컬럼에 담겨온다)
 		List<Map<String, String>> depNoticeList = service.depNoticeList(paraMap);
+		totalCount = getTotalCount(depNoticeList);
+		
+		// 숫자인데 없는 페이지로 장난쳐온 경우 (목록이 비어있다) 1페이지를 다시 가져온다.
+		if(depNoticeList.isEmpty() && currentShowPageNo != 1) {
+			currentShowPageNo = 1;
+			paraMap.put("startRno", "1");
+			paraMap.put("endRno", String.valueOf(sizePerPage));
+			
+			depNoticeList = service.depNoticeList(paraMap);
+			totalCount = getTotalCount(depNoticeList);
+		}
+		
+		// 만약에 총 게시물 건수(totalCount)가 22라면 총페이지수는 3개가 되어야 한다
+		totalPage = (int) Math.ceil( (double)totalCount/sizePerPage );
 		
 		
 		if(!"".equals(searchWord)) {
@@ -1089,6 +1234,10 @@ public class NoticeController {
 		// map 으로 넣기( 해당 글의 공지번호를 통해 글 하나만 가져오기)
 	    Map<String, String> deptNotice = service.showDeptNoticeContent(notino);
 	    
+	    // 공지 읽음 표시하기
+	    EmpVO loginuser = (EmpVO) request.getSession().getAttribute("loginuser");
+	    readService.markRead(notino, loginuser.getEmpno());
+	    
 	    // ajax
         JSONObject jsonObj = new JSONObject(); 
         jsonObj.put("notino", deptNotice.get("notino"));
@@ -1482,17 +1631,6 @@ public class NoticeController {
 		int startRno = 0; // 시작 행번호
 		int endRno = 0;   // 끝 행번호
 		
-		// 총 게시물 건수 (total Count) 
-		totalCount = service.getMyTotalCount(paraMap); 
-		// System.out.println("확인용 내공지 totalCount : " + totalCount); 
-		
-		// 만약에 총 게시물 건수(totalCount)가 22라면 총페이지수는 3개가 되어야 한다
-		totalPage = (int) Math.ceil( (double)totalCount/sizePerPage );
-		// (double)22/10 ==> 2.2 ==> Math.ceil(2.2) == > 3.0 ==> 3
-		// (double)30/10 ==> 3.0 ==> Math.ceil(3.0) == > 3.0 ==> 3
-		// System.out.println("내공지 totalpage :" + totalPage);
-		 
-		
 		// 만약에 str_currentShowPageNo이 null 이라면 즉, 게시판에 보여지는 초기화면이라면
 		if(str_currentShowPageNo == null) {
 			currentShowPageNo =1 ;
@@ -1500,9 +1638,9 @@ public class NoticeController {
 			try {
 				currentShowPageNo = Integer.parseInt(str_currentShowPageNo);
 				
-				// 또 장난쳐올 경우 ( 숫자인데 없는 페이지 )
-				if(currentShowPageNo <1 || currentShowPageNo> totalPage) {
-					currentShowPageNo =1 ;
+				// 또 장난쳐올 경우 ( 0 이하 페이지 ), 숫자인데 없는 페이지는 목록을 가져온 다음에 확인한다.
+				if(currentShowPageNo < 1) {
+					currentShowPageNo = 1;
 				}
 				
 			} catch (NumberFormatException e) {
@@ -1535,7 +1673,22 @@ public class NoticeController {
 		// List<Map<String, String>> showAllNoticeList = service.showAllNoticeList(loginuser.getFk_deptno());
 		// 검색어 없는 전체 공지 리스트 페이징 처리
 		// List<Map<String, String>> depNoticeList = service.depNoticeList(paraMap);
+		// 글목록과 총 게시물 건수를 한번에 가져오기 (count(*) over() 로 totalCount 컬럼에 담겨온다)
 		List<Map<String, String>> myNoticeList = service.getMyNoticeList(paraMap);
+		totalCount = getTotalCount(myNoticeList);
+		
+		// 숫자인데 없는 페이지로 장난쳐온 경우 (목록이 비어있다) 1페이지를 다시 가져온다.
+		if(myNoticeList.isEmpty() && currentShowPageNo != 1) {
+			currentShowPageNo = 1;
+			paraMap.put("startRno", "1");
+			paraMap.put("endRno", String.valueOf(sizePerPage));
+			
+			myNoticeList = service.getMyNoticeList(paraMap);
+			totalCount = getTotalCount(myNoticeList);
+		}
+		
+		// 만약에 총 게시물 건수(totalCount)가 22라면 총페이지수는 3개가 되어야 한다
+		totalPage = (int) Math.ceil( (double)totalCount/sizePerPage );
 		
 		if(!"".equals(searchWord)) {
 			mav.addObject("searchWord", searchWord);
@@ -1988,8 +2141,20 @@ public class NoticeController {
 
 	
 	/////////////////////////////////////////////////// 내가 쓴 공지 끝 /////////////////////////////////
-   
 	
 	
+	// 목록 조회 결과의 첫번째 행에 담겨온 총 게시물 건수 알아오기 (목록이 비어있으면 0)
+	private int getTotalCount(List<Map<String, String>> noticeList) {
+		
+		if(noticeList == null || noticeList.isEmpty()) {
+			return 0;
+		}
+		
+		try {
+			return Integer.parseInt(noticeList.get(0).get("totalCount"));
+		} catch (NumberFormatException e) {
+			return noticeList.size();
+		}
+	}
 	
 }
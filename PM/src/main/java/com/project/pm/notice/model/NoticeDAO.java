@@ -150,4 +150,21 @@ public interface NoticeDAO {
 
 		// 첨부파일 있는 글쓰기
 		void sendMotice_withFile(NoticeVO noticevo);
+
+		/////// 공지 읽음 확인 ////////
+		// 공지 1개의 작성자와 받는 부서 알아오기
+		Map<String, String> getNoticeReadTarget(String notino);
+
+		// 받는 부서 트리(하위부서 포함)에 속한 사원번호 알아오기
+		List<String> getRecipientEmpnoList(String fk_deptno);
+
+		// 저장된 읽음 비트맵 가져오기
+		NoticeReadVO getNoticeRead(String notino);
+
+		// 읽음 비트맵 저장하기 (merge)
+		int mergeNoticeRead(NoticeReadVO readvo);
+
+		/////// 공지 새 글 피드 ////////
+		// 마지막으로 본 이후 새로 올라왔거나 바뀐 공지 가져오기
+		List<Map<String, String>> getNoticeFeedList(Map<String, Object> paraMap);
 }
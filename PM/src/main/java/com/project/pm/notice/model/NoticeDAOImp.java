@@ -351,4 +351,41 @@ public class NoticeDAOImp implements NoticeDAO{
 		 sqlsession.insert("notice.sendMotice_withFile", noticevo);
 	}
 
+	
+	/////// 공지 읽음 확인 ////////
+	// 공지 1개의 작성자와 받는 부서 알아오기
+	@Override
+	public Map<String, String> getNoticeReadTarget(String notino) {
+		Map<String, String> target = sqlsession.selectOne("notice.getNoticeReadTarget", notino);
+		return target;
+	}
+
+	// 받는 부서 트리(하위부서 포함)에 속한 사원번호 알아오기
+	@Override
+	public List<String> getRecipientEmpnoList(String fk_deptno) {
+		List<String> empnoList = sqlsession.selectList("notice.getRecipientEmpnoList", fk_deptno);
+		return empnoList;
+	}
+
+	// 저장된 읽음 비트맵 가져오기
+	@Override
+	public NoticeReadVO getNoticeRead(String notino) {
+		NoticeReadVO readvo = sqlsession.selectOne("notice.getNoticeRead", notino);
+		return readvo;
+	}
+
+	// 읽음 비트맵 저장하기 (merge)
+	@Override
+	public int mergeNoticeRead(NoticeReadVO readvo) {
+		int n = sqlsession.update("notice.mergeNoticeRead", readvo);
+		return n;
+	}
+
+	/////// 공지 새 글 피드 ////////
+	// 마지막으로 본 이후 새로 올라왔거나 바뀐 공지 가져오기
+	@Override
+	public List<Map<String, String>> getNoticeFeedList(Map<String, Object> paraMap) {
+		List<Map<String, String>> feedList = sqlsession.selectList("notice.getNoticeFeedList", paraMap);
+		return feedList;
+	}
 }
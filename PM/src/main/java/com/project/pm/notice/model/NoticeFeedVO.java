@@ -0,0 +1,23 @@
+package com.project.pm.notice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@ToString
+public class NoticeFeedVO {
+	
+	private long revision;			// 이번 응답 기준의 공지 변경 리비전 (다음 요청시 lastRevision 으로 보낸다)
+	private String lastNotino;		// 지금까지 받아간 가장 큰 공지번호
+	private boolean reload;			// 변경분으로 맞출 수 없어서 목록 전체를 다시 그려야 하는 경우 true
+	
+	private List<Map<String, String>> noticeList = new ArrayList<>();	// 새 공지 또는 댓글수/내용이 바뀐 공지
+	private List<String> removedList = new ArrayList<>();				// 삭제된 공지번호
+	
+}
@@ -0,0 +1,16 @@
+package com.project.pm.notice.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@ToString
+public class NoticeReadVO {
+	
+	private String fk_notino;		// 공지번호
+	private byte[] read_bitmap;		// 읽은 사원번호 압축 비트맵 (RoaringBitmap 직렬화)
+	private String updatedate;		// 마지막 저장 시각
+	
+}
@@ -0,0 +1,19 @@
+package com.project.pm.notice.service;
+
+import com.project.pm.notice.model.NoticeFeedVO;
+
+public interface NoticeFeedService {
+	
+		// 공지 작성/수정/삭제, 댓글 작성/삭제시 리비전 올리기 (새 공지인 경우 notino 는 null)
+		void touch(String notino);
+
+		// 현재 공지 리비전 알아오기
+		long getRevision();
+
+		// 목록 페이지를 새로 그린 사원의 기준점 저장하기
+		void markSeen(String empno, long revision, String lastNotino);
+
+		// 기준점 이후에 바뀐 공지만 가져오기 (바뀐 것이 없으면 DB 를 조회하지 않는다)
+		NoticeFeedVO getNoticeFeed(String empno, String lastRevision, String lastNotino);
+
+}
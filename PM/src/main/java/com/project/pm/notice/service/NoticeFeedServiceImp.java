@@ -0,0 +1,193 @@
+package com.project.pm.notice.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.project.pm.notice.model.NoticeDAO;
+import com.project.pm.notice.model.NoticeFeedVO;
+
+@Service
+public class NoticeFeedServiceImp implements NoticeFeedService{
+	
+	// 메모리에 남겨두는 변경 기록 최대 개수 (이보다 오래된 기준점은 목록 전체를 다시 그리게 한다)
+	private static final int MAX_CHANGE_LOG = 1000;
+	
+	// 새 공지를 뜻하는 변경 기록 값
+	private static final String NEW_NOTICE = "";
+	
+	@Autowired
+	private NoticeDAO dao;
+	
+	// 공지 변경 리비전 (서버가 재시작되면 이전 리비전과 겹치지 않도록 현재시각에서 시작한다)
+	private final AtomicLong revision = new AtomicLong(System.currentTimeMillis());
+	
+	// 리비전별 바뀐 공지번호
+	private final ConcurrentSkipListMap<Long, String> changeLog = new ConcurrentSkipListMap<>();
+	
+	// 이 리비전 이하의 기준점은 변경 기록만으로 맞출 수 없다
+	private volatile long floorRevision = revision.get();
+	
+	// 사원별 기준점 (리비전, 마지막 공지번호)
+	private final Map<String, Long> userRevisionMap = new ConcurrentHashMap<>();
+	private final Map<String, String> userNotinoMap = new ConcurrentHashMap<>();
+	
+	
+	// 공지 작성/수정/삭제, 댓글 작성/삭제시 리비전 올리기
+	// 트랜잭션 안에서 불린 경우에는 커밋된 다음에 올려서, 커밋 전의 내용을 읽고 기준점이 지나가버리지 않도록 한다.
+	@Override
+	public void touch(String notino) {
+		
+		final String changed = (notino == null) ? NEW_NOTICE : notino;
+		
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					record(changed);
+				}
+			});
+		}
+		else {
+			record(changed);
+		}
+	}
+	
+	
+	// 현재 공지 리비전 알아오기
+	@Override
+	public long getRevision() {
+		return revision.get();
+	}
+	
+	
+	// 목록 페이지를 새로 그린 사원의 기준점 저장하기
+	@Override
+	public void markSeen(String empno, long revision, String lastNotino) {
+		
+		userRevisionMap.put(empno, revision);
+		
+		if(lastNotino != null) {
+			userNotinoMap.merge(empno, lastNotino, (oldNo, newNo) -> toLong(newNo) > toLong(oldNo) ? newNo : oldNo);
+		}
+	}
+
+
+	// 기준점 이후에 바뀐 공지만 가져오기
+	@Override
+	public NoticeFeedVO getNoticeFeed(String empno, String lastRevision, String lastNotino) {
+		
+		// 요청에 기준점이 없으면 사원별로 저장해둔 기준점을 사용한다.
+		Long since = (lastRevision != null && !"".equals(lastRevision.trim())) ? toLong(lastRevision) : userRevisionMap.get(empno);
+		
+		if(lastNotino == null || "".equals(lastNotino.trim())) {
+			lastNotino = userNotinoMap.get(empno);
+		}
+		
+		long current = revision.get();
+		
+		NoticeFeedVO feedvo = new NoticeFeedVO();
+		feedvo.setRevision(current);
+		feedvo.setLastNotino(lastNotino);
+		
+		// 바뀐 것이 없으면 DB 를 조회하지 않고 빈 결과를 돌려준다.
+		if(since != null && since == current) {
+			return feedvo;
+		}
+		
+		// 처음 요청했거나, 기록이 남아있지 않을 만큼 오래된 기준점이면 목록 전체를 다시 그리게 한다.
+		if(since == null || since < floorRevision || since > current) {
+			feedvo.setReload(true);
+			markSeen(empno, current, lastNotino);
+			return feedvo;
+		}
+		
+		NavigableMap<Long, String> changes = changeLog.subMap(since, false, current, true);
+		
+		boolean hasNew = false;
+		Set<String> changedSet = new LinkedHashSet<>();
+		
+		for(String notino : changes.values()) {
+			if(NEW_NOTICE.equals(notino)) {
+				hasNew = true;
+			}
+			else {
+				changedSet.add(notino);
+			}
+		}
+		
+		// 새 공지가 있는데 마지막으로 본 공지번호를 모르면 전체를 다시 그리게 한다.
+		if(hasNew && lastNotino == null) {
+			feedvo.setReload(true);
+			markSeen(empno, current, null);
+			return feedvo;
+		}
+		
+		Map<String, Object> paraMap = new HashMap<>();
+		paraMap.put("lastNotino", hasNew ? lastNotino : null);
+		paraMap.put("notinoList", new ArrayList<>(changedSet));
+		
+		List<Map<String, String>> feedList = dao.getNoticeFeedList(paraMap);
+		
+		String maxNotino = lastNotino;
+		
+		for(Map<String, String> notice : feedList) {
+			
+			if("0".equals(notice.get("status"))) {
+				feedvo.getRemovedList().add(notice.get("notino"));
+			}
+			else {
+				feedvo.getNoticeList().add(notice);
+			}
+			
+			if(maxNotino == null || toLong(notice.get("notino")) > toLong(maxNotino)) {
+				maxNotino = notice.get("notino");
+			}
+		}
+		
+		feedvo.setLastNotino(maxNotino);
+		markSeen(empno, current, maxNotino);
+		
+		return feedvo;
+	}
+	
+	
+	// 변경 기록 남기기 (오래된 기록은 버리고 floorRevision 을 올린다)
+	private void record(String notino) {
+		
+		long rev = revision.incrementAndGet();
+		changeLog.put(rev, notino);
+		
+		while(changeLog.size() > MAX_CHANGE_LOG) {
+			Map.Entry<Long, String> oldest = changeLog.pollFirstEntry();
+			if(oldest == null) {
+				break;
+			}
+			floorRevision = Math.max(floorRevision, oldest.getKey());
+		}
+	}
+	
+	
+	// 숫자 문자열을 long 으로 바꾸기 (숫자가 아니면 -1)
+	private long toLong(String str) {
+		
+		try {
+			return Long.parseLong(str.trim());
+		} catch (NumberFormatException | NullPointerException e) {
+			return -1;
+		}
+	}
+
+}
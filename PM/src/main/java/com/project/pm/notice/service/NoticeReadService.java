@@ -0,0 +1,25 @@
+package com.project.pm.notice.service;
+
+import java.util.List;
+
+public interface NoticeReadService {
+	
+		// 공지 열람시 읽음 표시하기 (메모리의 비트맵만 갱신)
+		void markRead(String notino, String empno);
+
+		// 공지를 읽은 사람 수
+		int getReadCount(String notino);
+
+		// 공지를 받은 사람 수 (받는 부서 트리 전체)
+		int getRecipientCount(String notino);
+
+		// 공지를 아직 안 읽은 사원번호 목록
+		List<String> getUnreadEmpnoList(String notino);
+
+		// 특정 사원이 공지를 읽었는지 여부
+		boolean hasRead(String notino, String empno);
+
+		// 변경된 읽음 비트맵을 DB 에 저장하기 (스케줄러)
+		void flushReadBitmap();
+
+}
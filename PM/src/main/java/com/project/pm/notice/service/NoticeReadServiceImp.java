@@ -0,0 +1,275 @@
+package com.project.pm.notice.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.pm.notice.model.NoticeDAO;
+import com.project.pm.notice.model.NoticeReadVO;
+
+@Service
+public class NoticeReadServiceImp implements NoticeReadService{
+	
+	@Autowired
+	private NoticeDAO dao;
+	
+	// 공지번호별 읽은 사원번호 비트맵 (열람시 메모리에서만 갱신하고, 스케줄러가 주기적으로 blob 으로 저장한다)
+	private final Map<String, RoaringBitmap> readMap = new ConcurrentHashMap<>();
+	
+	// 마지막 저장 이후 변경된 공지번호
+	private final Set<String> dirtySet = ConcurrentHashMap.newKeySet();
+	
+	// 받는 부서번호별 사원번호 비트맵 (저장 주기마다 비워서 인사이동을 반영한다)
+	private final Map<String, RoaringBitmap> recipientMap = new ConcurrentHashMap<>();
+	
+	
+	// 공지 열람시 읽음 표시하기 (메모리의 비트맵만 갱신)
+	@Override
+	public void markRead(String notino, String empno) {
+		
+		int no = toEmpno(empno);
+		
+		if(notino == null || no < 0) {
+			return;
+		}
+		
+		RoaringBitmap bitmap = null;
+		
+		try {
+			bitmap = getReadBitmap(notino);
+		} catch (IllegalStateException e) {
+			// 저장된 비트맵을 못 읽었으면 표시하지 않는다 (덮어쓰면 지금까지 읽은 기록이 없어진다)
+			e.printStackTrace();
+			return;
+		}
+		
+		if(bitmap == null) {
+			return;
+		}
+		
+		synchronized (bitmap) {
+			if(bitmap.checkedAdd(no)) {
+				dirtySet.add(notino);
+			}
+		}
+	}
+
+	
+	// 공지를 읽은 사람 수
+	@Override
+	public int getReadCount(String notino) {
+		
+		RoaringBitmap bitmap = getReadBitmap(notino);
+		
+		if(bitmap == null) {
+			return 0;
+		}
+		
+		synchronized (bitmap) {
+			return bitmap.getCardinality();
+		}
+	}
+	
+	
+	// 공지를 받은 사람 수 (받는 부서 트리 전체)
+	@Override
+	public int getRecipientCount(String notino) {
+		return getRecipientBitmap(notino).getCardinality();
+	}
+
+
+	// 공지를 아직 안 읽은 사원번호 목록 (받는 사람 비트맵 - 읽은 사람 비트맵)
+	@Override
+	public List<String> getUnreadEmpnoList(String notino) {
+		
+		RoaringBitmap recipient = getRecipientBitmap(notino);
+		RoaringBitmap bitmap = getReadBitmap(notino);
+		
+		RoaringBitmap unread = null;
+		
+		if(bitmap == null) {
+			unread = recipient;
+		}
+		else {
+			synchronized (bitmap) {
+				unread = RoaringBitmap.andNot(recipient, bitmap);
+			}
+		}
+		
+		List<String> unreadList = new ArrayList<>(unread.getCardinality());
+		unread.forEach((int empno) -> unreadList.add(String.valueOf(empno)));
+		
+		return unreadList;
+	}
+
+
+	// 특정 사원이 공지를 읽었는지 여부
+	@Override
+	public boolean hasRead(String notino, String empno) {
+		
+		int no = toEmpno(empno);
+		
+		if(no < 0) {
+			return false;
+		}
+		
+		RoaringBitmap bitmap = getReadBitmap(notino);
+		
+		if(bitmap == null) {
+			return false;
+		}
+		
+		synchronized (bitmap) {
+			return bitmap.contains(no);
+		}
+	}
+
+
+	// 변경된 읽음 비트맵을 DB 에 저장하기 (30초마다)
+	@Override
+	@Scheduled(fixedDelay=30000)
+	public void flushReadBitmap() {
+		
+		for(String notino : new ArrayList<>(dirtySet)) {
+			
+			dirtySet.remove(notino);
+			
+			RoaringBitmap bitmap = readMap.get(notino);
+			
+			if(bitmap == null) {
+				continue;
+			}
+			
+			NoticeReadVO readvo = new NoticeReadVO();
+			readvo.setFk_notino(notino);
+			
+			try {
+				synchronized (bitmap) {
+					bitmap.runOptimize();
+					readvo.setRead_bitmap(serialize(bitmap));
+				}
+				
+				dao.mergeNoticeRead(readvo);
+				
+			} catch (Exception e) {
+				// 저장 실패시 다음 주기에 다시 저장하도록 남겨둔다.
+				dirtySet.add(notino);
+				e.printStackTrace();
+			}
+		}
+		
+		recipientMap.clear();
+	}
+	
+	
+	// 서버 종료시 남아있는 읽음 표시 저장하기
+	@PreDestroy
+	public void destroy() {
+		flushReadBitmap();
+	}
+	
+	
+	// 공지번호에 해당하는 읽음 비트맵 가져오기 (메모리에 없으면 DB 에서 불러온다)
+	// 없는(삭제된) 공지면 null 이고 메모리에 올리지 않는다.
+	// 저장된 비트맵을 못 읽으면 IllegalStateException 이고, 메모리에 올리지 않으므로 저장된 비트맵을 덮어쓰지 않는다.
+	private RoaringBitmap getReadBitmap(String notino) {
+		
+		if(notino == null) {
+			return null;
+		}
+		
+		RoaringBitmap bitmap = readMap.get(notino);
+		
+		if(bitmap != null) {
+			return bitmap;
+		}
+		
+		if(dao.getNoticeReadTarget(notino) == null) {
+			return null;
+		}
+		
+		RoaringBitmap loaded = new RoaringBitmap();
+		NoticeReadVO readvo = dao.getNoticeRead(notino);
+		
+		if(readvo != null && readvo.getRead_bitmap() != null) {
+			try {
+				loaded.deserialize(new DataInputStream(new ByteArrayInputStream(readvo.getRead_bitmap())));
+			} catch (IOException | RuntimeException e) {
+				throw new IllegalStateException("공지 " + notino + " 읽음 비트맵 읽기 실패", e);
+			}
+		}
+		
+		bitmap = readMap.putIfAbsent(notino, loaded);
+		
+		return bitmap == null ? loaded : bitmap;
+	}
+	
+	
+	// 공지를 받는 부서 트리 전체의 사원번호 비트맵 가져오기
+	private RoaringBitmap getRecipientBitmap(String notino) {
+		
+		Map<String, String> target = dao.getNoticeReadTarget(notino);
+		
+		if(target == null) {
+			return new RoaringBitmap();
+		}
+		
+		return recipientMap.computeIfAbsent(target.get("fk_deptno"), fk_deptno -> {
+			
+			RoaringBitmap recipient = new RoaringBitmap();
+			
+			for(String empno : dao.getRecipientEmpnoList(fk_deptno)) {
+				int no = toEmpno(empno);
+				if(no >= 0) {
+					recipient.add(no);
+				}
+			}
+			
+			recipient.runOptimize();
+			return recipient;
+		});
+	}
+	
+	
+	// 비트맵을 blob 에 넣을 byte[] 로 바꾸기
+	private byte[] serialize(RoaringBitmap bitmap) throws IOException {
+		
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(bitmap.serializedSizeInBytes());
+		
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			bitmap.serialize(dos);
+		}
+		
+		return bos.toByteArray();
+	}
+	
+	
+	// 사원번호 문자열을 비트맵에 넣을 숫자로 바꾸기 (숫자가 아니면 -1)
+	private int toEmpno(String empno) {
+		
+		if(empno == null) {
+			return -1;
+		}
+		
+		try {
+			return Integer.parseInt(empno.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+}
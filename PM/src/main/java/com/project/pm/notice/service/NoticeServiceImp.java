@@ -19,6 +19,9 @@ public class NoticeServiceImp implements NoticeService{
 		// 의존 객체 주입하기
 		@Autowired
 		private NoticeDAO dao;
+		
+		@Autowired
+		private NoticeFeedService feedService;
 
 		// 전체 부서 조회하기
 		@Override
@@ -41,6 +44,7 @@ public class NoticeServiceImp implements NoticeService{
 		public void sendNotice(NoticeVO noticevo) {
 			
 			dao.getSenNotice(noticevo);
+			feedService.touch(null);
 		
 		}
 		
@@ -102,6 +106,7 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public int editNotice(NoticeVO noticevo) {
 			int result = dao.editNotice(noticevo);
+			if(result > 0) feedService.touch(noticevo.getNotino());
 			return result;
 		}
 
@@ -112,6 +117,7 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public int delNoticeEnd(Map<String, String> paraMap) {
 			int result = dao.delNoticeEnd(paraMap);
+			if(result > 0) feedService.touch(paraMap.get("notino"));
 			return result;
 		}
 
@@ -138,6 +144,8 @@ public class NoticeServiceImp implements NoticeService{
 		        //      확인용 m : 1       
 		    }
 		   
+			if(m > 0) feedService.touch(commentvo.getFk_notino());
+			
 			return m;
 		}
 
@@ -159,6 +167,7 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public int delComment(Map<String, String> paraMap) {
 			int result = dao.delComment(paraMap); 
+			if(result > 0) feedService.touch(paraMap.get("notino"));
 			return result;
 		}
 		
@@ -210,6 +219,7 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public int delDepNoticeEnd(Map<String, String> paraMap) {
 			int result = dao.delDepNoticeEnd(paraMap);
+			if(result > 0) feedService.touch(paraMap.get("notino"));
 			return result;
 		}
 		
@@ -234,6 +244,8 @@ public class NoticeServiceImp implements NoticeService{
 		        //      확인용 m : 1       
 		    }
 		   
+			if(m > 0) feedService.touch(commentvo.getFk_notino());
+			
 			return m;
 		}
 		
@@ -257,6 +269,7 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public int delDepComment(Map<String, String> paraMap) {
 			int result = dao.delDepComment(paraMap); 
+			if(result > 0) feedService.touch(paraMap.get("notino"));
 			return result;
 		}
 
@@ -308,6 +321,7 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public int delMyNoticeEnd(Map<String, String> paraMap) {
 			int result = dao.delMyNoticeEnd(paraMap);
+			if(result > 0) feedService.touch(paraMap.get("notino"));
 			return result;
 		}
 
@@ -330,6 +344,8 @@ public class NoticeServiceImp implements NoticeService{
 		        //      확인용 m : 1       
 		    }
 		   
+			if(m > 0) feedService.touch(commentvo.getFk_notino());
+			
 			return m;
 		}
 		
@@ -351,6 +367,7 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public int delMyComment(Map<String, String> paraMap) {
 			int result = dao.delMyComment(paraMap); 
+			if(result > 0) feedService.touch(paraMap.get("notino"));
 			return result;
 		}
 
@@ -379,11 +396,13 @@ public class NoticeServiceImp implements NoticeService{
 		@Override
 		public void sendNotice_noFile(NoticeVO noticevo) {
 			dao.sendNotice_noFile(noticevo);
+			feedService.touch(null);
 		}
 
 		// 첨부파일 있는 글쓰기
 		@Override
 		public void sendMotice_withFile(NoticeVO noticevo) {
 			dao.sendMotice_withFile(noticevo);
+			feedService.touch(null);
 		}
 }
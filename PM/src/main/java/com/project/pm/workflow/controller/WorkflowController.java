@@ -5,8 +5,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -24,8 +26,16 @@ import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.web.servlet.ModelAndView;
 
 import com.project.pm.common.FileManager;
+import com.project.pm.common.MyUtil;
 import com.project.pm.employee.model.EmpVO;
+import com.project.pm.workflow.model.DocumentDetailVO;
+import com.project.pm.workflow.model.DocumentRevisionVO;
 import com.project.pm.workflow.model.DocumentVO;
+import com.project.pm.workflow.service.ApprovalSlaService;
+import com.project.pm.workflow.service.DocumentBodyService;
+import com.project.pm.workflow.service.DocumentDetailService;
+import com.project.pm.workflow.service.DocumentExportService;
+import com.project.pm.workflow.service.DocumentRevisionService;
 import com.project.pm.workflow.service.WorkflowService;
 
 @Controller
@@ -34,6 +44,21 @@ public class WorkflowController {
 	@Autowired
 	private WorkflowService service;
 	
+	@Autowired
+	private DocumentDetailService detailService;
+	
+	@Autowired
+	private DocumentBodyService bodyService;
+	
+	@Autowired
+	private DocumentExportService exportService;
+	
+	@Autowired
+	private DocumentRevisionService revisionService;
+	
+	@Autowired
+	private ApprovalSlaService slaService;
+	
 	@Autowired
 	private FileManager fileManager;
 	
@@ -126,6 +151,8 @@ public class WorkflowController {
 	}
 	
 	//문서 자세히 보기 ajax
+	// 문서, 결재라인 전체, 히스토리를 한번에 가져와서(짧게 캐시됨)
+	// 작성자 여부, 전단계 결재여부, 지금 결재단계, 마지막 결재단계는 자바에서 계산한다.
 	@ResponseBody
 	@RequestMapping(value = "/workflow/documentDetail.pm")
 	public String documentDetail(HttpServletRequest request) {
@@ -134,206 +161,115 @@ public class WorkflowController {
 		String doc_no = request.getParameter("doc_no");
 		String nodoc = "10";
 		
-		
-		Map<String,String> paraMap = new HashMap<>();
-		paraMap.put("empno",empno);
-
 		if(doc_no==null) {
-			paraMap.put("doc_no", nodoc);
+			doc_no = nodoc;
 		}
-		else {
-			paraMap.put("doc_no", doc_no);
-		}
-
-		//작성자 인지 아닌지 구분하기
-		String writer = service.checkWriter(paraMap);
-		
 		
-		paraMap.put("writer",writer);
 		JSONObject jsonObj = new JSONObject();
 		
-		//System.out.println("writer : " + writer);
-		//문서 자세히 가져오기(작성자 or 작성자 아닐때 xml에서 처리)
-		Map<String,String> docDetailMap = service.getDocDetail(paraMap);
+		//문서 + 결재라인 + 히스토리 가져오기
+		DocumentDetailVO detailvo = detailService.getDocumentDetail(doc_no);
 		
+		//작성자 인지 아닌지 구분하기
+		boolean isWriter = detailvo != null && detailvo.isWriter(empno);
+		
+		//작성자가 아니면 내 결재 정보 (결재라인에 없는 사람이면 문서를 보여주지 않는다)
+		Map<String,String> myApproval = (detailvo != null && !isWriter) ? detailvo.getMyApproval(empno) : null;
 		
+		if(detailvo == null || (!isWriter && myApproval == null)) {
+			jsonObj.put("doc_no", doc_no);
+			return jsonObj.toString();
+		}
+		
+		Map<String,String> docDetailMap = detailvo.getDocument();
 		
 		//결제라인 이름만 문자열로 가져오기
-		String appName = service.getAppname(doc_no);
+		String appName = detailvo.getAppName();
+		int finalCnt = detailvo.getFinalCnt();
 		
-		/*
-		 * String[] appNameList = appName.split(","); int finalCnt = appNameList.length;
-		 */
-		int finalCnt = 0;			
 		if(appName != null) {
 			jsonObj.put("appName", appName);
-			String[] appNameList = appName.split(",");
-			finalCnt = appNameList.length;
-		
 		}
-	
-//		System.out.println("doc_no:" + doc_no );
-//		System.out.println("writer: " + writer);
-//		System.out.println("map확인 : " +docDetailMap.get("doc_contents"));
-//		System.out.println("map확인 : " +docDetailMap.get("doc_subject"));
-		
-		
-		if(docDetailMap != null) { 
-			
-			
-			//null 일떄 처리해주기
-			String deptno = docDetailMap.get("fk_deptno");
 		
-			jsonObj.put("fk_writer_empno",docDetailMap.get("fk_writer_empno"));
-			jsonObj.put("doc_no",docDetailMap.get("doc_no"));
-			jsonObj.put("doc_subject",docDetailMap.get("doc_subject"));
-			jsonObj.put("doc_contents",docDetailMap.get("doc_contents"));
-			jsonObj.put("writeday",docDetailMap.get("writeday"));
-			jsonObj.put("modificationday",docDetailMap.get("modificationday"));
-			jsonObj.put("filename",docDetailMap.get("filename"));
-			jsonObj.put("orgfilename",docDetailMap.get("orgfilename"));
-			jsonObj.put("filesize",docDetailMap.get("filesize"));
-			jsonObj.put("d_day",docDetailMap.get("d_day"));
-			jsonObj.put("icon",docDetailMap.get("icon"));
-			jsonObj.put("name",docDetailMap.get("name"));
-			jsonObj.put("position",docDetailMap.get("position"));
-			jsonObj.put("profile_color", docDetailMap.get("profile_color"));
-			jsonObj.put("end_doc",docDetailMap.get("end_doc"));
-			
-			paraMap.put("deptno", docDetailMap.get("fk_deptno")); 
-			int levelno = 1;
-			
-			
-			String prestepApp = "0"; // 팀장인경우 (작성자도아니고 이전 결제자도 없는경우)
-			if(writer==null) { // 작성자가 아닐 경우
-				
-				//내 결제단계에서 -1 이전사람 결제단계 알아오기 	
-				levelno	= Integer.parseInt(docDetailMap.get("levelno"));
-				int prelevelno = levelno -1;
-				
-				
-				if(finalCnt < levelno) {
-					levelno = levelno - 1;				
-				}
-				
-				jsonObj.put("approval", docDetailMap.get("approval"));
-				
-				paraMap.put("prelevelno",Integer.toString(prelevelno));
-				paraMap.put("deptno",deptno);
-				
-				
-				//이전단계 반려 하나라도 있는경우 최종결재권자에게 결재권한 주기 
-				List<Map<String,String>> appList = service.appList(paraMap);
-				
-			
-				int approvalCnt = appList.size();
-				boolean deny = false;
-				
-			
-				if(finalCnt == Integer.parseInt(docDetailMap.get("levelno"))) {
-					for(int i=0; i<approvalCnt; i++) {
-						String approval = appList.get(i).get("approval");
-					
-						if(approval.equals("2")) {
-							deny = true;
-						}
-					}
-					
-					jsonObj.put("deny", deny);
-				}
-				
-				
-			
-				//System.out.println("approval :" + docDetailMap.get("approval"));
-				
-					//1단계 결제자가 아닐경우
-					if(prelevelno != 0) {
-					//내 전단계 결제자 결제여부 알아오기
-					prestepApp =service.getPrestepApp(paraMap);
-					//System.out.println("prestepApp : "+prestepApp);
-						if(prestepApp == null ) {
-							prestepApp = "1";
-						}
-					
-					}
-			}	
-				
-			else { //작성자 일 경우
-				levelno = 1;
-
-				
-				prestepApp= "0";
+		jsonObj.put("fk_writer_empno",docDetailMap.get("fk_writer_empno"));
+		jsonObj.put("doc_no",docDetailMap.get("doc_no"));
+		jsonObj.put("doc_subject",docDetailMap.get("doc_subject"));
+		jsonObj.put("doc_contents",docDetailMap.get("doc_contents"));
+		jsonObj.put("writeday",docDetailMap.get("writeday"));
+		jsonObj.put("modificationday",docDetailMap.get("modificationday"));
+		jsonObj.put("filename",docDetailMap.get("filename"));
+		jsonObj.put("orgfilename",docDetailMap.get("orgfilename"));
+		jsonObj.put("filesize",docDetailMap.get("filesize"));
+		jsonObj.put("d_day",docDetailMap.get("d_day"));
+		jsonObj.put("icon",docDetailMap.get("icon"));
+		jsonObj.put("name",docDetailMap.get("name"));
+		jsonObj.put("position",docDetailMap.get("position"));
+		jsonObj.put("profile_color", docDetailMap.get("profile_color"));
+		jsonObj.put("end_doc",docDetailMap.get("end_doc"));
+		
+		int levelno = 1;
+		String prestepApp = "0"; // 팀장인경우 (작성자도아니고 이전 결제자도 없는경우)
+		
+		if(!isWriter) { // 작성자가 아닐 경우
+			
+			//내 결제단계에서 -1 이전사람 결제단계 알아오기 	
+			int myLevelno = Integer.parseInt(myApproval.get("levelno"));
+			int prelevelno = myLevelno -1;
+			
+			levelno = myLevelno;
+			if(finalCnt < levelno) {
+				levelno = levelno - 1;				
 			}
 			
+			jsonObj.put("approval", myApproval.get("approval"));
+			jsonObj.put("version", myApproval.get("version"));
 			
-			//지금 몇단계 승인예정인지 알아오기
-			String nowApprovalStep = service.getApprovalSetp(docDetailMap.get("doc_no"));
-		
-			
+			//이전단계 반려 하나라도 있는경우 최종결재권자에게 결재권한 주기 
+			if(finalCnt == myLevelno) {
+				jsonObj.put("deny", detailvo.hasDeny(empno));
+			}
 			
-			///////////////////////// 단계 표시해주기//////////
-			if (nowApprovalStep !=null) {
-				
-				//마지막 level 알아오기
-				
-				int lastLevelno = service.getlastLevelno(docDetailMap.get("doc_no"));
-				
-				
-				int n = Integer.parseInt(nowApprovalStep);
-				if(!(nowApprovalStep.equals(String.valueOf(lastLevelno)) ) ) {
-					
-					n= n+1;
-					nowApprovalStep = String.valueOf(n);
+			//1단계 결제자가 아닐경우 내 전단계 결제자 결제여부 알아오기
+			if(prelevelno != 0) {
+				prestepApp = detailvo.getPrestepApproval(prelevelno);
+				if(prestepApp == null ) {
+					prestepApp = "1";
 				}
-				
-				if(finalCnt < n) {
-					n = Integer.parseInt(nowApprovalStep);
-					n= n-1;
-					nowApprovalStep = String.valueOf(n);
-					
-				}
-			
-				
-				
 			}
+		}	
+		
+		//지금 몇단계 승인예정인지 알아오기
+		String nowApprovalStep = detailvo.getApprovalStep();
+		
+		///////////////////////// 단계 표시해주기//////////
+		if (nowApprovalStep !=null) {
 			
+			//마지막 level 알아오기
+			int lastLevelno = detailvo.getLastLevelno();
 			
-			else {
-				
-				nowApprovalStep = "1";
+			int n = Integer.parseInt(nowApprovalStep);
+			if(!(nowApprovalStep.equals(String.valueOf(lastLevelno)) ) ) {
+				n= n+1;
+				nowApprovalStep = String.valueOf(n);
 			}
 			
-			
-			jsonObj.put("nowApprovalStep", nowApprovalStep);
-			jsonObj.put("levelno",levelno);
-			jsonObj.put("prestepApp", prestepApp);
-			//System.out.println("prestepApp : " +prestepApp);
-			
-			request.setAttribute("json", jsonObj.toString());
-			
-			//히스토리 가져오기 
-			List<Map<String,String>> historyList = service.getHistory(docDetailMap.get("doc_no"));
-			
-			boolean historyFlag = false;
-			if(historyList != null) {
-				
-				historyFlag = true;
-				jsonObj.put("historyList", historyList);	
-			}
-			else {
-				historyFlag = false;
+			if(finalCnt < n) {
+				n = Integer.parseInt(nowApprovalStep);
+				n= n-1;
+				nowApprovalStep = String.valueOf(n);
 			}
-			jsonObj.put("historyFlag", historyFlag);
-		
 		}
-		
 		else {
-			
-			jsonObj.put("doc_no", doc_no);
-			System.out.println("doc_no :" + doc_no);
+			nowApprovalStep = "1";
 		}
 		
+		jsonObj.put("nowApprovalStep", nowApprovalStep);
+		jsonObj.put("levelno",levelno);
+		jsonObj.put("prestepApp", prestepApp);
 		
+		//히스토리
+		jsonObj.put("historyList", detailvo.getHistoryList());	
+		jsonObj.put("historyFlag", true);
 		
 		return jsonObj.toString(); //"{n:1}"
 	}
@@ -470,6 +406,7 @@ public class WorkflowController {
 		String approvalNo = request.getParameter("approval");
 		String doc_no = request.getParameter("doc_no");
 		String levelno = request.getParameter("levelno");
+		String version = request.getParameter("version"); // 문서를 열었을때의 내 결재 version (없으면 확인 안함)
 		String empno = loginuser.getEmpno();
 		String deptno = loginuser.getFk_deptno();
 		
@@ -482,8 +419,8 @@ public class WorkflowController {
 		paraMap.put("empno", empno);
 		paraMap.put("deptno", deptno);
 		paraMap.put("levelno",levelno);
+		paraMap.put("version",version);
 		
-		System.out.println( "deptno : " +empno);
 		//승인,반려 상태 업데이트 시키기
 		int n = service.updateApproval(paraMap);
 		//System.out.println("n :" + n);
@@ -494,6 +431,12 @@ public class WorkflowController {
 		jsonObj.put("empno", empno);
 		jsonObj.put("n", n);
 		
+		// 다른 사람이 먼저 처리했거나 아직 내 차례가 아닌 경우
+		if(n == 0) {
+			jsonObj.put("conflict", true);
+			jsonObj.put("message", "이미 처리되었거나 아직 결재할 차례가 아닌 문서입니다. 새로고침 후 다시 확인해주세요.");
+		}
+		
 		
 		//System.out.println("approval : " + approval);
 		//System.out.println("doc_no :" + doc_no);
@@ -506,6 +449,90 @@ public class WorkflowController {
 	}
 	
 	
+	//문서 일괄 승인,반려 ajax
+	// doc_nos 는 ,로 구분된 문서번호 (한번에 최대 100건), approval 은 1(승인) 또는 2(반려)
+	// 문서별 결과(status)를 돌려주고, 다음 결재자들에게는 알림을 한번에 보낸다(AOP).
+	@ResponseBody
+	@RequestMapping(value = "/workflow/bulkApproval.pm", method = {RequestMethod.POST}, produces = "text/plain;charset=UTF-8")
+	public String addAlarm_bulkApproval(Map<String, String> paraMap, HttpServletRequest request) {
+		
+		HttpSession session = request.getSession();
+		EmpVO loginuser = (EmpVO)session.getAttribute("loginuser");
+		
+		String approvalNo = request.getParameter("approval");
+		String doc_nos = request.getParameter("doc_nos");
+		
+		JSONObject jsonObj = new JSONObject();
+		
+		if( !("1".equals(approvalNo) || "2".equals(approvalNo)) || doc_nos == null || "".equals(doc_nos.trim()) ) {
+			jsonObj.put("n", 0);
+			jsonObj.put("message", "결재할 문서와 승인/반려 여부를 선택해주세요.");
+			return jsonObj.toString();
+		}
+		
+		// 중복과 숫자가 아닌 값은 빼고 순서대로
+		Set<String> docNoSet = new LinkedHashSet<>();
+		for(String doc_no : doc_nos.split(",")) {
+			try {
+				docNoSet.add(String.valueOf(Integer.parseInt(doc_no.trim())));
+			} catch(NumberFormatException e) {
+				// 잘못된 문서번호는 무시
+			}
+		}
+		
+		if(docNoSet.isEmpty() || docNoSet.size() > 100) {
+			jsonObj.put("n", 0);
+			jsonObj.put("message", "한번에 1건에서 100건까지 결재할 수 있습니다.");
+			return jsonObj.toString();
+		}
+		
+		Map<String, Object> resultMap = service.bulkApproval(loginuser.getEmpno(), new ArrayList<>(docNoSet), approvalNo);
+		
+		@SuppressWarnings("unchecked")
+		List<Map<String, String>> resultList = (List<Map<String, String>>) resultMap.get("resultList");
+		@SuppressWarnings("unchecked")
+		List<Map<String, String>> nextApproverList = (List<Map<String, String>>) resultMap.get("nextApproverList");
+		
+		int n = 0;
+		JSONArray jsonArr = new JSONArray();
+		
+		for(Map<String, String> result : resultList) {
+			
+			if("ok".equals(result.get("status"))) {
+				n++;
+			}
+			
+			JSONObject resultObj = new JSONObject();
+			resultObj.put("doc_no", result.get("doc_no"));
+			resultObj.put("status", result.get("status"));
+			jsonArr.put(resultObj);
+		}
+		
+		jsonObj.put("n", n);
+		jsonObj.put("resultList", jsonArr);
+		
+		// 다음 결재자들에게 보낼 알림 (받는사람과 문서번호를 같은 순서로)
+		if(nextApproverList.size() > 0) {
+			
+			List<String> recipientList = new ArrayList<>();
+			List<String> url2List = new ArrayList<>();
+			
+			for(Map<String, String> nextApprover : nextApproverList) {
+				recipientList.add(nextApprover.get("fk_senior_empno"));
+				url2List.add(nextApprover.get("doc_no"));
+			}
+			
+			paraMap.put("fk_recipientno", String.join(",", recipientList)); // 받는사람 (여러명일때는 ,으로 구분된 str)
+			paraMap.put("url", "/workflow.pm?doc_no=");
+			paraMap.put("url2", String.join(",", url2List)); // 연결되는 pknum등...  (받는 사람 수랑 같음)
+			paraMap.put("alarm_content", loginuser.getName() + "님이 결재를 " + ("1".equals(approvalNo) ? "승인" : "반려") + "하였습니다. 결재를 진행해주세요.");
+			paraMap.put("alarm_type", "3");
+		}
+		
+		return jsonObj.toString();
+	}
+	
+	
 	@RequestMapping(value = "/cpWorkflow.pm")
 	public String viewCpWorkflow() {
 		
@@ -695,7 +722,7 @@ public class WorkflowController {
 		//줄바꿈 적용시키기
 		String doc_contents = docvo.getDoc_contents();
 		doc_contents=doc_contents.replace("\r\n","<br>");
-		docvo.setDoc_contents(doc_contents);
+		docvo.setDoc_contents(MyUtil.secureCode(doc_contents)); // 스마트에디터 내용 XSS 필터링
 				
 		
 		if(attach.isEmpty() ) {
@@ -855,7 +882,7 @@ public class WorkflowController {
 			contents=contents.replace("\r\n","<br>");
 			
 			
-			docvo.setDoc_contents(contents);
+			docvo.setDoc_contents(MyUtil.secureCode(contents)); // 스마트에디터 내용 XSS 필터링
 			
 			//수정하기
 			int n = service.upateDoc(docvo);			
@@ -940,6 +967,7 @@ public class WorkflowController {
 			for(Map<String,String> docListmap: myDocumentList) {
 				JSONObject jsonObj = new JSONObject();
 				String doc_contents = docListmap.get("doc_contents");
+				if(doc_contents == null) doc_contents = ""; // 아직 목록용 첫줄이 없는 예전 문서
 				// 엔터값 처리해주기
 				int index = doc_contents.indexOf("<br>");
 	
@@ -1060,6 +1088,7 @@ public class WorkflowController {
 				jsonObj.put("doc_subject", docListmap.get("doc_subject"));
 				
 				String doc_contents = docListmap.get("doc_contents");
+				if(doc_contents == null) doc_contents = ""; // 아직 목록용 첫줄이 없는 예전 문서
 				
 				// 엔터값 처리해주기
 				int index = doc_contents.indexOf("<br>");
@@ -1237,6 +1266,7 @@ public class WorkflowController {
 				JSONObject jsonObj = new JSONObject();
 				
 				String doc_contents = docListmap.get("doc_contents");
+				if(doc_contents == null) doc_contents = ""; // 아직 목록용 첫줄이 없는 예전 문서
 				// 엔터값 처리해주기
 				int index = doc_contents.indexOf("<br>");
 	
@@ -1511,5 +1541,321 @@ public class WorkflowController {
 			}
 		
 		}// end of requiredLogin_download
+		
+		
+		// 진행중 문서함(결재함 테이블)과 문서함 건수 다시 만들기 (관리자만)
+		// 결재함 테이블이 원본 테이블과 어긋났을 때 원본(tbl_documents, tbl_approval)에서 다시 만든다.
+		@ResponseBody
+		@RequestMapping(value = "/workflow/rebuildInbox.pm", method = {RequestMethod.POST}, produces = "text/plain;charset=UTF-8")
+		public String rebuildInbox(HttpServletRequest request) {
+			
+			HttpSession session = request.getSession();
+			EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(!"9999".equals(loginuser.getEmpno())) { // 관리자 아이디가 아닐때
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "관리자만 사용할 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			int n = service.rebuildInbox();
+			
+			// 문서함 건수도 원본 테이블 기준으로 맞추기 (처음 건수 테이블을 채울 때도 사용)
+			int repaired = service.repairFolderCounter();
+			
+			jsonObj.put("n", n);
+			jsonObj.put("repaired", repaired);
+			
+			return jsonObj.toString();
+		}
+		
+		
+		// 예전 문서내용을 압축 테이블로 옮기기 (관리자만)
+		// chunkSize 건씩 옮기고 chunk 마다 커밋한다. 한번에 maxChunks 번까지만 하고, 다 못 옮기면 돌려준 lastDoc_no 로 다시 요청하면 된다.
+		@ResponseBody
+		@RequestMapping(value = "/workflow/migrateDocumentBody.pm", method = {RequestMethod.POST}, produces = "text/plain;charset=UTF-8")
+		public String migrateDocumentBody(HttpServletRequest request) {
+			
+			HttpSession session = request.getSession();
+			EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(!"9999".equals(loginuser.getEmpno())) { // 관리자 아이디가 아닐때
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "관리자만 사용할 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			int lastDoc_no = 0;
+			int chunkSize = 200;
+			int maxChunks = 50;
+			
+			try {
+				if(request.getParameter("lastDoc_no") != null) {
+					lastDoc_no = Integer.parseInt(request.getParameter("lastDoc_no"));
+				}
+				if(request.getParameter("chunkSize") != null) {
+					chunkSize = Math.min(1000, Math.max(1, Integer.parseInt(request.getParameter("chunkSize"))));
+				}
+				if(request.getParameter("maxChunks") != null) {
+					maxChunks = Math.max(1, Integer.parseInt(request.getParameter("maxChunks")));
+				}
+			} catch(NumberFormatException e) {
+				// 잘못된 값이면 기본값
+			}
+			
+			int n = 0;
+			long rawBytes = 0;
+			long storedBytes = 0;
+			boolean done = false;
+			
+			for(int i=0; i<maxChunks; i++) {
+				
+				Map<String, String> resultMap = bodyService.migrateChunk(lastDoc_no, chunkSize);
+				
+				int migrated = Integer.parseInt(resultMap.get("migrated"));
+				
+				n += migrated;
+				rawBytes += Long.parseLong(resultMap.get("rawBytes"));
+				storedBytes += Long.parseLong(resultMap.get("storedBytes"));
+				lastDoc_no = Integer.parseInt(resultMap.get("lastDoc_no"));
+				
+				if(migrated < chunkSize) {
+					done = true;
+					break;
+				}
+			}
+			
+			// 이번에 옮긴 것
+			jsonObj.put("n", n);
+			jsonObj.put("lastDoc_no", lastDoc_no);
+			jsonObj.put("done", done);
+			jsonObj.put("rawBytes", rawBytes);
+			jsonObj.put("storedBytes", storedBytes);
+			jsonObj.put("savedBytes", rawBytes - storedBytes);
+			
+			// 지금까지 옮긴 것 전체
+			Map<String, String> statsMap = bodyService.getBodyStats();
+			jsonObj.put("totalCnt", statsMap.get("cnt"));
+			jsonObj.put("totalRawBytes", statsMap.get("rawBytes"));
+			jsonObj.put("totalStoredBytes", statsMap.get("storedBytes"));
+			jsonObj.put("totalSavedBytes", Long.parseLong(statsMap.get("rawBytes")) - Long.parseLong(statsMap.get("storedBytes")));
+			jsonObj.put("remainCnt", statsMap.get("remainCnt"));
+			
+			return jsonObj.toString();
+		}
+		
+		
+		// 완료문서 내보내기 (감사용 ZIP, 관리자만)
+		// startDate, endDate(yyyy-mm-dd) 는 작성일 기간, fromDoc_no, toDoc_no 는 문서번호 범위이다. (모두 생략 가능)
+		// 중간에 끊긴 경우에는 받은 ZIP 의 마지막 문서번호 + 1 을 fromDoc_no 로 다시 요청하면 이어서 받을 수 있다.
+		@RequestMapping(value = "/workflow/exportArchive.pm")
+		public void exportArchive(HttpServletRequest request, HttpServletResponse response) {
+			
+			HttpSession session = request.getSession();
+			EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+			
+			String startDate = request.getParameter("startDate");
+			String endDate = request.getParameter("endDate");
+			String fromDoc_no = request.getParameter("fromDoc_no");
+			String toDoc_no = request.getParameter("toDoc_no");
+			
+			try {
+				
+				String message = null;
+				
+				if(loginuser == null || !"9999".equals(loginuser.getEmpno())) { // 관리자 아이디가 아닐때
+					message = "관리자만 사용할 수 있습니다.";
+				}
+				else if( !isBlankOrMatch(startDate, "^\\d{4}-\\d{2}-\\d{2}$") || !isBlankOrMatch(endDate, "^\\d{4}-\\d{2}-\\d{2}$")
+				      || !isBlankOrMatch(fromDoc_no, "^\\d{1,9}$") || !isBlankOrMatch(toDoc_no, "^\\d{1,9}$") ) {
+					message = "기간(yyyy-mm-dd) 또는 문서번호가 올바르지 않습니다.";
+				}
+				
+				if(message != null) {
+					response.setContentType("text/html; charset=UTF-8");
+					PrintWriter out = response.getWriter();
+					out.println("<script type='text/javascript'>alert('" + message + "'); history.back();</script>");
+					return;
+				}
+				
+				Map<String,String> paraMap = new HashMap<>();
+				paraMap.put("startDate", startDate);
+				paraMap.put("endDate", endDate);
+				paraMap.put("fromDoc_no", fromDoc_no);
+				paraMap.put("toDoc_no", toDoc_no);
+				
+				String zipName = "workflow_archive"
+				               + (fromDoc_no == null || "".equals(fromDoc_no) ? "" : "_" + fromDoc_no)
+				               + (startDate == null || "".equals(startDate) ? "" : "_" + startDate.replace("-", ""))
+				               + (endDate == null || "".equals(endDate) ? "" : "_" + endDate.replace("-", ""))
+				               + ".zip";
+				
+				response.setContentType("application/zip");
+				response.setHeader("Content-Disposition", "attachment; filename=\"" + zipName + "\"");
+				
+				exportService.exportArchive(paraMap, response.getOutputStream());
+				
+			} catch (IOException e) {
+				// 받는 쪽에서 끊은 경우 등
+				e.printStackTrace();
+			}
+		}
+		
+		// 문서 수정이력(판) 목록 (작성자, 결재라인에 있는 사람, 관리자만)
+		@ResponseBody
+		@RequestMapping(value = "/workflow/getRevisionList.pm", method = {RequestMethod.GET}, produces = "text/plain;charset=UTF-8")
+		public String getRevisionList(HttpServletRequest request) {
+			
+			String doc_no = request.getParameter("doc_no");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(!canViewRevision(request, doc_no)) {
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "문서를 볼 수 있는 사람만 수정이력을 볼 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			List<DocumentRevisionVO> revisionList = revisionService.getRevisionList(doc_no);
+			
+			JSONArray jsonArr = new JSONArray();
+			
+			for(DocumentRevisionVO revvo : revisionList) {
+				JSONObject revObj = new JSONObject();
+				revObj.put("revno", revvo.getRevno());
+				revObj.put("is_snapshot", revvo.getIs_snapshot());
+				revObj.put("raw_size", revvo.getRaw_size());
+				revObj.put("stored_size", revvo.getStored_size());
+				revObj.put("fk_empno", revvo.getFk_empno());
+				revObj.put("name", revvo.getName());
+				revObj.put("regdate", revvo.getRegdate());
+				jsonArr.put(revObj);
+			}
+			
+			jsonObj.put("n", revisionList.size());
+			jsonObj.put("revisionList", jsonArr);
+			
+			return jsonObj.toString();
+		}
+		
+		
+		// 문서의 revno 판 문서내용 보기 (가장 가까운 전체 판 + 차이 최대 9개로 다시 만든다)
+		@ResponseBody
+		@RequestMapping(value = "/workflow/getRevision.pm", method = {RequestMethod.GET}, produces = "text/plain;charset=UTF-8")
+		public String getRevision(HttpServletRequest request) {
+			
+			String doc_no = request.getParameter("doc_no");
+			String revno = request.getParameter("revno");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(revno == null || !revno.matches("^\\d{1,9}$")) {
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "판 번호가 올바르지 않습니다.");
+				return jsonObj.toString();
+			}
+			
+			if(!canViewRevision(request, doc_no)) {
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "문서를 볼 수 있는 사람만 수정이력을 볼 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			DocumentRevisionVO revvo = revisionService.getRevision(doc_no, Integer.parseInt(revno));
+			
+			if(revvo == null) {
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "없는 판입니다.");
+				return jsonObj.toString();
+			}
+			
+			jsonObj.put("n", 1);
+			jsonObj.put("doc_no", doc_no);
+			jsonObj.put("revno", revvo.getRevno());
+			jsonObj.put("name", revvo.getName());
+			jsonObj.put("regdate", revvo.getRegdate());
+			jsonObj.put("doc_contents", revvo.getContents());
+			
+			return jsonObj.toString();
+		}
+		
+		// 수정이력을 볼 수 있는 사람인지 (관리자, 작성자, 결재라인에 있는 사람)
+		private boolean canViewRevision(HttpServletRequest request, String doc_no) {
+			
+			HttpSession session = request.getSession();
+			EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+			
+			if(loginuser == null || doc_no == null || !doc_no.matches("^\\d{1,9}$")) {
+				return false;
+			}
+			
+			String empno = loginuser.getEmpno();
+			
+			if("9999".equals(empno)) {
+				return true;
+			}
+			
+			DocumentDetailVO detailvo = detailService.getDocumentDetail(doc_no);
+			
+			return detailvo != null && (detailvo.isWriter(empno) || detailvo.getMyApproval(empno) != null);
+		}
+		
+		// 결재 소요시간(SLA) 통계 (관리자만)
+		// 부서별(byDept), 결재 단계별(byLevel), 부서+단계별(byDeptLevel) 건수, 평균, p50, p95, 최소, 최대 (초)
+		// 결재할 때마다 쌓아둔 집계만 읽으므로 결재 테이블을 훑지 않는다. (p50, p95 는 2% 이내 오차의 추정값)
+		@ResponseBody
+		@RequestMapping(value = "/workflow/approvalSla.pm", method = {RequestMethod.GET}, produces = "text/plain;charset=UTF-8")
+		public String approvalSla(HttpServletRequest request) {
+			
+			HttpSession session = request.getSession();
+			EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(loginuser == null || !"9999".equals(loginuser.getEmpno())) { // 관리자 아이디가 아닐때
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "관리자만 사용할 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			Map<String, List<Map<String, String>>> statsMap = slaService.getStats();
+			
+			jsonObj.put("n", 1);
+			jsonObj.put("byDept", new JSONArray(statsMap.get("byDept")));
+			jsonObj.put("byLevel", new JSONArray(statsMap.get("byLevel")));
+			jsonObj.put("byDeptLevel", new JSONArray(statsMap.get("byDeptLevel")));
+			
+			return jsonObj.toString();
+		}
+		
+		
+		// 결재 소요시간 집계를 결재 테이블에서 다시 만들기 (관리자만, 처음 한번 또는 집계가 어긋났을 때)
+		@ResponseBody
+		@RequestMapping(value = "/workflow/rebuildApprovalSla.pm", method = {RequestMethod.POST}, produces = "text/plain;charset=UTF-8")
+		public String rebuildApprovalSla(HttpServletRequest request) {
+			
+			HttpSession session = request.getSession();
+			EmpVO loginuser = (EmpVO) session.getAttribute("loginuser");
+			
+			JSONObject jsonObj = new JSONObject();
+			
+			if(loginuser == null || !"9999".equals(loginuser.getEmpno())) { // 관리자 아이디가 아닐때
+				jsonObj.put("n", 0);
+				jsonObj.put("message", "관리자만 사용할 수 있습니다.");
+				return jsonObj.toString();
+			}
+			
+			jsonObj.put("n", slaService.rebuild());
+			
+			return jsonObj.toString();
+		}
+		
+		private boolean isBlankOrMatch(String str, String regex) {
+			return str == null || "".equals(str) || str.matches(regex);
+		}
 
 }
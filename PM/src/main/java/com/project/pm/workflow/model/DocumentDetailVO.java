@@ -0,0 +1,95 @@
+package com.project.pm.workflow.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// 문서 상세보기 한번에 가져오기 (문서 + 결재라인 전체 + 히스토리)
+// 보는 사람마다 달라지는 값(작성자 여부, 전단계 결재여부 등)은 여기서 계산한다.
+@Setter
+@Getter
+public class DocumentDetailVO {
+
+	private Map<String, String> document;										// 문서 + 작성자 정보
+	private List<Map<String, String>> approvalList = new ArrayList<>();		// 결재라인 (levelno 순)
+	private List<Map<String, String>> historyList = new ArrayList<>();		// 히스토리
+	private long loadTime;														// 가져온 시각(캐시 만료 확인용)
+	
+	
+	// 작성자인지 아닌지
+	public boolean isWriter(String empno) {
+		return empno != null && empno.equals(document.get("fk_writer_empno"));
+	}
+	
+	// 내 결재 정보 (결재라인에 없으면 null)
+	public Map<String, String> getMyApproval(String empno) {
+		for(Map<String, String> app : approvalList) {
+			if(app.get("fk_senior_empno").equals(empno)) {
+				return app;
+			}
+		}
+		return null;
+	}
+	
+	// 결재라인 이름 (이름순, 중복제거) 결재라인이 없으면 null
+	public String getAppName() {
+		TreeSet<String> nameSet = new TreeSet<>();
+		for(Map<String, String> app : approvalList) {
+			if(app.get("senior_name") != null) {
+				nameSet.add(app.get("senior_name"));
+			}
+		}
+		return nameSet.isEmpty() ? null : String.join(",", nameSet);
+	}
+	
+	// 결재라인 수
+	public int getFinalCnt() {
+		String appName = getAppName();
+		return appName == null ? 0 : appName.split(",").length;
+	}
+	
+	// 해당 단계 결재자의 결재여부 (그 단계 결재자가 없으면 null)
+	public String getPrestepApproval(int prelevelno) {
+		for(Map<String, String> app : approvalList) {
+			if(String.valueOf(prelevelno).equals(app.get("levelno"))) {
+				return app.get("approval");
+			}
+		}
+		return null;
+	}
+	
+	// 나를 뺀 결재자 중에 반려(2)한 사람이 있는지
+	public boolean hasDeny(String empno) {
+		for(Map<String, String> app : approvalList) {
+			if(!app.get("fk_senior_empno").equals(empno) && "2".equals(app.get("approval"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	// 승인(1) 또는 반려(2)된 가장 높은 결재단계 (없으면 null)
+	public String getApprovalStep() {
+		int step = 0;
+		for(Map<String, String> app : approvalList) {
+			if("1".equals(app.get("approval")) || "2".equals(app.get("approval"))) {
+				step = Math.max(step, Integer.parseInt(app.get("levelno")));
+			}
+		}
+		return step == 0 ? null : String.valueOf(step);
+	}
+	
+	// 마지막 결재단계
+	public int getLastLevelno() {
+		int last = 0;
+		for(Map<String, String> app : approvalList) {
+			last = Math.max(last, Integer.parseInt(app.get("levelno")));
+		}
+		return last;
+	}
+	
+}
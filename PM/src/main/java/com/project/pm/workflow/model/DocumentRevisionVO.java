@@ -0,0 +1,24 @@
+package com.project.pm.workflow.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@ToString
+public class DocumentRevisionVO {
+	
+	private int fk_doc_no;			// 문서번호
+	private int revno;				// 판 번호 (1 부터)
+	private String is_snapshot;		// '1' 이면 문서내용 전체, '0' 이면 앞 판과의 차이(delta)
+	private byte[] payload;			// deflate 로 압축한 문서내용 또는 delta
+	private int raw_size;			// 이 판의 문서내용 크기(byte, UTF-8)
+	private int stored_size;		// 압축 후 payload 크기(byte)
+	private String fk_empno;		// 수정한 사원번호
+	private String name;			// 수정한 사원명
+	private String regdate;			// 수정일자 (yyyy-MM-dd HH:mm:ss)
+	
+	private String contents;		// 다시 만든 이 판의 문서내용 (select 시에만)
+
+}
@@ -26,6 +26,12 @@ public class DocumentVO {
 	private String deptno; // 부서 번호
 	private String name; //작성자 이름
 	private String contents; // 히스토리 테이블 내용
+	private int approval_cnt; // 상신된 결재라인 수
+	
+	private String doc_preview;   // 목록에 보여줄 문서내용 첫줄 (tbl_documents)
+	private byte[] doc_body;      // deflate 로 압축한 문서내용 (tbl_document_body)
+	private int raw_size;         // 압축 전 문서내용 크기(byte, UTF-8)
+	private int stored_size;      // 압축 후 문서내용 크기(byte)
 	
 	private MultipartFile attach;
 
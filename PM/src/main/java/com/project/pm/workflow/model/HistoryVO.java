@@ -0,0 +1,18 @@
+package com.project.pm.workflow.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@ToString
+public class HistoryVO {
+	
+	private long history_id;				// 히스토리 번호 (중복 insert 방지용)
+	private String fk_history_doc_no;		// 문서번호
+	private String emp_name;				// 사원명
+	private String contents;				// 내용
+	private String historyDate;				// 작성일자 (yyyy-MM-dd HH:mm:ss)
+
+}
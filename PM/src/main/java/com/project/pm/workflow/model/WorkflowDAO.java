@@ -3,6 +3,8 @@ package com.project.pm.workflow.model;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.cursor.Cursor;
+
 public interface WorkflowDAO {
 	//참조할 사람 목록 알아오기
 		List<Map<String, String>> appList(Map<String, String> paraMap);
@@ -74,11 +76,137 @@ public interface WorkflowDAO {
 		//작성할때 히스토리 넣어주기
 		int insertHistory(DocumentVO docvo);
 
+		//모아둔 히스토리 한번에 넣어주기
+		int insertHistoryBatch(List<HistoryVO> historyList);
+
+		//히스토리 번호 100개 받기 (받은 번호 ~ 받은 번호 + 99)
+		long getHistoryIdBlock();
+
+		//DB 에 연결되는지
+		int pingHistoryDb();
+
 		//히스토리 가져오기
 		List<Map<String, String>> getHistory(String doc_no);
 
 		//내 레벨 알아오기
 		int getMylevelno(Map<String, String> paraMap);
+
+		//문서 상세보기 한번에 가져오기(문서 + 작성자 + 결재라인 전체)
+		List<Map<String, String>> getDocumentView(String doc_no);
+
+		//진행중 문서함 리스트 (결재함 테이블)
+		List<Map<String, String>> getInboxList(Map<String, String> paraMap);
+
+		//진행중 문서함 총수 (결재함 테이블)
+		int getInboxCount(String empno);
+
+		//완료된 문서를 진행중 문서함에서 빼기
+		int deleteInbox(String doc_no);
+
+		//진행중 문서함 다시 만들기 (지우고 원본 테이블에서 다시 넣기)
+		int rebuildInbox();
+
+		//승인,반려 한번에 처리하기(조건부 update, 결과 건수는 paraMap 의 n 에 담겨온다)
+		void approveStep(Map<String, String> paraMap);
+
+		//일괄 결재할 문서들이 내 결재 차례인지 한번에 알아오기
+		List<Map<String, String>> checkBulkApproval(Map<String, Object> paraMap);
+
+		//일괄 승인,반려 한번에 처리하기 (실제로 결재된 문서번호는 paraMap 의 doneList 에 담겨온다)
+		void bulkApproveStep(Map<String, Object> paraMap);
+
+		//결재된 문서들의 다음 단계 결재자 알아오기
+		List<Map<String, String>> getNextApprovers(Map<String, Object> paraMap);
+
+		//글작성 + 결재 상신 + 히스토리 작성 한번에 하기 (문서번호, 결재라인 수는 docvo 에 담겨온다)
+		void submitDocument(DocumentVO docvo);
 	
 
+		//압축한 문서내용 넣기
+		int insertDocumentBody(DocumentVO docvo);
+
+		//압축한 문서내용 지우기 (수정시 다시 넣는다)
+		int deleteDocumentBody(String doc_no);
+
+		//압축한 문서내용 가져오기
+		DocumentVO getDocumentBody(String doc_no);
+
+		//아직 압축 테이블로 옮기지 않은 예전 문서 가져오기
+		List<DocumentVO> getUncompressedDocuments(Map<String, String> paraMap);
+
+		//압축한 문서내용 여러건 한번에 넣기
+		int insertDocumentBodyList(List<DocumentVO> docList);
+
+		//옮긴 문서의 doc_contents 비우고 목록용 첫줄 넣기
+		int clearDocumentContents(List<DocumentVO> docList);
+
+		//압축 테이블 현황
+		Map<String, String> getDocumentBodyStats();
+
+		//부서 결재라인 알아오기 (작성자를 빼기 전)
+		List<Map<String, String>> getDeptApprovalLine(String deptno);
+
+		//결재라인 캐시 미리 읽어둘 부서번호 목록
+		List<String> getApprovalDeptnoList();
+
+		//문서 1개의 결재상태 알아오기
+		List<Map<String, String>> getApprovalStatusList(String doc_no);
+
+		//마감일 임박 알림과 보낸기록 한번에 넣기 (넣은 행 수 = 알림 수 * 2)
+		int insertDdayReminders(Map<String, String> paraMap);
+
+		//내보낼 완료문서 (문서번호순 커서, 트랜잭션 안에서만 읽을 수 있다)
+		Cursor<DocumentVO> exportDocuments(Map<String, String> paraMap);
+
+		//내보낼 완료문서의 결재라인 (문서번호, 단계순 커서)
+		Cursor<Map<String, String>> exportApprovals(Map<String, String> paraMap);
+
+		//내보낼 완료문서의 히스토리 (문서번호, 작성일자순 커서)
+		Cursor<Map<String, String>> exportHistory(Map<String, String> paraMap);
+
+		//문서함 건수 알아오기 (empno, folder = wait/done/my)
+		int getFolderCount(Map<String, String> paraMap);
+
+		//문서함 건수를 원본 테이블 기준으로 고치기 (고친 건수 리턴)
+		int repairFolderCounter();
+
+		//문서 판 넣기
+		int insertRevision(DocumentRevisionVO revvo);
+
+		//수정 전 문서내용 가져오기 (문서 행을 잠근다)
+		DocumentVO getCurrentBodyForUpdate(String doc_no);
+
+		//문서의 마지막 판 번호 알아오기 (판이 없으면 0)
+		int getLastRevno(String doc_no);
+
+		//문서의 판 목록 (문서내용 없이)
+		List<DocumentRevisionVO> getRevisionList(String doc_no);
+
+		//revno 판을 다시 만들기 위한 판들 (가장 가까운 snapshot ~ revno, 판 번호순)
+		List<DocumentRevisionVO> getRevisionChain(Map<String, String> paraMap);
+
+		//방금 끝난 결재 단계들의 소요시간 알아오기 (stepList : doc_no, levelno)
+		List<Map<String, String>> getApprovalStepTimes(List<Map<String, String>> stepList);
+
+		//끝난 결재 단계 전체의 소요시간 (커서, 트랜잭션 안에서만 읽을 수 있다)
+		Cursor<Map<String, String>> getAllApprovalStepTimes();
+
+		//결재 소요시간 집계 더하기
+		int mergeApprovalSla(List<Map<String, String>> slaList);
+
+		//결재 소요시간 칸별 건수 더하기
+		int mergeApprovalSlaBucket(List<Map<String, String>> bucketList);
+
+		//결재 소요시간 집계 비우기
+		int clearApprovalSla();
+
+		//결재 소요시간 칸별 건수 비우기
+		int clearApprovalSlaBucket();
+
+		//결재 소요시간 집계 가져오기 (부서, 단계별)
+		List<Map<String, String>> getApprovalSla();
+
+		//결재 소요시간 칸별 건수 가져오기 (부서, 단계별)
+		List<Map<String, String>> getApprovalSlaBucket();
+
 }
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import javax.annotation.Resource;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.springframework.stereotype.Repository;
 
@@ -184,6 +185,27 @@ public class WorkflowDAOImp implements WorkflowDAO{
 		return insertHistory;
 	}
 
+	//모아둔 히스토리 한번에 넣어주기
+	@Override
+	public int insertHistoryBatch(List<HistoryVO> historyList) {
+		int n = sqlsession.insert("workflow.insertHistoryBatch", historyList);
+		return n;
+	}
+
+	//히스토리 번호 100개 받기
+	@Override
+	public long getHistoryIdBlock() {
+		long history_id = sqlsession.selectOne("workflow.getHistoryIdBlock");
+		return history_id;
+	}
+
+	//DB 에 연결되는지
+	@Override
+	public int pingHistoryDb() {
+		int n = sqlsession.selectOne("workflow.pingHistoryDb");
+		return n;
+	}
+
 	//히스토리 가져오기
 	@Override
 	public List<Map<String, String>> getHistory(String doc_no) {
@@ -198,4 +220,271 @@ public class WorkflowDAOImp implements WorkflowDAO{
 		return myLevelno;
 	}
 
+	//글작성 + 결재 상신 + 히스토리 작성 한번에 하기
+	@Override
+	public void submitDocument(DocumentVO docvo) {
+		sqlsession.insert("workflow.submitDocument", docvo);
+	}
+
+	//문서 상세보기 한번에 가져오기(문서 + 작성자 + 결재라인 전체)
+	@Override
+	public List<Map<String, String>> getDocumentView(String doc_no) {
+		List<Map<String, String>> rowList = sqlsession.selectList("workflow.getDocumentView", doc_no);
+		return rowList;
+	}
+
+	//진행중 문서함 리스트 (결재함 테이블)
+	@Override
+	public List<Map<String, String>> getInboxList(Map<String, String> paraMap) {
+		List<Map<String, String>> inboxList = sqlsession.selectList("workflow.getInboxList", paraMap);
+		return inboxList;
+	}
+
+	//진행중 문서함 총수 (결재함 테이블)
+	@Override
+	public int getInboxCount(String empno) {
+		int inboxCount = sqlsession.selectOne("workflow.getInboxCount", empno);
+		return inboxCount;
+	}
+
+	//완료된 문서를 진행중 문서함에서 빼기
+	@Override
+	public int deleteInbox(String doc_no) {
+		int n = sqlsession.delete("workflow.deleteInbox", doc_no);
+		return n;
+	}
+
+	//진행중 문서함 다시 만들기 (지우고 원본 테이블에서 다시 넣기)
+	@Override
+	public int rebuildInbox() {
+		sqlsession.delete("workflow.deleteAllInbox");
+		int n = sqlsession.insert("workflow.rebuildInbox");
+		return n;
+	}
+
+	//승인,반려 한번에 처리하기(조건부 update)
+	@Override
+	public void approveStep(Map<String, String> paraMap) {
+		sqlsession.update("workflow.approveStep", paraMap);
+	}
+
+	//일괄 결재할 문서들이 내 결재 차례인지 한번에 알아오기
+	@Override
+	public List<Map<String, String>> checkBulkApproval(Map<String, Object> paraMap) {
+		List<Map<String, String>> checkList = sqlsession.selectList("workflow.checkBulkApproval", paraMap);
+		return checkList;
+	}
+
+	//일괄 승인,반려 한번에 처리하기
+	@Override
+	public void bulkApproveStep(Map<String, Object> paraMap) {
+		sqlsession.update("workflow.bulkApproveStep", paraMap);
+	}
+
+	//결재된 문서들의 다음 단계 결재자 알아오기
+	@Override
+	public List<Map<String, String>> getNextApprovers(Map<String, Object> paraMap) {
+		List<Map<String, String>> nextApproverList = sqlsession.selectList("workflow.getNextApprovers", paraMap);
+		return nextApproverList;
+	}
+
+	//압축한 문서내용 넣기
+	@Override
+	public int insertDocumentBody(DocumentVO docvo) {
+		int n = sqlsession.insert("workflow.insertDocumentBody", docvo);
+		return n;
+	}
+
+	//압축한 문서내용 지우기
+	@Override
+	public int deleteDocumentBody(String doc_no) {
+		int n = sqlsession.delete("workflow.deleteDocumentBody", doc_no);
+		return n;
+	}
+
+	//압축한 문서내용 가져오기
+	@Override
+	public DocumentVO getDocumentBody(String doc_no) {
+		DocumentVO bodyvo = sqlsession.selectOne("workflow.getDocumentBody", doc_no);
+		return bodyvo;
+	}
+
+	//아직 압축 테이블로 옮기지 않은 예전 문서 가져오기
+	@Override
+	public List<DocumentVO> getUncompressedDocuments(Map<String, String> paraMap) {
+		List<DocumentVO> docList = sqlsession.selectList("workflow.getUncompressedDocuments", paraMap);
+		return docList;
+	}
+
+	//압축한 문서내용 여러건 한번에 넣기
+	@Override
+	public int insertDocumentBodyList(List<DocumentVO> docList) {
+		int n = sqlsession.insert("workflow.insertDocumentBodyList", docList);
+		return n;
+	}
+
+	//옮긴 문서의 doc_contents 비우고 목록용 첫줄 넣기
+	@Override
+	public int clearDocumentContents(List<DocumentVO> docList) {
+		int n = sqlsession.update("workflow.clearDocumentContents", docList);
+		return n;
+	}
+
+	//압축 테이블 현황
+	@Override
+	public Map<String, String> getDocumentBodyStats() {
+		Map<String, String> statsMap = sqlsession.selectOne("workflow.getDocumentBodyStats");
+		return statsMap;
+	}
+
+	//부서 결재라인 알아오기 (작성자를 빼기 전)
+	@Override
+	public List<Map<String, String>> getDeptApprovalLine(String deptno) {
+		List<Map<String, String>> line = sqlsession.selectList("workflow.getDeptApprovalLine", deptno);
+		return line;
+	}
+
+	//결재라인 캐시 미리 읽어둘 부서번호 목록
+	@Override
+	public List<String> getApprovalDeptnoList() {
+		List<String> deptnoList = sqlsession.selectList("workflow.getApprovalDeptnoList");
+		return deptnoList;
+	}
+
+	//문서 1개의 결재상태 알아오기
+	@Override
+	public List<Map<String, String>> getApprovalStatusList(String doc_no) {
+		List<Map<String, String>> statusList = sqlsession.selectList("workflow.getApprovalStatusList", doc_no);
+		return statusList;
+	}
+
+	//마감일 임박 알림과 보낸기록 한번에 넣기
+	@Override
+	public int insertDdayReminders(Map<String, String> paraMap) {
+		int n = sqlsession.insert("workflow.insertDdayReminders", paraMap);
+		return n;
+	}
+
+	//내보낼 완료문서 (문서번호순 커서)
+	@Override
+	public Cursor<DocumentVO> exportDocuments(Map<String, String> paraMap) {
+		return sqlsession.selectCursor("workflow.exportDocuments", paraMap);
+	}
+
+	//내보낼 완료문서의 결재라인
+	@Override
+	public Cursor<Map<String, String>> exportApprovals(Map<String, String> paraMap) {
+		return sqlsession.selectCursor("workflow.exportApprovals", paraMap);
+	}
+
+	//내보낼 완료문서의 히스토리
+	@Override
+	public Cursor<Map<String, String>> exportHistory(Map<String, String> paraMap) {
+		return sqlsession.selectCursor("workflow.exportHistory", paraMap);
+	}
+
+	//문서함 건수 알아오기
+	@Override
+	public int getFolderCount(Map<String, String> paraMap) {
+		int cnt = sqlsession.selectOne("workflow.getFolderCount", paraMap);
+		return cnt;
+	}
+
+	//문서함 건수를 원본 테이블 기준으로 고치기
+	@Override
+	public int repairFolderCounter() {
+		int n = sqlsession.update("workflow.repairFolderCounter");
+		return n;
+	}
+
+	//문서 판 넣기
+	@Override
+	public int insertRevision(DocumentRevisionVO revvo) {
+		int n = sqlsession.insert("workflow.insertRevision", revvo);
+		return n;
+	}
+
+	//수정 전 문서내용 가져오기 (문서 행을 잠근다)
+	@Override
+	public DocumentVO getCurrentBodyForUpdate(String doc_no) {
+		DocumentVO bodyvo = sqlsession.selectOne("workflow.getCurrentBodyForUpdate", doc_no);
+		return bodyvo;
+	}
+
+	//문서의 마지막 판 번호 알아오기
+	@Override
+	public int getLastRevno(String doc_no) {
+		int revno = sqlsession.selectOne("workflow.getLastRevno", doc_no);
+		return revno;
+	}
+
+	//문서의 판 목록
+	@Override
+	public List<DocumentRevisionVO> getRevisionList(String doc_no) {
+		List<DocumentRevisionVO> revisionList = sqlsession.selectList("workflow.getRevisionList", doc_no);
+		return revisionList;
+	}
+
+	//revno 판을 다시 만들기 위한 판들
+	@Override
+	public List<DocumentRevisionVO> getRevisionChain(Map<String, String> paraMap) {
+		List<DocumentRevisionVO> chain = sqlsession.selectList("workflow.getRevisionChain", paraMap);
+		return chain;
+	}
+
+	//방금 끝난 결재 단계들의 소요시간 알아오기
+	@Override
+	public List<Map<String, String>> getApprovalStepTimes(List<Map<String, String>> stepList) {
+		List<Map<String, String>> timeList = sqlsession.selectList("workflow.getApprovalStepTimes", stepList);
+		return timeList;
+	}
+
+	//끝난 결재 단계 전체의 소요시간
+	@Override
+	public Cursor<Map<String, String>> getAllApprovalStepTimes() {
+		return sqlsession.selectCursor("workflow.getAllApprovalStepTimes");
+	}
+
+	//결재 소요시간 집계 더하기
+	@Override
+	public int mergeApprovalSla(List<Map<String, String>> slaList) {
+		int n = sqlsession.update("workflow.mergeApprovalSla", slaList);
+		return n;
+	}
+
+	//결재 소요시간 칸별 건수 더하기
+	@Override
+	public int mergeApprovalSlaBucket(List<Map<String, String>> bucketList) {
+		int n = sqlsession.update("workflow.mergeApprovalSlaBucket", bucketList);
+		return n;
+	}
+
+	//결재 소요시간 집계 비우기
+	@Override
+	public int clearApprovalSla() {
+		int n = sqlsession.delete("workflow.clearApprovalSla");
+		return n;
+	}
+
+	//결재 소요시간 칸별 건수 비우기
+	@Override
+	public int clearApprovalSlaBucket() {
+		int n = sqlsession.delete("workflow.clearApprovalSlaBucket");
+		return n;
+	}
+
+	//결재 소요시간 집계 가져오기
+	@Override
+	public List<Map<String, String>> getApprovalSla() {
+		List<Map<String, String>> slaList = sqlsession.selectList("workflow.getApprovalSla");
+		return slaList;
+	}
+
+	//결재 소요시간 칸별 건수 가져오기
+	@Override
+	public List<Map<String, String>> getApprovalSlaBucket() {
+		List<Map<String, String>> bucketList = sqlsession.selectList("workflow.getApprovalSlaBucket");
+		return bucketList;
+	}
+
 }
@@ -0,0 +1,17 @@
+package com.project.pm.workflow.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ApprovalLineService {
+
+	// 결재라인 알아오기 (appList 와 같은 결과, 부서별 결재라인은 캐시에서)
+	List<Map<String, String>> appList(Map<String, String> paraMap);
+
+	// 부서 결재라인 캐시 비우기 (인사발령, 구성원 등록, 퇴직 처리시)
+	void invalidate();
+
+	// 전체 부서 결재라인 미리 읽어두기
+	void warmUp();
+
+}
@@ -0,0 +1,161 @@
+package com.project.pm.workflow.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.project.pm.workflow.model.WorkflowDAO;
+
+// 결재라인 캐시
+// 부서의 결재라인(팀장, 부서장 ...)은 부서트리와 부서매핑으로만 정해지므로 부서번호별로 들고 있는다.
+// 인사발령/구성원 등록/엑셀 등록시에는 전체를 비운다. (상위부서가 바뀌면 하위부서 결재라인도 모두 바뀌므로)
+// 퇴직한 사원은 결재라인 조회(getDeptApprovalLine)에서 빠지므로, 퇴직 처리를 만들면 거기서도 invalidate() 를 불러야 한다.
+@Service
+public class ApprovalLineServiceImp implements ApprovalLineService {
+
+	@Autowired
+	private WorkflowDAO dao;
+	
+	// 부서번호별 결재라인 (작성자를 빼기 전, levelno 순)
+	private final Map<String, List<Map<String, String>>> lineMap = new ConcurrentHashMap<>();
+	
+	// 캐시를 비울때마다 올라간다 (조회하는 중에 비워진 경우 조회한 결과를 넣지 않기 위해)
+	private final AtomicLong generation = new AtomicLong();
+	
+	
+	// 결재라인 알아오기
+	// doc_no 가 없으면 부서 결재라인에서 작성자를 뺀 것,
+	// doc_no 가 있으면 거기에 그 문서의 결재상태(approval, approval_day, approval_no, 넣을 때 매긴 levelno)를 붙인 것이다.
+	@Override
+	public List<Map<String, String>> appList(Map<String, String> paraMap) {
+		
+		String empno = paraMap.get("empno");
+		String doc_no = paraMap.get("doc_no");
+		
+		List<Map<String, String>> appList = new ArrayList<>();
+		
+		List<Map<String, String>> line = getLine(paraMap.get("deptno"));
+		
+		// 상신할 결재라인 : 작성자를 빼고 단계를 1 부터 빈칸 없이 다시 매긴다 (submitDocument 가 넣는 단계와 같게)
+		if(doc_no == null) {
+			int levelno = 0;
+			String prev = null;
+			for(Map<String, String> app : line) {
+				if(app.get("FK_EMPNO").equals(empno)) {
+					continue;
+				}
+				if(!app.get("levelno").equals(prev)) {
+					prev = app.get("levelno");
+					levelno++;
+				}
+				Map<String, String> row = new HashMap<>(app);
+				row.put("levelno", String.valueOf(levelno));
+				appList.add(row);
+			}
+			return appList;
+		}
+		
+		// 문서의 결재상태 (결재자별)
+		Map<String, List<Map<String, String>>> statusMap = new HashMap<>();
+		for(Map<String, String> status : dao.getApprovalStatusList(doc_no)) {
+			statusMap.computeIfAbsent(status.get("fk_senior_empno"), k -> new ArrayList<>()).add(status);
+		}
+		
+		for(Map<String, String> app : line) {
+			
+			if(app.get("FK_EMPNO").equals(empno) || !statusMap.containsKey(app.get("FK_EMPNO"))) {
+				continue;
+			}
+			
+			for(Map<String, String> status : statusMap.get(app.get("FK_EMPNO"))) {
+				Map<String, String> row = new HashMap<>(app);
+				row.put("approval", status.get("approval"));
+				row.put("approval_day", status.get("approval_day"));
+				row.put("approval_no", status.get("approval_no"));
+				row.put("levelno", status.get("levelno")); // 넣을 때 매긴 단계
+				appList.add(row);
+			}
+		}
+		
+		return appList;
+	}
+	
+	
+	// 부서 결재라인 캐시 비우기
+	// 트랜잭션 안에서 불린 경우 커밋 후에 한번 더 비운다 (커밋 전에 다른 사람이 예전 결재라인을 다시 넣었을 수 있으므로)
+	@Override
+	public void invalidate() {
+		
+		clear();
+		
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					clear();
+				}
+			});
+		}
+	}
+	
+	
+	// 기동시 전체 부서 결재라인 미리 읽어두기
+	@Override
+	@PostConstruct
+	public void warmUp() {
+		
+		try {
+			for(String deptno : dao.getApprovalDeptnoList()) {
+				getLine(deptno);
+			}
+		} catch (Exception e) {
+			// DB 에 연결할 수 없어도 기동은 되도록 한다 (처음 조회할 때 다시 읽는다)
+			e.printStackTrace();
+		}
+	}
+	
+	
+	// 부서 결재라인 (캐시에 없으면 DB 에서)
+	private List<Map<String, String>> getLine(String deptno) {
+		
+		if(deptno == null) {
+			return Collections.emptyList();
+		}
+		
+		List<Map<String, String>> line = lineMap.get(deptno);
+		
+		if(line == null) {
+			
+			long gen = generation.get();
+			
+			line = Collections.unmodifiableList(dao.getDeptApprovalLine(deptno));
+			
+			if(gen == generation.get()) {
+				lineMap.put(deptno, line);
+				
+				if(gen != generation.get()) {
+					lineMap.remove(deptno); // 넣는 사이에 비워진 경우
+				}
+			}
+		}
+		
+		return line;
+	}
+	
+	private void clear() {
+		generation.incrementAndGet();
+		lineMap.clear();
+	}
+
+}
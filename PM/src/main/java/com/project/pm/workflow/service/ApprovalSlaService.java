@@ -0,0 +1,17 @@
+package com.project.pm.workflow.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ApprovalSlaService {
+
+	// 방금 끝난 결재 단계들의 소요시간을 집계에 더하기 (stepList : doc_no, levelno)
+	void record(List<Map<String, String>> stepList);
+
+	// 집계를 tbl_approval 에서 다시 만들기 (처음 한번 또는 집계가 어긋났을 때, 관리자만), 집계한 결재 단계 수 리턴
+	int rebuild();
+
+	// 부서별(byDept), 결재 단계별(byLevel), 부서+단계별(byDeptLevel) 결재 소요시간 (건수, 평균, p50, p95, 최소, 최대 : 초)
+	Map<String, List<Map<String, String>>> getStats();
+
+}
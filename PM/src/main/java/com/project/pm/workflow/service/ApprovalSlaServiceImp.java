@@ -0,0 +1,207 @@
+package com.project.pm.workflow.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.pm.common.QuantileSketch;
+import com.project.pm.workflow.model.WorkflowDAO;
+
+// 결재 소요시간(SLA) 집계
+// 결재 단계가 끝날 때마다 결재 트랜잭션 안에서 그 단계의 소요시간을 (작성자 부서, 결재 단계)별 집계에 더한다.
+// 집계는 건수/합계/최소/최대와 QuantileSketch 칸별 건수이고, 칸별 건수는 더하기만 하면 합쳐지므로
+// 부서별, 단계별 통계는 (부서, 단계)별 집계를 읽어서 합치기만 하면 된다. 조회할 때 tbl_approval 은 읽지 않는다.
+@Service
+public class ApprovalSlaServiceImp implements ApprovalSlaService {
+
+	// merge 한 문장에 넣을 최대 행 수
+	private static final int MERGE_CHUNK = 200;
+
+	@Autowired
+	private WorkflowDAO dao;
+
+
+	// 방금 끝난 결재 단계들의 소요시간을 집계에 더하기 (결재와 같은 트랜잭션)
+	@Override
+	public void record(List<Map<String, String>> stepList) {
+
+		if(stepList == null || stepList.size() == 0) {
+			return;
+		}
+
+		Map<String, QuantileSketch> sketchMap = new TreeMap<>();
+
+		for(Map<String, String> time : dao.getApprovalStepTimes(stepList)) {
+			add(sketchMap, time);
+		}
+
+		write(sketchMap);
+	}
+
+
+	// 집계를 tbl_approval 에서 다시 만들기
+	@Override
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+	public int rebuild() {
+
+		dao.clearApprovalSla();
+		dao.clearApprovalSlaBucket();
+
+		Map<String, QuantileSketch> sketchMap = new TreeMap<>();
+		int cnt = 0;
+
+		try (Cursor<Map<String, String>> cursor = dao.getAllApprovalStepTimes()) {
+			for(Map<String, String> time : cursor) {
+				add(sketchMap, time);
+				cnt++;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("결재 소요시간 읽기 실패", e);
+		}
+
+		write(sketchMap);
+
+		return cnt;
+	}
+
+
+	// 부서별, 결재 단계별, 부서+단계별 결재 소요시간
+	@Override
+	public Map<String, List<Map<String, String>>> getStats() {
+
+		Map<String, QuantileSketch> deptLevelMap = new TreeMap<>();
+		Map<String, String> deptnameMap = new HashMap<>();
+
+		for(Map<String, String> sla : dao.getApprovalSla()) {
+			QuantileSketch sketch = deptLevelMap.computeIfAbsent(key(sla.get("deptno"), sla.get("levelno")), k -> new QuantileSketch());
+			sketch.addSummary(Long.parseLong(sla.get("cnt")), Long.parseLong(sla.get("sum_sec")),
+			                  Long.parseLong(sla.get("min_sec")), Long.parseLong(sla.get("max_sec")));
+			deptnameMap.put(sla.get("deptno"), sla.get("deptname"));
+		}
+
+		for(Map<String, String> b : dao.getApprovalSlaBucket()) {
+			QuantileSketch sketch = deptLevelMap.computeIfAbsent(key(b.get("deptno"), b.get("levelno")), k -> new QuantileSketch());
+			sketch.addBucket(Integer.parseInt(b.get("bucket")), Long.parseLong(b.get("cnt")));
+		}
+
+		// 부서별, 단계별로 합치기 (번호순)
+		Map<Integer, QuantileSketch> deptMap = new TreeMap<>();
+		Map<Integer, QuantileSketch> levelMap = new TreeMap<>();
+
+		List<Map<String, String>> byDeptLevel = new ArrayList<>();
+
+		for(Map.Entry<String, QuantileSketch> entry : deptLevelMap.entrySet()) {
+
+			String[] arr = entry.getKey().split(",");
+			String deptno = String.valueOf(Long.parseLong(arr[0]));
+			String levelno = String.valueOf(Integer.parseInt(arr[1]));
+			QuantileSketch sketch = entry.getValue();
+
+			deptMap.computeIfAbsent(Integer.parseInt(deptno), k -> new QuantileSketch()).merge(sketch);
+			levelMap.computeIfAbsent(Integer.parseInt(levelno), k -> new QuantileSketch()).merge(sketch);
+
+			Map<String, String> row = toStats(sketch);
+			row.put("deptno", deptno);
+			row.put("deptname", deptnameMap.get(deptno));
+			row.put("levelno", levelno);
+			byDeptLevel.add(row);
+		}
+
+		List<Map<String, String>> byDept = new ArrayList<>();
+
+		for(Map.Entry<Integer, QuantileSketch> entry : deptMap.entrySet()) {
+			Map<String, String> row = toStats(entry.getValue());
+			row.put("deptno", String.valueOf(entry.getKey()));
+			row.put("deptname", deptnameMap.get(String.valueOf(entry.getKey())));
+			byDept.add(row);
+		}
+
+		List<Map<String, String>> byLevel = new ArrayList<>();
+
+		for(Map.Entry<Integer, QuantileSketch> entry : levelMap.entrySet()) {
+			Map<String, String> row = toStats(entry.getValue());
+			row.put("levelno", String.valueOf(entry.getKey()));
+			byLevel.add(row);
+		}
+
+		Map<String, List<Map<String, String>>> resultMap = new HashMap<>();
+		resultMap.put("byDept", byDept);
+		resultMap.put("byLevel", byLevel);
+		resultMap.put("byDeptLevel", byDeptLevel);
+
+		return resultMap;
+	}
+
+
+	private void add(Map<String, QuantileSketch> sketchMap, Map<String, String> time) {
+		sketchMap.computeIfAbsent(key(time.get("deptno"), time.get("levelno")), k -> new QuantileSketch())
+		         .add(Long.parseLong(time.get("seconds")));
+	}
+
+	// (부서, 단계)별 sketch 를 집계 테이블에 더하기
+	// 키 순서대로 merge 하므로 동시에 결재해도 행을 잠그는 순서가 같다.
+	private void write(Map<String, QuantileSketch> sketchMap) {
+
+		List<Map<String, String>> slaList = new ArrayList<>();
+		List<Map<String, String>> bucketList = new ArrayList<>();
+
+		for(Map.Entry<String, QuantileSketch> entry : sketchMap.entrySet()) {
+
+			String[] arr = entry.getKey().split(",");
+			QuantileSketch sketch = entry.getValue();
+
+			Map<String, String> sla = new HashMap<>();
+			sla.put("deptno", arr[0]);
+			sla.put("levelno", arr[1]);
+			sla.put("cnt", String.valueOf(sketch.getCount()));
+			sla.put("sum_sec", String.valueOf(sketch.getSum()));
+			sla.put("min_sec", String.valueOf(sketch.getMin()));
+			sla.put("max_sec", String.valueOf(sketch.getMax()));
+			slaList.add(sla);
+
+			for(Map.Entry<Integer, Long> b : sketch.getBuckets().entrySet()) {
+				Map<String, String> bucket = new HashMap<>();
+				bucket.put("deptno", arr[0]);
+				bucket.put("levelno", arr[1]);
+				bucket.put("bucket", String.valueOf(b.getKey()));
+				bucket.put("cnt", String.valueOf(b.getValue()));
+				bucketList.add(bucket);
+			}
+		}
+
+		for(int i=0; i<slaList.size(); i+=MERGE_CHUNK) {
+			dao.mergeApprovalSla(slaList.subList(i, Math.min(slaList.size(), i + MERGE_CHUNK)));
+		}
+
+		for(int i=0; i<bucketList.size(); i+=MERGE_CHUNK) {
+			dao.mergeApprovalSlaBucket(bucketList.subList(i, Math.min(bucketList.size(), i + MERGE_CHUNK)));
+		}
+	}
+
+	private Map<String, String> toStats(QuantileSketch sketch) {
+		Map<String, String> row = new HashMap<>();
+		row.put("cnt", String.valueOf(sketch.getCount()));
+		row.put("avg_sec", String.valueOf(sketch.getAvg()));
+		row.put("p50_sec", String.valueOf(sketch.quantile(0.5)));
+		row.put("p95_sec", String.valueOf(sketch.quantile(0.95)));
+		row.put("min_sec", String.valueOf(sketch.getMin()));
+		row.put("max_sec", String.valueOf(sketch.getMax()));
+		return row;
+	}
+
+	// TreeMap 키 (부서번호, 단계를 자리수 맞춰서 숫자순으로 정렬되게)
+	private String key(String deptno, String levelno) {
+		return String.format("%010d,%05d", Long.parseLong(deptno), Integer.parseInt(levelno));
+	}
+
+}
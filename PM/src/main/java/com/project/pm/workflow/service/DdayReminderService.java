@@ -0,0 +1,8 @@
+package com.project.pm.workflow.service;
+
+public interface DdayReminderService {
+
+	// 마감일 임박 문서의 결재자에게 알림 보내기 (보낸 알림 수 리턴)
+	int remindDday();
+
+}
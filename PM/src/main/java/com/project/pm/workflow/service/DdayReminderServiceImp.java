@@ -0,0 +1,51 @@
+package com.project.pm.workflow.service;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.pm.workflow.model.WorkflowDAO;
+
+// 결재 마감일(D_day) 임박 알림
+// 근무시간(09~18시) 매시 정각에 마감일이 REMIND_DAYS 일 안에 있는 진행중 문서를 찾아 지금 차례인 결재자에게 알림을 보낸다.
+// 이미 보낸 (문서, 결재자, 마감일)은 다시 보내지 않으므로 몇번을 돌려도 알림이 겹치지 않는다.
+@Service
+public class DdayReminderServiceImp implements DdayReminderService {
+
+	// 마감일 몇일 전부터 알릴지 (-Dpm.dday.days=숫자 로 바꿀 수 있다)
+	private static final int REMIND_DAYS = Integer.getInteger("pm.dday.days", 3);
+	
+	@Autowired
+	private WorkflowDAO dao;
+	
+	
+	@Override
+	@Scheduled(cron="0 0 9-18 * * *")
+	public int remindDday() {
+		
+		// 알람번호는 AlarmService 와 같은 규칙(시각 + 순번)
+		String time = new SimpleDateFormat("yyyyMMddHHmmssSSS").format(Calendar.getInstance().getTime());
+		
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("alarm_time", time);
+		paraMap.put("days", String.valueOf(REMIND_DAYS));
+		paraMap.put("url", "/workflow.pm?doc_no=");
+		paraMap.put("alarm_type", "&#9200;"); // AlarmService 의 1번(마감) 아이콘
+		
+		try {
+			// 알림 1건당 tbl_alarm, tbl_dday_reminder 에 1줄씩 들어간다
+			return dao.insertDdayReminders(paraMap) / 2;
+			
+		} catch (Exception e) {
+			// 다른 서버가 같은 알림을 먼저 보낸 경우(보낸기록 PK 중복) 등은 다음 시각에 다시 한다
+			e.printStackTrace();
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.project.pm.workflow.service;
+
+import java.util.Map;
+
+import com.project.pm.workflow.model.DocumentVO;
+
+public interface DocumentBodyService {
+
+	// 문서내용을 압축하고 목록용 첫줄을 docvo 에 채우기 (doc_body, raw_size, stored_size, doc_preview)
+	void prepare(DocumentVO docvo);
+
+	// 압축된 문서내용 풀어서 가져오기 (압축되지 않은 예전 문서는 doc_contents 를 그대로 돌려준다)
+	String getBody(String doc_no, String doc_contents);
+
+	// 문서 1건의 문서내용 (압축된 문서내용이 있으면 풀어서, 없으면 doc_contents)
+	String decode(String doc_contents, byte[] doc_body, int raw_size);
+
+	// 예전 문서 chunkSize 건 압축 테이블로 옮기기 (lastDoc_no 다음 문서부터)
+	Map<String, String> migrateChunk(int lastDoc_no, int chunkSize);
+
+	// 압축 테이블 현황 (문서수, 압축전 크기, 압축후 크기)
+	Map<String, String> getBodyStats();
+
+}
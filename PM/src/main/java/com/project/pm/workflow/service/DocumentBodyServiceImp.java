@@ -0,0 +1,197 @@
+package com.project.pm.workflow.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.pm.workflow.model.DocumentVO;
+import com.project.pm.workflow.model.WorkflowDAO;
+
+// 문서내용(에디터 HTML) 압축 저장
+// 문서내용은 deflate 로 압축해서 tbl_document_body 에 따로 두고, tbl_documents 에는 목록용 첫줄(doc_preview)만 둔다.
+// 목록은 doc_preview 만 읽고, 문서내용은 상세보기/수정에서만 풀어서 읽는다.
+@Service
+public class DocumentBodyServiceImp implements DocumentBodyService {
+
+	// 목록에 보여줄 첫줄 최대 글자수
+	private static final int PREVIEW_LENGTH = 200;
+	
+	@Autowired
+	private WorkflowDAO dao;
+	
+	
+	// 문서내용을 압축하고 목록용 첫줄 만들기
+	@Override
+	public void prepare(DocumentVO docvo) {
+		
+		String doc_contents = docvo.getDoc_contents() == null ? "" : docvo.getDoc_contents();
+		
+		byte[] raw = doc_contents.getBytes(StandardCharsets.UTF_8);
+		byte[] body = deflate(raw);
+		
+		docvo.setDoc_body(body);
+		docvo.setRaw_size(raw.length);
+		docvo.setStored_size(body.length);
+		docvo.setDoc_preview(preview(doc_contents));
+	}
+	
+	
+	// 압축된 문서내용 풀어서 가져오기
+	@Override
+	public String getBody(String doc_no, String doc_contents) {
+		
+		if(doc_contents != null) {
+			return doc_contents; // 아직 옮기지 않은 예전 문서
+		}
+		
+		DocumentVO bodyvo = dao.getDocumentBody(doc_no);
+		
+		if(bodyvo == null || bodyvo.getDoc_body() == null) {
+			return "";
+		}
+		
+		return decode(null, bodyvo.getDoc_body(), bodyvo.getRaw_size());
+	}
+	
+	
+	// 문서 1건의 문서내용 (목록 조회 등에서 압축된 문서내용을 같이 읽어온 경우)
+	@Override
+	public String decode(String doc_contents, byte[] doc_body, int raw_size) {
+		
+		if(doc_body == null) {
+			return doc_contents == null ? "" : doc_contents;
+		}
+		
+		return new String(inflate(doc_body, raw_size), StandardCharsets.UTF_8);
+	}
+	
+	
+	// 예전 문서 chunkSize 건 압축 테이블로 옮기기
+	// chunk 1개가 하나의 트랜잭션이므로 중간에 멈춰도 lastDoc_no 부터 다시 하면 된다.
+	@Override
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+	public Map<String, String> migrateChunk(int lastDoc_no, int chunkSize) {
+		
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("lastDoc_no", String.valueOf(lastDoc_no));
+		paraMap.put("chunkSize", String.valueOf(chunkSize));
+		
+		List<DocumentVO> docList = dao.getUncompressedDocuments(paraMap);
+		
+		long rawBytes = 0;
+		long storedBytes = 0;
+		
+		for(DocumentVO docvo : docList) {
+			prepare(docvo);
+			rawBytes += docvo.getRaw_size();
+			storedBytes += docvo.getStored_size();
+			lastDoc_no = docvo.getDoc_no();
+		}
+		
+		if(docList.size() > 0) {
+			dao.insertDocumentBodyList(docList);
+			dao.clearDocumentContents(docList);
+		}
+		
+		Map<String, String> resultMap = new HashMap<>();
+		resultMap.put("migrated", String.valueOf(docList.size()));
+		resultMap.put("lastDoc_no", String.valueOf(lastDoc_no));
+		resultMap.put("rawBytes", String.valueOf(rawBytes));
+		resultMap.put("storedBytes", String.valueOf(storedBytes));
+		
+		return resultMap;
+	}
+	
+	
+	// 압축 테이블 현황
+	@Override
+	public Map<String, String> getBodyStats() {
+		return dao.getDocumentBodyStats();
+	}
+	
+	
+	// 목록용 첫줄 (목록에서 <br> 앞까지만 보여주던 것과 같게)
+	private String preview(String doc_contents) {
+		
+		String preview = doc_contents;
+		
+		int index = preview.indexOf("<br>");
+		if(index != -1) {
+			preview = preview.substring(0, index);
+		}
+		
+		if(preview.length() > PREVIEW_LENGTH) {
+			preview = preview.substring(0, PREVIEW_LENGTH);
+			
+			// 잘린 태그는 버린다
+			int open = preview.lastIndexOf('<');
+			if(open > preview.lastIndexOf('>')) {
+				preview = preview.substring(0, open);
+			}
+		}
+		
+		return preview;
+	}
+	
+	private byte[] deflate(byte[] raw) {
+		
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		
+		try {
+			deflater.setInput(raw);
+			deflater.finish();
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+			byte[] buf = new byte[8192];
+			
+			while(!deflater.finished()) {
+				int len = deflater.deflate(buf);
+				out.write(buf, 0, len);
+			}
+			
+			return out.toByteArray();
+			
+		} finally {
+			deflater.end();
+		}
+	}
+	
+	private byte[] inflate(byte[] body, int raw_size) {
+		
+		Inflater inflater = new Inflater();
+		
+		try {
+			inflater.setInput(body);
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw_size));
+			byte[] buf = new byte[8192];
+			
+			while(!inflater.finished()) {
+				int len = inflater.inflate(buf);
+				if(len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break; // 잘린 데이터
+				}
+				out.write(buf, 0, len);
+			}
+			
+			return out.toByteArray();
+			
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("문서내용 압축 해제 실패", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
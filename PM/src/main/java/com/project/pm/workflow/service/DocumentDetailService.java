@@ -0,0 +1,13 @@
+package com.project.pm.workflow.service;
+
+import com.project.pm.workflow.model.DocumentDetailVO;
+
+public interface DocumentDetailService {
+
+	// 문서 + 결재라인 + 히스토리 한번에 가져오기 (없는 문서면 null)
+	DocumentDetailVO getDocumentDetail(String doc_no);
+
+	// 결재/수정으로 바뀐 문서 캐시 지우기
+	void evict(String doc_no);
+
+}
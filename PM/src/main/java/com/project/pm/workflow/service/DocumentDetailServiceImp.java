@@ -0,0 +1,107 @@
+package com.project.pm.workflow.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.project.pm.workflow.model.DocumentDetailVO;
+import com.project.pm.workflow.model.WorkflowDAO;
+
+@Service
+public class DocumentDetailServiceImp implements DocumentDetailService {
+
+	// 문서 1개를 메모리에 들고 있는 시간 (결재/수정시에는 바로 지운다)
+	private static final long CACHE_MILLIS = 10 * 1000;
+	
+	// 캐시에 들고 있을 최대 문서 수 (넘으면 비운다)
+	private static final int MAX_CACHE_SIZE = 500;
+	
+	// 문서 키 (결재라인 한 줄마다 같이 따라오는 컬럼)
+	private static final String[] DOCUMENT_KEYS = { "fk_writer_empno", "doc_no", "doc_subject", "doc_contents", "writeday", "modificationday"
+	                                              , "filename", "orgfilename", "filesize", "d_day", "icon", "name", "position", "fk_deptno", "profile_color", "end_doc" };
+	
+	// 결재라인 키
+	private static final String[] APPROVAL_KEYS = { "approval_no", "fk_senior_empno", "levelno", "approval", "approval_day", "senior_name", "version" };
+	
+	@Autowired
+	private WorkflowDAO dao;
+	
+	@Autowired
+	private HistoryLogService historyLog;
+	
+	@Autowired
+	private DocumentBodyService bodyService;
+	
+	// 문서번호별 상세보기
+	private final Map<String, DocumentDetailVO> cacheMap = new ConcurrentHashMap<>();
+	
+	
+	// 문서 + 결재라인 + 히스토리 한번에 가져오기
+	@Override
+	public DocumentDetailVO getDocumentDetail(String doc_no) {
+		
+		long now = System.currentTimeMillis();
+		
+		DocumentDetailVO detailvo = cacheMap.get(doc_no);
+		
+		if(detailvo != null && now - detailvo.getLoadTime() < CACHE_MILLIS) {
+			return detailvo;
+		}
+		
+		// 문서와 결재라인 전체 (결재자 1명당 1줄)
+		List<Map<String, String>> rowList = dao.getDocumentView(doc_no);
+		
+		if(rowList.isEmpty()) {
+			cacheMap.remove(doc_no);
+			return null;
+		}
+		
+		detailvo = new DocumentDetailVO();
+		
+		Map<String, String> document = new HashMap<>();
+		for(String key : DOCUMENT_KEYS) {
+			document.put(key, rowList.get(0).get(key));
+		}
+		// 문서내용은 상세보기에서만 풀어서 읽는다
+		document.put("doc_contents", bodyService.getBody(doc_no, document.get("doc_contents")));
+		detailvo.setDocument(document);
+		
+		for(Map<String, String> row : rowList) {
+			
+			if(row.get("approval_no") == null) {
+				continue; // 결재라인이 없는 문서
+			}
+			
+			Map<String, String> app = new HashMap<>();
+			for(String key : APPROVAL_KEYS) {
+				app.put(key, row.get(key));
+			}
+			detailvo.getApprovalList().add(app);
+		}
+		
+		// 히스토리
+		detailvo.setHistoryList(historyLog.getHistory(doc_no));
+		detailvo.setLoadTime(now);
+		
+		if(cacheMap.size() >= MAX_CACHE_SIZE) {
+			cacheMap.clear();
+		}
+		cacheMap.put(doc_no, detailvo);
+		
+		return detailvo;
+	}
+	
+	
+	// 결재/수정으로 바뀐 문서 캐시 지우기
+	@Override
+	public void evict(String doc_no) {
+		if(doc_no != null) {
+			cacheMap.remove(doc_no);
+		}
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.project.pm.workflow.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+public interface DocumentExportService {
+
+	// 완료문서를 ZIP 으로 out 에 바로 쓰기 (startDate, endDate, fromDoc_no, toDoc_no)
+	// 내보낸 문서수(cnt)와 마지막 문서번호(lastDoc_no)를 돌려준다.
+	Map<String, String> exportArchive(Map<String, String> paraMap, OutputStream out) throws IOException;
+
+}
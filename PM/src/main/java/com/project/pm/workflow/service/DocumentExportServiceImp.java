@@ -0,0 +1,231 @@
+package com.project.pm.workflow.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.pm.workflow.model.DocumentVO;
+import com.project.pm.workflow.model.WorkflowDAO;
+
+// 완료문서 내보내기 (감사용)
+// 문서, 결재라인, 히스토리를 문서번호순 커서 3개로 읽어 문서번호로 맞춰가며 문서 1건씩 ZIP 에 바로 쓴다.
+// 문서 1건 분량만 메모리에 있으므로 문서가 아무리 많아도 메모리 사용량은 같다.
+// Oracle 은 READ_COMMITTED 에서는 문장(커서)마다 따로 시점을 잡으므로, 커서 3개가 같은 시점의 데이터를 보도록 SERIALIZABLE 트랜잭션으로 읽는다.
+// (읽기만 하므로 SERIALIZABLE 이어도 ORA-08177 이 나지 않는다)
+//
+// ZIP 구성
+//   00000123/document.html  : 문서 (제목, 작성자, 결재라인, 히스토리, 문서내용)
+//   00000123/document.json  : 같은 내용의 JSON
+//   00000123/files/첨부파일명 : 첨부파일 (첨부파일 이름이 document.html 등과 같아도 겹치지 않도록 폴더를 나눈다)
+//   export.json             : 내보낸 조건, 문서수, 마지막 문서번호 (이어받을 때는 fromDoc_no = lastDoc_no + 1)
+@Service
+public class DocumentExportServiceImp implements DocumentExportService {
+
+	// 첨부파일이 저장되어 있는 경로 (글쓰기/다운로드와 같은 경로)
+	private static final String ATTACH_PATH = "C:\\spring_workspace\\PM\\src\\main\\webapp\\files" + File.separator + "workflow";
+	
+	@Autowired
+	private WorkflowDAO dao;
+	
+	@Autowired
+	private DocumentBodyService bodyService;
+	
+	
+	@Override
+	@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.SERIALIZABLE, readOnly=true, rollbackFor= {Throwable.class})
+	public Map<String, String> exportArchive(Map<String, String> paraMap, OutputStream out) throws IOException {
+		
+		int cnt = 0;
+		int lastDoc_no = 0;
+		
+		ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+		
+		try (Cursor<DocumentVO> docCursor = dao.exportDocuments(paraMap);
+		     Cursor<Map<String, String>> appCursor = dao.exportApprovals(paraMap);
+		     Cursor<Map<String, String>> historyCursor = dao.exportHistory(paraMap)) {
+			
+			RowReader appReader = new RowReader(appCursor.iterator());
+			RowReader historyReader = new RowReader(historyCursor.iterator());
+			
+			for(DocumentVO docvo : docCursor) {
+				
+				String doc_no = String.valueOf(docvo.getDoc_no());
+				
+				JSONArray approvalArr = appReader.next(doc_no);
+				JSONArray historyArr = historyReader.next(doc_no);
+				
+				String doc_contents = bodyService.decode(docvo.getDoc_contents(), docvo.getDoc_body(), docvo.getRaw_size());
+				
+				String dir = String.format("%08d", docvo.getDoc_no()) + "/";
+				
+				JSONObject docObj = new JSONObject();
+				docObj.put("doc_no", docvo.getDoc_no());
+				docObj.put("doc_subject", docvo.getDoc_subject());
+				docObj.put("fk_writer_empno", docvo.getFk_writer_empno());
+				docObj.put("name", docvo.getName());
+				docObj.put("writeday", docvo.getWriteday());
+				docObj.put("modificationday", docvo.getModificationday());
+				docObj.put("d_day", docvo.getD_day());
+				docObj.put("orgFilename", docvo.getOrgFilename());
+				docObj.put("approvalList", approvalArr);
+				docObj.put("historyList", historyArr);
+				docObj.put("doc_contents", doc_contents);
+				
+				putEntry(zip, dir + "document.json", docObj.toString(2));
+				putEntry(zip, dir + "document.html", render(docvo, approvalArr, historyArr, doc_contents));
+				
+				// 첨부파일
+				if(docvo.getFileName() != null && docvo.getOrgFilename() != null) {
+					
+					File file = new File(ATTACH_PATH, docvo.getFileName());
+					
+					String name = new File(docvo.getOrgFilename()).getName();
+					
+					if(file.isFile()) {
+						zip.putNextEntry(new ZipEntry(dir + "files/" + ("".equals(name) ? docvo.getFileName() : name)));
+						Files.copy(file.toPath(), zip);
+						zip.closeEntry();
+					}
+				}
+				
+				zip.flush();
+				
+				cnt++;
+				lastDoc_no = docvo.getDoc_no();
+			}
+		}
+		
+		JSONObject exportObj = new JSONObject();
+		exportObj.put("startDate", paraMap.get("startDate"));
+		exportObj.put("endDate", paraMap.get("endDate"));
+		exportObj.put("fromDoc_no", paraMap.get("fromDoc_no"));
+		exportObj.put("toDoc_no", paraMap.get("toDoc_no"));
+		exportObj.put("cnt", cnt);
+		exportObj.put("lastDoc_no", lastDoc_no);
+		putEntry(zip, "export.json", exportObj.toString(2));
+		
+		zip.finish();
+		
+		Map<String, String> resultMap = new HashMap<>();
+		resultMap.put("cnt", String.valueOf(cnt));
+		resultMap.put("lastDoc_no", String.valueOf(lastDoc_no));
+		
+		return resultMap;
+	}
+	
+	
+	// 문서 1건 HTML
+	private String render(DocumentVO docvo, JSONArray approvalArr, JSONArray historyArr, String doc_contents) {
+		
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>").append(escape(docvo.getDoc_subject())).append("</title></head><body>\n");
+		sb.append("<h1>").append(escape(docvo.getDoc_subject())).append("</h1>\n");
+		sb.append("<p>문서번호 ").append(docvo.getDoc_no())
+		  .append(" / 작성자 ").append(escape(docvo.getName())).append("(").append(escape(docvo.getFk_writer_empno())).append(")")
+		  .append(" / 작성일 ").append(escape(docvo.getWriteday()))
+		  .append(" / 마감일 ").append(escape(docvo.getD_day())).append("</p>\n");
+		
+		sb.append("<h2>결재라인</h2>\n<table border=\"1\"><tr><th>단계</th><th>결재자</th><th>결재</th><th>결재일</th></tr>\n");
+		for(int i=0; i<approvalArr.length(); i++) {
+			JSONObject app = approvalArr.getJSONObject(i);
+			sb.append("<tr><td>").append(escape(app.optString("levelno")))
+			  .append("</td><td>").append(escape(app.optString("name"))).append("(").append(escape(app.optString("fk_senior_empno"))).append(")")
+			  .append("</td><td>").append(approvalName(app.optString("approval")))
+			  .append("</td><td>").append(escape(app.optString("approval_day"))).append("</td></tr>\n");
+		}
+		sb.append("</table>\n");
+		
+		sb.append("<h2>히스토리</h2>\n<ul>\n");
+		for(int i=0; i<historyArr.length(); i++) {
+			JSONObject history = historyArr.getJSONObject(i);
+			sb.append("<li>").append(escape(history.optString("historyDate"))).append(" ")
+			  .append(escape(history.optString("emp_name"))).append(escape(history.optString("contents"))).append("</li>\n");
+		}
+		sb.append("</ul>\n");
+		
+		// 문서내용은 저장할 때 이미 XSS 필터링 되어 있다
+		sb.append("<h2>문서내용</h2>\n<div>").append(doc_contents).append("</div>\n");
+		
+		if(docvo.getOrgFilename() != null) {
+			sb.append("<p>첨부파일 : ").append(escape(docvo.getOrgFilename())).append("</p>\n");
+		}
+		
+		sb.append("</body></html>\n");
+		
+		return sb.toString();
+	}
+	
+	private String approvalName(String approval) {
+		if("1".equals(approval)) return "승인";
+		if("2".equals(approval)) return "반려";
+		return "대기";
+	}
+	
+	private String escape(String str) {
+		if(str == null) {
+			return "";
+		}
+		return str.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+	
+	private void putEntry(ZipOutputStream zip, String name, String contents) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(contents.getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+	}
+	
+	
+	// 문서번호순 커서에서 문서 1건 분량씩 읽기
+	private static class RowReader {
+		
+		private final Iterator<Map<String, String>> iterator;
+		private Map<String, String> row; // 다음 문서의 첫 줄
+		
+		RowReader(Iterator<Map<String, String>> iterator) {
+			this.iterator = iterator;
+			this.row = iterator.hasNext() ? iterator.next() : null;
+		}
+		
+		// doc_no 인 줄들 (문서 커서와 같은 순서이므로 doc_no 보다 작은 줄은 버린다)
+		JSONArray next(String doc_no) {
+			
+			JSONArray arr = new JSONArray();
+			long no = Long.parseLong(doc_no);
+			
+			while(row != null && Long.parseLong(row.get("doc_no")) <= no) {
+				
+				if(Long.parseLong(row.get("doc_no")) == no) {
+					JSONObject obj = new JSONObject();
+					for(Map.Entry<String, String> entry : row.entrySet()) {
+						if(!"doc_no".equals(entry.getKey())) {
+							obj.put(entry.getKey(), entry.getValue());
+						}
+					}
+					arr.put(obj);
+				}
+				
+				row = iterator.hasNext() ? iterator.next() : null;
+			}
+			
+			return arr;
+		}
+	}
+
+}
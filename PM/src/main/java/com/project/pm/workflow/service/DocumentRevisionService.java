@@ -0,0 +1,21 @@
+package com.project.pm.workflow.service;
+
+import java.util.List;
+
+import com.project.pm.workflow.model.DocumentRevisionVO;
+
+public interface DocumentRevisionService {
+
+	// 새 문서의 첫 판 남기기 (문서내용 전체)
+	void addFirstRevision(int doc_no, String empno, String contents);
+
+	// 수정된 문서의 새 판 남기기 (prev = 수정 전 문서내용, next = 수정 후 문서내용), 남긴 판 번호 리턴
+	int addRevision(int doc_no, String empno, String prev, String next);
+
+	// 문서의 판 목록 (문서내용 없이)
+	List<DocumentRevisionVO> getRevisionList(String doc_no);
+
+	// 문서의 revno 판 문서내용 다시 만들기 (없으면 null)
+	DocumentRevisionVO getRevision(String doc_no, int revno);
+
+}
@@ -0,0 +1,181 @@
+package com.project.pm.workflow.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.project.pm.common.TextDelta;
+import com.project.pm.workflow.model.DocumentRevisionVO;
+import com.project.pm.workflow.model.WorkflowDAO;
+
+// 문서 수정이력(판) 저장
+// 판마다 문서내용 전체를 두지 않고 앞 판과의 차이(TextDelta)만 tbl_document_revision 에 둔다.
+// SNAPSHOT_INTERVAL 판마다(1, 11, 21 ..) 문서내용 전체(snapshot)를 두므로,
+// 어느 판이든 가장 가까운 snapshot 1개 + delta 최대 SNAPSHOT_INTERVAL-1 개만 읽어서 다시 만들 수 있다.
+// 문서 insert/update 와 같은 트랜잭션에서 불리므로 여기서는 트랜잭션을 따로 잡지 않는다.
+@Service
+public class DocumentRevisionServiceImp implements DocumentRevisionService {
+
+	// snapshot 간격 (판 번호가 1, 11, 21 .. 이면 문서내용 전체)
+	private static final int SNAPSHOT_INTERVAL = 10;
+
+	@Autowired
+	private WorkflowDAO dao;
+
+
+	// 새 문서의 첫 판 남기기
+	@Override
+	public void addFirstRevision(int doc_no, String empno, String contents) {
+		insertRevision(doc_no, 1, empno, contents, null);
+	}
+
+
+	// 수정된 문서의 새 판 남기기
+	// 판 기능 전에 작성된 문서는 판이 없으므로 수정 전 문서내용을 1판으로 먼저 남긴다.
+	// 같은 문서를 동시에 수정하면 (문서번호, 판 번호) PK 에 걸려서 나중 수정이 롤백된다.
+	@Override
+	public int addRevision(int doc_no, String empno, String prev, String next) {
+
+		prev = prev == null ? "" : prev;
+		next = next == null ? "" : next;
+
+		int lastRevno = dao.getLastRevno(String.valueOf(doc_no));
+
+		if(lastRevno == 0) {
+			insertRevision(doc_no, 1, null, prev, null);
+			lastRevno = 1;
+		}
+
+		if(prev.equals(next)) {
+			return lastRevno; // 문서내용은 그대로 (마감일만 바꾼 경우 등)
+		}
+
+		int revno = lastRevno + 1;
+		insertRevision(doc_no, revno, empno, next, prev);
+
+		return revno;
+	}
+
+
+	// 문서의 판 목록
+	@Override
+	public List<DocumentRevisionVO> getRevisionList(String doc_no) {
+		return dao.getRevisionList(doc_no);
+	}
+
+
+	// 문서의 revno 판 문서내용 다시 만들기
+	// 가장 가까운 snapshot 부터 revno 까지를 판 번호순으로 한번에 읽어서 차례로 적용한다.
+	@Override
+	public DocumentRevisionVO getRevision(String doc_no, int revno) {
+
+		Map<String, String> paraMap = new HashMap<>();
+		paraMap.put("doc_no", doc_no);
+		paraMap.put("revno", String.valueOf(revno));
+
+		List<DocumentRevisionVO> chain = dao.getRevisionChain(paraMap);
+
+		if(chain.size() == 0 || !"1".equals(chain.get(0).getIs_snapshot())
+		   || chain.get(chain.size()-1).getRevno() != revno) {
+			return null;
+		}
+
+		String contents = null;
+
+		for(DocumentRevisionVO revvo : chain) {
+
+			byte[] raw = inflate(revvo.getPayload());
+
+			if("1".equals(revvo.getIs_snapshot())) {
+				contents = new String(raw, StandardCharsets.UTF_8);
+			}
+			else {
+				contents = TextDelta.apply(contents, raw);
+			}
+
+			revvo.setPayload(null);
+		}
+
+		DocumentRevisionVO result = chain.get(chain.size()-1);
+		result.setContents(contents);
+
+		return result;
+	}
+
+
+	// 판 1개 넣기 (prev 가 null 이거나 snapshot 차례이면 문서내용 전체, 아니면 prev 와의 delta)
+	// delta 가 문서내용 전체보다 크면 (거의 다 바꾼 경우) 그 판은 snapshot 으로 둔다.
+	private void insertRevision(int doc_no, int revno, String empno, String contents, String prev) {
+
+		byte[] raw = contents.getBytes(StandardCharsets.UTF_8);
+
+		boolean snapshot = prev == null || (revno - 1) % SNAPSHOT_INTERVAL == 0;
+		byte[] payload = deflate(raw);
+
+		if(!snapshot) {
+			byte[] delta = deflate(TextDelta.encode(prev, contents));
+			if(delta.length < payload.length) {
+				payload = delta;
+			}
+			else {
+				snapshot = true;
+			}
+		}
+
+		DocumentRevisionVO revvo = new DocumentRevisionVO();
+		revvo.setFk_doc_no(doc_no);
+		revvo.setRevno(revno);
+		revvo.setIs_snapshot(snapshot ? "1" : "0");
+		revvo.setPayload(payload);
+		revvo.setRaw_size(raw.length);
+		revvo.setStored_size(payload.length);
+		revvo.setFk_empno(empno);
+
+		dao.insertRevision(revvo);
+	}
+
+
+	private byte[] deflate(byte[] raw) {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+		try (DeflaterOutputStream dos = new DeflaterOutputStream(out, deflater)) {
+			dos.write(raw);
+		} catch (IOException e) {
+			throw new IllegalStateException("수정이력 압축 실패", e);
+		} finally {
+			deflater.end();
+		}
+
+		return out.toByteArray();
+	}
+
+	private byte[] inflate(byte[] payload) {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, payload.length * 4));
+
+		try (InflaterInputStream iis = new InflaterInputStream(new ByteArrayInputStream(payload))) {
+			byte[] buf = new byte[8192];
+			int len;
+			while((len = iis.read(buf)) != -1) {
+				out.write(buf, 0, len);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("수정이력 압축 해제 실패", e);
+		}
+
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.project.pm.workflow.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface HistoryLogService {
+
+	// 히스토리 남기기 (메모리에 모았다가 한번에 insert 한다)
+	void append(String doc_no, String emp_name, String contents);
+
+	// 히스토리 가져오기 (아직 insert 되지 않은 것까지 합쳐서)
+	List<Map<String, String>> getHistory(String doc_no);
+
+	// 모아둔 히스토리 insert 하기
+	void flush();
+
+}
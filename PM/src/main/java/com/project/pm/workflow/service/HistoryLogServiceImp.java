@@ -0,0 +1,507 @@
+package com.project.pm.workflow.service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.project.pm.workflow.model.HistoryVO;
+import com.project.pm.workflow.model.WorkflowDAO;
+
+// 결재문서 히스토리 기록기
+// 히스토리는 먼저 로컬 파일(write-ahead log)에 한 줄씩 적고 메모리에 모아두었다가 300ms 마다 한번에 insert 한다.
+// 서버가 죽어도 파일에 남은 히스토리는 다음 기동시 다시 insert 하고, history_id(시퀀스) 로 중복 insert 를 막는다.
+// - 트랜잭션 안에서 남긴 히스토리는 커밋 직전(beforeCommit)에 파일에 적는다. 커밋과 파일 쓰기 사이에 죽어도 없어지지 않는다.
+//   파일에 적지 못하면 작업도 롤백된다. (트랜잭션 밖이면 append 가 예외를 던진다)
+//   롤백되면 파일에 취소 표시("A" 히스토리번호)를 적어서 다음 기동시 insert 하지 않는다.
+//   (적은 다음 커밋 결과를 알기 전에 죽으면 다시 insert 한다. 커밋 안 된 문서의 히스토리는 아래처럼 실패 파일로 간다)
+// - 한번에 insert 가 실패하면 한 줄씩 insert 하고, DB 는 살아있는데 그 줄만 계속 실패하면(너무 긴 내용, 없는 문서번호 등)
+//   실패 파일(DEAD_PATH)로 옮긴다. 한 줄 때문에 뒤의 히스토리가 모두 막히지 않도록.
+@Service
+public class HistoryLogServiceImp implements HistoryLogService {
+
+	private static final Logger logger = LoggerFactory.getLogger(HistoryLogServiceImp.class);
+
+	// 한번에 insert 할 최대 건수
+	private static final int BATCH_SIZE = 200;
+	
+	// 시퀀스(seq_history_id)에서 한번에 받는 히스토리 번호 수 (시퀀스의 increment by 와 같아야 한다)
+	private static final int ID_BLOCK = 100;
+	
+	// write-ahead log 파일 위치 (-Dpm.history.wal=경로 로 바꿀 수 있다)
+	private static final String WAL_PATH = System.getProperty("pm.history.wal"
+	                                     , System.getProperty("user.home") + File.separator + "pm" + File.separator + "workflow_history.wal");
+	
+	// insert 할 수 없는 히스토리를 옮겨둘 파일 (WAL 과 같은 형식 + 오류 메시지)
+	private static final String DEAD_PATH = WAL_PATH + ".dead";
+	
+	// 파일의 취소 표시 줄 ("A" \t 히스토리번호)
+	private static final String ABORT = "A";
+	
+	@Autowired
+	private WorkflowDAO dao;
+	
+	// 받아둔 히스토리 번호 중 다음 번호와 끝 (idLock 안에서)
+	private final Object idLock = new Object();
+	private long nextId;
+	private long idLimit;
+	
+	// 아직 insert 되지 않은 히스토리 (히스토리 번호순)
+	private final ConcurrentSkipListMap<Long, HistoryVO> pendingMap = new ConcurrentSkipListMap<>();
+	
+	// 파일에는 적었지만 트랜잭션이 아직 끝나지 않은 히스토리
+	private final Map<Long, HistoryVO> preparedMap = new ConcurrentHashMap<>();
+	
+	// 파일 쓰기와 pendingMap 넣기/파일 정리는 이 lock 안에서 한다
+	private final Object walLock = new Object();
+	
+	private File walFile;
+	private FileOutputStream walOut;
+	private Writer walWriter;
+	
+	
+	// 기동시 파일에 남아있는 히스토리 다시 읽어오기
+	@PostConstruct
+	public void init() throws IOException {
+		
+		walFile = new File(WAL_PATH);
+		
+		if(walFile.getParentFile() != null) {
+			walFile.getParentFile().mkdirs();
+		}
+		
+		if(walFile.exists()) {
+			
+			Set<Long> abortSet = new HashSet<>();
+			
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(walFile.toPath()), StandardCharsets.UTF_8))) {
+				
+				String line;
+				while((line = reader.readLine()) != null) {
+					
+					// 롤백된 히스토리
+					if(line.startsWith(ABORT + "\t")) {
+						try {
+							abortSet.add(Long.parseLong(line.substring(2)));
+						} catch (NumberFormatException e) {
+							// 쓰다가 끊긴 줄
+						}
+						continue;
+					}
+					
+					HistoryVO historyvo = decode(line);
+					
+					// 마지막 줄이 쓰다가 끊긴 경우는 버린다
+					if(historyvo != null) {
+						pendingMap.put(historyvo.getHistory_id(), historyvo);
+					}
+				}
+			}
+			
+			for(Long history_id : abortSet) {
+				pendingMap.remove(history_id);
+			}
+		}
+		
+		synchronized (walLock) {
+			rewriteWal();
+		}
+	}
+	
+	
+	// 히스토리 남기기
+	// 트랜잭션 안에서 불린 경우에는 커밋 직전에 파일에 적고, 커밋된 다음에 insert 할 목록에 넣는다 (롤백된 작업의 히스토리가 남지 않도록)
+	// 파일에 적지 못하면 IllegalStateException (트랜잭션 안이면 커밋이 실패하고 롤백된다)
+	@Override
+	public void append(String doc_no, String emp_name, String contents) {
+		
+		final HistoryVO historyvo = new HistoryVO();
+		historyvo.setHistory_id(nextHistoryId());
+		historyvo.setFk_history_doc_no(doc_no);
+		historyvo.setEmp_name(emp_name);
+		historyvo.setContents(contents);
+		historyvo.setHistoryDate(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+		
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void beforeCommit(boolean readOnly) {
+					prepare(historyvo);
+				}
+				
+				@Override
+				public void afterCompletion(int status) {
+					if(status == STATUS_COMMITTED) {
+						commit(historyvo);
+					}
+					else {
+						abort(historyvo);
+					}
+				}
+			});
+		}
+		else {
+			prepare(historyvo);
+			commit(historyvo);
+		}
+	}
+	
+	
+	// 히스토리 가져오기 (insert 된 것 + 아직 insert 되지 않은 것)
+	@Override
+	public List<Map<String, String>> getHistory(String doc_no) {
+		
+		List<Map<String, String>> historyList = new ArrayList<>(dao.getHistory(doc_no));
+		
+		if(pendingMap.isEmpty()) {
+			return historyList;
+		}
+		
+		// insert 와 pendingMap 에서 지우기 사이에 읽은 경우 같은 히스토리가 두번 나오지 않도록 한다
+		Set<String> idSet = new HashSet<>();
+		for(Map<String, String> history : historyList) {
+			idSet.add(history.get("history_id"));
+		}
+		
+		for(HistoryVO historyvo : pendingMap.values()) {
+			
+			if(doc_no.equals(historyvo.getFk_history_doc_no()) && !idSet.contains(String.valueOf(historyvo.getHistory_id()))) {
+				
+				Map<String, String> history = new HashMap<>();
+				history.put("history_id", String.valueOf(historyvo.getHistory_id()));
+				history.put("fk_history_doc_no", historyvo.getFk_history_doc_no());
+				history.put("emp_name", historyvo.getEmp_name());
+				history.put("contents", historyvo.getContents());
+				history.put("historyDate", historyvo.getHistoryDate());
+				
+				historyList.add(history);
+			}
+		}
+		
+		return historyList;
+	}
+	
+	
+	// 모아둔 히스토리 insert 하기 (300ms 마다)
+	// 파일은 insert 했거나 실패 파일로 옮긴 것이 있을 때만 다시 쓴다.
+	@Override
+	@Scheduled(fixedDelay=300)
+	public synchronized void flush() {
+		
+		if(pendingMap.isEmpty()) {
+			return;
+		}
+		
+		int removed = 0;
+		List<HistoryVO> batch = new ArrayList<>(BATCH_SIZE);
+		
+		for(HistoryVO historyvo : pendingMap.values()) {
+			
+			batch.add(historyvo);
+			
+			if(batch.size() == BATCH_SIZE) {
+				int n = insertBatch(batch);
+				if(n < 0) {
+					break;
+				}
+				removed += n;
+			}
+		}
+		
+		if(!batch.isEmpty()) {
+			int n = insertBatch(batch);
+			if(n > 0) {
+				removed += n;
+			}
+		}
+		
+		if(removed > 0) {
+			synchronized (walLock) {
+				try {
+					rewriteWal();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	
+	// 종료시 남은 히스토리 insert 하기 (실패하면 파일에 남아서 다음 기동시 insert 된다)
+	@PreDestroy
+	public void destroy() {
+		
+		flush();
+		
+		synchronized (walLock) {
+			try {
+				if(walWriter != null) {
+					walWriter.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	
+	// 시퀀스에서 받아둔 히스토리 번호 중 다음 번호 (다 쓰면 시퀀스에서 ID_BLOCK 개를 새로 받는다)
+	private long nextHistoryId() {
+		
+		synchronized (idLock) {
+			if(nextId >= idLimit) {
+				nextId = dao.getHistoryIdBlock();
+				idLimit = nextId + ID_BLOCK;
+			}
+			return nextId++;
+		}
+	}
+	
+	
+	// 파일에 적기 (커밋 직전)
+	// 파일에 적지 못하면 예외를 던져서 작업도 커밋되지 않게 한다 (beforeCommit 에서 던지면 트랜잭션이 롤백된다)
+	private void prepare(HistoryVO historyvo) {
+		
+		synchronized (walLock) {
+			try {
+				writeWal(encode(historyvo));
+				
+			} catch (IOException e) {
+				// 반쯤 적힌 줄이 다음 기동시 insert 되지 않도록 파일을 다시 쓴다 (이 히스토리는 preparedMap 에 없으므로 빠진다)
+				try {
+					rewriteWal();
+				} catch (IOException rewriteError) {
+					e.addSuppressed(rewriteError);
+				}
+				
+				throw new IllegalStateException("히스토리 " + historyvo.getHistory_id() + " 를 " + WAL_PATH + " 에 적지 못했습니다.", e);
+			}
+			
+			preparedMap.put(historyvo.getHistory_id(), historyvo);
+		}
+	}
+	
+	// 커밋됐으면 insert 할 목록에 넣기
+	private void commit(HistoryVO historyvo) {
+		
+		synchronized (walLock) {
+			preparedMap.remove(historyvo.getHistory_id());
+			pendingMap.put(historyvo.getHistory_id(), historyvo);
+		}
+	}
+	
+	// 롤백됐으면 파일에 취소 표시 (커밋 전에 실패해서 파일에 적지 않았으면 할 것이 없다)
+	private void abort(HistoryVO historyvo) {
+		
+		synchronized (walLock) {
+			if(preparedMap.remove(historyvo.getHistory_id()) == null) {
+				return;
+			}
+			
+			try {
+				writeWal(ABORT + "\t" + historyvo.getHistory_id());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	// 파일 끝에 한 줄 적고 디스크에 내리기 (walLock 안에서 호출한다)
+	private void writeWal(String line) throws IOException {
+		walWriter.write(line);
+		walWriter.write('\n');
+		walWriter.flush();
+		walOut.getFD().sync();
+	}
+	
+	
+	// insert 하고 메모리에서 지우기. 지운 건수를 돌려주고, DB 문제로 더 할 수 없으면 -1 을 돌려준다.
+	// 한번에 insert 가 실패하면 한 줄씩 insert 하고, DB 는 살아있는데 실패하는 줄은 실패 파일로 옮긴다.
+	private int insertBatch(List<HistoryVO> batch) {
+		
+		try {
+			dao.insertHistoryBatch(batch);
+			
+			for(HistoryVO historyvo : batch) {
+				pendingMap.remove(historyvo.getHistory_id());
+			}
+			
+			int n = batch.size();
+			batch.clear();
+			return n;
+			
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+		
+		int n = 0;
+		
+		try {
+			for(HistoryVO historyvo : batch) {
+				
+				try {
+					dao.insertHistoryBatch(Collections.singletonList(historyvo));
+					
+				} catch (RuntimeException e) {
+					
+					// 잠깐 생긴 오류(교착상태 등)이거나 DB 에 연결되지 않으면 다음에 다시 시도한다
+					if(e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException || !isDbAlive()) {
+						return n > 0 ? n : -1;
+					}
+					
+					if(!moveToDead(historyvo, e)) {
+						continue;
+					}
+				}
+				
+				pendingMap.remove(historyvo.getHistory_id());
+				n++;
+			}
+			
+		} finally {
+			batch.clear();
+		}
+		
+		return n;
+	}
+	
+	private boolean isDbAlive() {
+		try {
+			dao.pingHistoryDb();
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+	
+	// insert 할 수 없는 히스토리를 실패 파일에 적기 (적었으면 true)
+	private boolean moveToDead(HistoryVO historyvo, RuntimeException e) {
+		
+		String error = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e));
+		
+		synchronized (walLock) {
+			try (FileOutputStream deadOut = new FileOutputStream(DEAD_PATH, true);
+			     Writer deadWriter = new OutputStreamWriter(deadOut, StandardCharsets.UTF_8)) {
+				
+				deadWriter.write(encode(historyvo) + "\t" + base64(error) + "\n");
+				deadWriter.flush();
+				deadOut.getFD().sync();
+				
+			} catch (IOException ioe) {
+				ioe.printStackTrace();
+				return false;
+			}
+		}
+		
+		logger.warn("히스토리 {}(문서번호 {}) insert 실패, {} 로 옮김 : {}", historyvo.getHistory_id(), historyvo.getFk_history_doc_no(), DEAD_PATH, error);
+		
+		return true;
+	}
+	
+	
+	// 아직 insert 되지 않은 히스토리(트랜잭션이 끝나지 않은 것 포함)만 남도록 파일 다시 쓰기 (walLock 안에서 호출한다)
+	private void rewriteWal() throws IOException {
+		
+		if(walWriter != null) {
+			walWriter.close();
+		}
+		
+		if(pendingMap.isEmpty() && preparedMap.isEmpty()) {
+			walOut = new FileOutputStream(walFile, false);
+		}
+		else {
+			File tmpFile = new File(walFile.getPath() + ".tmp");
+			
+			try (FileOutputStream tmpOut = new FileOutputStream(tmpFile, false);
+			     Writer tmpWriter = new OutputStreamWriter(tmpOut, StandardCharsets.UTF_8)) {
+				
+				for(HistoryVO historyvo : pendingMap.values()) {
+					tmpWriter.write(encode(historyvo));
+					tmpWriter.write('\n');
+				}
+				for(HistoryVO historyvo : preparedMap.values()) {
+					tmpWriter.write(encode(historyvo));
+					tmpWriter.write('\n');
+				}
+				tmpWriter.flush();
+				tmpOut.getFD().sync();
+			}
+			
+			Files.move(tmpFile.toPath(), walFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			
+			walOut = new FileOutputStream(walFile, true);
+		}
+		
+		walWriter = new OutputStreamWriter(walOut, StandardCharsets.UTF_8);
+	}
+	
+	
+	// 파일 한 줄 = 히스토리번호 \t 문서번호 \t 작성일자 \t 사원명 \t 내용 (문자열은 Base64)
+	private String encode(HistoryVO historyvo) {
+		
+		return historyvo.getHistory_id() + "\t" + historyvo.getFk_history_doc_no() + "\t" + historyvo.getHistoryDate()
+		     + "\t" + base64(historyvo.getEmp_name()) + "\t" + base64(historyvo.getContents());
+	}
+	
+	private HistoryVO decode(String line) {
+		
+		String[] arr = line.split("\t", -1);
+		
+		if(arr.length != 5) {
+			return null;
+		}
+		
+		try {
+			HistoryVO historyvo = new HistoryVO();
+			historyvo.setHistory_id(Long.parseLong(arr[0]));
+			historyvo.setFk_history_doc_no(arr[1]);
+			historyvo.setHistoryDate(arr[2]);
+			historyvo.setEmp_name(unbase64(arr[3]));
+			historyvo.setContents(unbase64(arr[4]));
+			return historyvo;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	private String base64(String str) {
+		return str == null ? "" : Base64.getEncoder().encodeToString(str.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private String unbase64(String str) {
+		return "".equals(str) ? null : new String(Base64.getDecoder().decode(str), StandardCharsets.UTF_8);
+	}
+
+}
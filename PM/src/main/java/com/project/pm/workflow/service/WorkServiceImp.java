@@ -1,10 +1,21 @@
 package com.project.pm.workflow.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.project.pm.common.AES256;
 import com.project.pm.common.FileManager;
@@ -29,79 +40,66 @@ public class WorkServiceImp implements WorkflowService{
 		
 		@Autowired
 		private FileManager fileManager;
+		
+		@Autowired
+		private DocumentDetailService detailService;
+		
+		@Autowired
+		private HistoryLogService historyLog;
+		
+		@Autowired
+		private DocumentBodyService bodyService;
+		
+		@Autowired
+		private ApprovalLineService approvalLine;
+		
+		@Autowired
+		private DocumentRevisionService revision;
+		
+		@Autowired
+		private ApprovalSlaService slaService;
 
 		// 결제라인 뽑아오기(승인,참조 대상자들)
 		@Override
 		public List<Map<String, String>> appList(Map<String, String> paraMap) {
-			List<Map<String,String>> appList = dao.appList(paraMap);
+			List<Map<String,String>> appList = approvalLine.appList(paraMap); // 부서 결재라인은 캐시에서
 			return appList;
 		}
 
-		//파일첨부 없는 경우 글쓰기(결제 상신까지)
+		//글쓰기(결제 상신까지)
+		// 문서 insert, 결재라인 insert(결재라인 수 만큼), 압축한 문서내용 insert 를 하나의 트랜잭션에서 보내고, 히스토리는 커밋 후에 historyLog 가 남긴다.
+		// 문서번호와 결재번호는 insert 안에서 시퀀스로 채굴하고 문서번호는 returning 으로 돌려받는다.
+		// 첨부파일이 없으면 fileName 등이 null 이므로 첨부파일 유무(paraMap 의 attach)와 상관없이 같은 문장을 쓴다.
 		@Override
+		@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
 		public int add(DocumentVO docvo, Map<String, String> paraMap) {
-			int result = 0; // 리턴값
-			int n =0;
 			
-			//기안 번호 채굴
-			int doc_no = dao.docno();
-			docvo.setDoc_no(doc_no);
+			// 문서내용 압축 + 목록용 첫줄
+			bodyService.prepare(docvo);
 			
-			//System.out.println("doc_co" + doc_no);
+			dao.submitDocument(docvo);
+			dao.insertDocumentBody(docvo);
 			
-			if ("no".equals(paraMap.get("attach"))){
-			//document 테이블에 기안문서 작성
-				n = dao.add(docvo);	
-			}
-			
-			else {
-				n = dao.add__withFile(docvo);	
-				
-			}
+			// 수정이력 1판
+			revision.addFirstRevision(docvo.getDoc_no(), docvo.getFk_writer_empno(), docvo.getDoc_contents());
 			
-			//approvla 테이블에  결제라인 수 많큼 insert 해주기
-			if(n==1) {
-				//알람 테이블 메소드 만들기
-				
-				// 결제할 사람 알아오기 
-				List<Map<String,String>> appList = dao.appList(paraMap);
-				int approval_cnt = appList.size(); 
-				int m = 0;
-
-				for(Map<String, String> appParamap : appList) {
-					
-					//문서번호 넣어주기
-					appParamap.put("doc_no",String.valueOf(doc_no)); 
-					
-					//결재번호 채굴
-					int approval_no = dao.appno();
-					appParamap.put("app_no",String.valueOf(approval_no));
-					//System.out.println("appno :" + approval_no);
-					
-					//결재 상신하기
-					
-					
-						m += dao.addApproval(appParamap);
-
-				
-				}// end of for-------------
-				
-				if(m == approval_cnt) {
-					result=1;
-				}	
-			}// end of if 
+			historyLog.append(String.valueOf(docvo.getDoc_no()), docvo.getName(), "님이 문서를 작성했습니다.");
 			
-			docvo.setContents("님이 문서를 작성했습니다.");
-			//히스토리 테이블에 작성하기
-			int h = dao.insertHistory(docvo);
+			//System.out.println("doc_no : " + docvo.getDoc_no() + ", 결재라인 수 : " + docvo.getApproval_cnt());
 			
-			return doc_no;
+			return docvo.getDoc_no();
 
 		}
 
 		//진행중인 내문서함 리스트 가져오기
 		@Override
 		public List<Map<String, String>> getdocumentList(Map<String, String> paraMap) {
+			
+			// 진행중 문서함은 결재함 테이블에서 가져온다
+			if("0".equals(paraMap.get("end_doc"))) {
+				return dao.getInboxList(paraMap);
+			}
+			
 			List<Map<String,String>> documentList = dao.getdocumentList(paraMap);		
 			return documentList;
 		}
@@ -124,6 +122,11 @@ public class WorkServiceImp implements WorkflowService{
 		@Override
 		public Map<String, String> getDocDetail(Map<String, String> paraMap) {
 			Map<String,String> docDetail = dao.getDocDetail(paraMap);
+			
+			// 압축 테이블로 옮겨진 문서는 문서내용을 풀어서 넣어준다
+			if(docDetail != null) {
+				docDetail.put("doc_contents", bodyService.getBody(docDetail.get("doc_no"), docDetail.get("doc_contents")));
+			}
 			return docDetail;
 		}
 		
@@ -135,38 +138,30 @@ public class WorkServiceImp implements WorkflowService{
 		}
 
 		//승인,반려 상태 업데이트 시키기
+		// 내 차례인지 확인하고(전단계 결재 완료, 내 결재 대기중, version 일치) update 하는 것을 한 문장으로 처리한다.
+		// 마지막 단계이면 같은 트랜잭션에서 문서 완료 처리까지 한다.
+		// 리턴값이 0 이면 이미 처리되었거나 아직 내 차례가 아닌 것(충돌)이다.
 		@Override
+		@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
 		public int updateApproval(Map<String, String> paraMap) {
-			//마지막 결제 단계 알아오기
-			String doc_no = paraMap.get("doc_no");
 			
-			int lastLevelno = dao.getLastlevelno(doc_no);
-			int myLevelno = dao.getMylevelno(paraMap);
+			String doc_no = paraMap.get("doc_no");
 			
+			dao.approveStep(paraMap);
 			
-			int n = 0;
+			int n = Integer.parseInt(paraMap.get("n"));
 			
-			if(lastLevelno != myLevelno ) {
-				//마지막 단계 아닐때 
-				n = dao.updateApproval(paraMap);
-			}
-			if(lastLevelno== myLevelno ) {
-			//마지막 단계 일때
-
-				// 승인,반려 업데이트 시키기	
-				n = dao.updateApproval(paraMap);
-				
-				if( n==1) {
-					
-				n += dao.updateAprroval_last(paraMap);	//승인최종완료컬럼 업데이트(마지막 승인자)
-					
-				}
+			if(n > 0) {
+				// 결재 소요시간 집계
+				Map<String, String> step = new HashMap<>();
+				step.put("doc_no", doc_no);
+				step.put("levelno", paraMap.get("doneLevelno")); // 실제로 결재된 단계
+				slaService.record(Collections.singletonList(step));
 				
+				// 결재상태가 바뀌었으므로 상세보기 캐시 지우기
+				detailService.evict(doc_no);
 			}
 			
-			System.out.println( "appCnt : " + lastLevelno + "  doc_no : " + doc_no);
-			System.out.println( "n :" + n);
-			
 			return n;
 		}
 
@@ -187,8 +182,12 @@ public class WorkServiceImp implements WorkflowService{
 		// 총페이지 수 알아오기
 		@Override
 		public int getTotalPage(Map<String, String> paraMap) {
-			int totalPage = dao.getTotalPage(paraMap);
-			return totalPage;
+			
+			// 문서함 건수 테이블로 계산한다 (진행중 : wait, 완료 : done)
+			int sizePerPage = Integer.parseInt(paraMap.get("sizePerPage"));
+			int totalCnt = getFolderCount(paraMap.get("empno"), "0".equals(paraMap.get("end_doc")) ? "wait" : "done");
+			
+			return (int) Math.ceil( (double)totalCnt/sizePerPage );
 		}
 
 		//파일첨부가 되어진 댓글 1개에서 서버에 업로드 되어진 파일명과 오리지널 파일파일명을 조회해 주는것 
@@ -201,7 +200,7 @@ public class WorkServiceImp implements WorkflowService{
 		//진행중 게시물 총수
 		@Override
 		public int getdocTotalCnt(Map<String, String> paraMap) {
-			int documentList = dao.getdocTotalCnt(paraMap);
+			int documentList = getFolderCount(paraMap.get("emp_no"), "wait");
 			return documentList;
 		}
 		
@@ -209,23 +208,43 @@ public class WorkServiceImp implements WorkflowService{
 		//완료 게시물 총수
 		@Override
 		public int getcomTotalCnt(Map<String, String> paraMap) {
-			int documentList = dao.getcomTotalCnt(paraMap);
+			int documentList = getFolderCount(paraMap.get("emp_no"), "done");
 			return documentList;
 		}
 		
 		//내 게시물 총수
 			@Override
 			public int getmyTotalCnt(Map<String, String> paraMap) {
-				int documentList = dao.getmyTotalCnt(paraMap);
+				int documentList = getFolderCount(paraMap.get("emp_no"), "my");
 				return documentList;
 			}
 			
 		// 글 수정하기 	
 		@Override
+		@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
 		public int upateDoc(DocumentVO docvo) {
 			
+			// 수정 전 문서내용 (문서 행을 잠그므로 같은 문서의 수정은 차례로 판이 붙는다)
+			DocumentVO beforevo = dao.getCurrentBodyForUpdate(String.valueOf(docvo.getDoc_no()));
+			
+			bodyService.prepare(docvo);
+			
 			int n = dao.update(docvo);	
 			
+			// 없는(지워진) 문서면 문서내용, 수정이력, 히스토리를 남기지 않는다
+			if(n == 0) {
+				return 0;
+			}
+			
+			dao.deleteDocumentBody(String.valueOf(docvo.getDoc_no()));
+			dao.insertDocumentBody(docvo);
+			
+			// 수정이력 (앞 판과의 차이만 남긴다)
+			if(beforevo != null) {
+				String before = bodyService.decode(beforevo.getDoc_contents(), beforevo.getDoc_body(), beforevo.getRaw_size());
+				revision.addRevision(docvo.getDoc_no(), docvo.getFk_writer_empno(), before, docvo.getDoc_contents());
+			}
+			
 //			if ("no".equals(paraMap.get("attach"))){
 //			document 테이블에 기안문서 수정
 //				n = dao.update(paraMap);	
@@ -237,8 +256,10 @@ public class WorkServiceImp implements WorkflowService{
 //			 }
 //			 
 			//히스토리 작성
-			docvo.setContents("님이 문서를 수정했습니다.");
-			int h = dao.insertHistory(docvo);
+			historyLog.append(String.valueOf(docvo.getDoc_no()), docvo.getName(), "님이 문서를 수정했습니다.");
+			
+			// 내용/히스토리가 바뀌었으므로 상세보기 캐시 지우기
+			detailService.evict(String.valueOf(docvo.getDoc_no()));
 
 			 return n;
 			
@@ -261,10 +282,127 @@ public class WorkServiceImp implements WorkflowService{
 		//히스토리 가져오기
 		@Override
 		public List<Map<String, String>> getHistory(String doc_no) {
-			List<Map<String, String>> HistoryList = dao.getHistory(doc_no);
+			List<Map<String, String>> HistoryList = historyLog.getHistory(doc_no);
 			return HistoryList;
 		}
+
+		//진행중 문서함 다시 만들기 (원본 테이블에서)
+		@Override
+		@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+		public int rebuildInbox() {
+			int n = dao.rebuildInbox();
+			return n;
+		}
 	
 	
 
+		//일괄 승인,반려
+		// 1. 문서 목록 전체가 내 결재 차례인지 한번에 확인하고
+		// 2. 결재가능한 문서만 하나의 문장(PL/SQL 블록)으로 한번에 결재한 다음
+		// 3. 결재된 문서들의 다음 결재자를 한번에 알아온다.
+		// 확인과 결재 사이에 다른 사람이 먼저 처리한 문서는 conflict 로 돌려준다.
+		@Override
+		@Transactional(propagation=Propagation.REQUIRED, isolation=Isolation.READ_COMMITTED, rollbackFor= {Throwable.class})
+		public Map<String, Object> bulkApproval(String empno, List<String> docNoList, String approvalNo) {
+			
+			Map<String, Object> paraMap = new HashMap<>();
+			paraMap.put("empno", empno);
+			paraMap.put("approvalNo", approvalNo);
+			paraMap.put("docNoList", docNoList);
+			
+			// 문서별 상태 (같은 문서에 내 결재라인이 여러줄이면 ok 가 우선)
+			Map<String, String> statusMap = new LinkedHashMap<>();
+			
+			for(Map<String, String> check : dao.checkBulkApproval(paraMap)) {
+				String doc_no = check.get("doc_no");
+				if(!"ok".equals(statusMap.get(doc_no))) {
+					statusMap.put(doc_no, check.get("status"));
+				}
+			}
+			
+			List<String> okList = new ArrayList<>();
+			for(Map.Entry<String, String> entry : statusMap.entrySet()) {
+				if("ok".equals(entry.getValue())) {
+					okList.add(entry.getKey());
+				}
+			}
+			
+			Set<String> doneSet = new HashSet<>();
+			List<Map<String, String>> nextApproverList = new ArrayList<>();
+			
+			if(okList.size() > 0) {
+				
+				paraMap.put("docNoList", okList);
+				dao.bulkApproveStep(paraMap);
+				
+				String doneList = (String) paraMap.get("doneList");
+				
+				if(doneList != null && !"".equals(doneList)) {
+					doneSet.addAll(Arrays.asList(doneList.split(",")));
+					
+					// 결재 소요시간 집계 (doneLevels 는 doneList 와 같은 순서의 결재 단계)
+					String[] docArr = doneList.split(",");
+					String[] levelArr = ((String) paraMap.get("doneLevels")).split(",");
+					List<Map<String, String>> stepList = new ArrayList<>();
+					for(int i=0; i<docArr.length; i++) {
+						Map<String, String> step = new HashMap<>();
+						step.put("doc_no", docArr[i]);
+						step.put("levelno", levelArr[i]);
+						stepList.add(step);
+					}
+					slaService.record(stepList);
+					
+					paraMap.put("docNoList", new ArrayList<>(doneSet));
+					nextApproverList = dao.getNextApprovers(paraMap);
+				}
+			}
+			
+			List<Map<String, String>> resultList = new ArrayList<>();
+			
+			for(Map.Entry<String, String> entry : statusMap.entrySet()) {
+				
+				String doc_no = entry.getKey();
+				String status = entry.getValue();
+				
+				if("ok".equals(status)) {
+					if(doneSet.contains(doc_no)) {
+						// 결재상태가 바뀌었으므로 상세보기 캐시 지우기
+						detailService.evict(doc_no);
+					}
+					else {
+						status = "conflict";
+					}
+				}
+				
+				Map<String, String> result = new HashMap<>();
+				result.put("doc_no", doc_no);
+				result.put("status", status);
+				resultList.add(result);
+			}
+			
+			Map<String, Object> resultMap = new HashMap<>();
+			resultMap.put("resultList", resultList);
+			resultMap.put("nextApproverList", nextApproverList);
+			
+			return resultMap;
+		}
+		
+		//문서함 건수 (문서함 건수 테이블 PK 조회)
+		private int getFolderCount(String empno, String folder) {
+			Map<String, String> countMap = new HashMap<>();
+			countMap.put("empno", empno);
+			countMap.put("folder", folder);
+			return dao.getFolderCount(countMap);
+		}
+		
+		//문서함 건수 맞추기 (매일 새벽 3시 30분)
+		// 상신/결재 문장에서 같이 올리고 내리는 건수가 원본 테이블과 어긋난 경우 원본 기준으로 고친다.
+		@Override
+		@Scheduled(cron="0 30 3 * * *")
+		public int repairFolderCounter() {
+			int n = dao.repairFolderCounter();
+			//System.out.println("문서함 건수 고친 수 : " + n);
+			return n;
+		}
+
 }
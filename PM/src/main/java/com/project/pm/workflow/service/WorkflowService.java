@@ -62,6 +62,14 @@ public interface WorkflowService {
 
 		//히스토리 가져오기
 		List<Map<String, String>> getHistory(String doc_no);
-		
+
+		//진행중 문서함 다시 만들기 (원본 테이블에서)
+		int rebuildInbox();
+
+		//일괄 승인,반려 (문서별 결과 resultList 와 알림 보낼 다음 결재자 nextApproverList 를 돌려준다)
+		Map<String, Object> bulkApproval(String empno, List<String> docNoList, String approvalNo);
+
+		//문서함 건수를 원본 테이블 기준으로 맞추기 (고친 건수 리턴)
+		int repairFolderCounter();
 
 }
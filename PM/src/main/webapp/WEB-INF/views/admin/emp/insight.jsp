@@ -84,14 +84,22 @@ canvas#myChart{
 <script>
 
 $(document).ready(function() {
+	
+	<%-- 차트 4개의 데이터를 한번에 받는다 (서버가 계산해 둔 스냅샷, 바뀌지 않았으면 304) --%>
+	const dashboard = $.ajax({
+		url:"<%= ctxPath%>/insight/dashboard.pm",
+		dataType:"JSON",
+		error: function(request, status, error){
+	        alert("code: "+request.status+"\n"+"message: "+request.responseText+"\n"+"error: "+error);
+		}
+	});
+	
 	let arr=[];
 	
 	let arr_rate=[];
 	let arr_gender=[];
-	$.ajax({
-		url:"<%= ctxPath%>/insight/genderRate.pm",
-		dataType:"JSON",
-		success:function(json) {
+	dashboard.done(function(all) {
+			const json = all.genderRate;
 			arr.push(...json);
 					
 			$.each(arr, function(index, item){
@@ -135,25 +143,19 @@ $(document).ready(function() {
 			        }
 			    }
 			});
-			},
-			error: function(request, status, error){
-		        alert("code: "+request.status+"\n"+"message: "+request.responseText+"\n"+"error: "+error);
-			}
-	
-	})
+	});
 
 
 
 	<%-- 부서별 급여 평균 --%>
+	let arr_emp=[];
 	let arr_deptNameEmp=[];
 	let arr_empCnt=[];
-	$.ajax({
-		url:"<%= ctxPath%>/insight/empCntDept.pm",
-		dataType:"JSON",
-		success:function(json) {
-			arr.push(...json);
+	dashboard.done(function(all) {
+			const json = all.empCntDept;
+			arr_emp.push(...json);
 					
-			$.each(arr, function(index, item){
+			$.each(arr_emp, function(index, item){
 				arr_deptNameEmp.push(item.deptname);
 				arr_empCnt.push(item.empCnt);
 			});
@@ -199,11 +201,6 @@ $(document).ready(function() {
 			        }
 			    }
 			});
-			},
-			error: function(request, status, error){
-		        alert("code: "+request.status+"\n"+"message: "+request.responseText+"\n"+"error: "+error);
-			}
-	
 	});
 
 
@@ -218,10 +215,8 @@ $(document).ready(function() {
 	let arr_deptname1=[];
 	let arr_sum_worktime=[];
 	
-	$.ajax({
-		url:"<%= ctxPath%>/insight/sumWorktimeByDept.pm",
-		dataType:"JSON",
-		success:function(json) {
+	dashboard.done(function(all) {
+			const json = all.sumWorktimeByDept;
 			arr1.push(...json);
 			
 			//console.log(arr.length)
@@ -294,11 +289,7 @@ $(document).ready(function() {
 			    }
 			}
 			});
-		},
-		error: function(request, status, error){
-	            alert("code: "+request.status+"\n"+"message: "+request.responseText+"\n"+"error: "+error);
-	    }
-	})
+	});
 	
 	
 	
@@ -310,11 +301,8 @@ $(document).ready(function() {
 	let arr_deptname2=[];
 	let arr_avg_salary=[];
 	
-	$.ajax({
-		url:"<%= ctxPath%>/insight/avgSalaryByDept.pm",
-		dataType:"JSON",
-		success:function(json) {
-			
+	dashboard.done(function(all) {
+			const json = all.avgSalaryByDept;
 			arr2.push(...json);
 			
 			$.each(arr2, function(index, item){
@@ -385,11 +373,7 @@ $(document).ready(function() {
 			    }
 			}
 			});
-		},
-		error: function(request, status, error){
-	            alert("code: "+request.status+"\n"+"message: "+request.responseText+"\n"+"error: "+error);
-	    }
-	})
+	});
 	
 	
 
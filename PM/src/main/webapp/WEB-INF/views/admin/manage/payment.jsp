@@ -549,8 +549,17 @@ let arrDept = [];
 						success:function(json) {
 							
 							if(json.n > 0) {
-								Swal.fire('급여지급 완료','지급완료','success');
-								setTimeout("location.reload()", 1000);
+								// 지급은 백그라운드 작업으로 하므로 진행상황을 보여준다
+								Swal.fire({
+									title: json.resumed ? '이전 급여지급을 이어서 합니다' : '급여지급 중',
+									html: '<span id="payrollProgress">0%</span>',
+									allowOutsideClick: false,
+									showConfirmButton: false
+								});
+								pollPayrollRun(json.run_no);
+							}
+							else if(json.message) {
+								Swal.fire('급여지급', json.message, 'warning');
 							}
 							
 						},
@@ -576,6 +585,37 @@ let arrDept = [];
 		return today;
 	}
 	
+	function pollPayrollRun(run_no) { // 급여 일괄지급 진행상황을 1초마다 가져오는 메소드
+		
+		$.ajax({
+			url:"<%= ctxPath %>/admin/payrollRunStatus.pm",
+			type:"GET",
+			data:{"run_no": run_no},
+			dataType:"JSON",
+			success:function(json) {
+				
+				if(json.n == 0) {
+					return;
+				}
+				
+				if(json.status == "done") {
+					Swal.fire('급여지급 완료', json.done_cnt+'명 지급완료', 'success');
+					setTimeout("location.reload()", 1000);
+				}
+				else if(json.status == "failed") {
+					Swal.fire('급여지급 중단', json.done_cnt+'/'+json.total_cnt+'명 지급 후 중단되었습니다. 다시 지급하면 이어서 합니다.<br>'+json.error, 'error');
+				}
+				else {
+					$("span#payrollProgress").text(json.percent+'% ('+json.done_cnt+'/'+json.total_cnt+'명)');
+					setTimeout(function() { pollPayrollRun(run_no); }, 1000);
+				}
+			},
+			error: function(request, status, error){
+	            alert("code: "+request.status+"\n"+"message: "+request.responseText+"\n"+"error: "+error);
+   			}
+		});
+	}
+	
 	function getMonth() { // 현재날짜만 가져오는 메소드
 		const date = new Date();
 		const year = date.getFullYear();
@@ -847,7 +847,13 @@ arr_status = [];
 			type:"GET",
 			dataType:"JSON", 
 			success:function(json){
-				// json ==>  {"totalPage":4} 또는 {"totalPage":0}
+				// json ==>  {"totalPage":4, "computed_at":"2022-12-01 00:05:12"} 또는 {"totalPage":0, ...}
+				
+				// 퇴직금 대상은 매일 한번 계산해 둔 것이므로 계산한 시각을 보여준다
+				if(json.computed_at) {
+					$("span#severance_computed_at").text("기준 " + json.computed_at);
+				}
+				
 				if(json.totalPage > 0){
 					
 					console.log("totalPage => " + json.totalPage)
@@ -1202,6 +1208,7 @@ arr_status = [];
     <div id="pay-stub-content">
         <div id="category" class="d-flex">
             <a href="#" class="text-muted font-weight-bold mr-2 detail-category green_bottom"><span>퇴직금 조회 및 지급</span></a> <!-- border-bottom border-dark 을 사용하여 url에 따라 밑줄 생성 -->
+            <span id="severance_computed_at" class="text-muted small ml-auto align-self-center"></span>
             </div>
            
 			
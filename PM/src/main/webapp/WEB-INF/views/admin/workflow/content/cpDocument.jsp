@@ -513,13 +513,14 @@
 		
 	} 
 	
-	function goApproval(approval,doc_no,levelno) {
+	function goApproval(approval,doc_no,levelno,version) {
 		
 		$.ajax({
 			url:"<%= request.getContextPath()%>/workflow/approval.pm",
 			data :{"approval":approval,
 				   "doc_no": doc_no,
-				   "levelno":levelno},
+				   "levelno":levelno,
+				   "version":version},
 				   
 			dataType : "JSON",
 			success: function(json) {
@@ -533,7 +534,7 @@
 						
 					}
 					else{
-						alert("실패");
+						alert(json.conflict ? json.message : "실패");
 					}	
 				}
 				
@@ -545,7 +546,7 @@
 						
 					}
 					else{
-						alert("실패2");
+						alert(json.conflict ? json.message : "실패2");
 					}
 				} 
 				
@@ -631,13 +632,13 @@
 				    		"<span style='font-size:11pt; color:#262626;'>"+json.d_day.substring(0,10)+" </span>"+
 						"</div>";
 						if(json.levelno == 1 && json.approval == "0") {
-								html += "<button type='button' id='denial' class='bhover' onclick='goApproval(2,"+doc_no+","+json.levelno+");'>반려</button>"+
-								"&nbsp;<button type='button' id='accept' class='bhover' onclick='goApproval(1,"+doc_no+","+json.levelno+");'>✓ 승인</button>";
+								html += "<button type='button' id='denial' class='bhover' onclick='goApproval(2,"+doc_no+","+json.levelno+","+json.version+");'>반려</button>"+
+								"&nbsp;<button type='button' id='accept' class='bhover' onclick='goApproval(1,"+doc_no+","+json.levelno+","+json.version+");'>✓ 승인</button>";
 							
 						}
 						else if(json.prestepApp == "1" && json.approval =="0") {
-						html += "<button type='button' id='denial' class='bhover' onclick='goApproval(2,"+doc_no+","+json.levelno+");'>반려</button>"+
-						"&nbsp;<button type='button' id='accept' class='bhover' onclick='goApproval(1,"+doc_no+","+json.levelno+");'>✓ 승인</button>";
+						html += "<button type='button' id='denial' class='bhover' onclick='goApproval(2,"+doc_no+","+json.levelno+","+json.version+");'>반려</button>"+
+						"&nbsp;<button type='button' id='accept' class='bhover' onclick='goApproval(1,"+doc_no+","+json.levelno+","+json.version+");'>✓ 승인</button>";
 						}
 			    	html += "</div>"+
 			    	
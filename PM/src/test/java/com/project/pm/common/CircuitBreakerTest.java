@@ -0,0 +1,98 @@
+package com.project.pm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+	private static final long OPEN_MILLIS = 100;
+
+	@Test
+	public void 연속_실패가_기준이면_open() {
+		CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MILLIS);
+
+		breaker.failure();
+		breaker.failure();
+		assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+		assertTrue(breaker.allow());
+
+		breaker.failure();
+		assertEquals(CircuitBreaker.OPEN, breaker.getState());
+		assertFalse(breaker.allow());
+	}
+
+	@Test
+	public void 성공하면_실패_횟수를_지운다() {
+		CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MILLIS);
+
+		breaker.failure();
+		breaker.failure();
+		breaker.success();
+		breaker.failure();
+		breaker.failure();
+
+		assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+	}
+
+	@Test
+	public void half_open_은_시험_호출_1번만_허락한다() throws InterruptedException {
+		CircuitBreaker breaker = open();
+
+		Thread.sleep(OPEN_MILLIS + 50);
+
+		assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+		assertTrue(breaker.allow());
+		assertFalse(breaker.allow());
+
+		breaker.success();
+		assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+		assertTrue(breaker.allow());
+	}
+
+	@Test
+	public void 시험_호출이_실패하면_다시_open() throws InterruptedException {
+		CircuitBreaker breaker = open();
+
+		Thread.sleep(OPEN_MILLIS + 50);
+		assertTrue(breaker.allow());
+
+		breaker.failure();
+		assertEquals(CircuitBreaker.OPEN, breaker.getState());
+		assertFalse(breaker.allow());
+	}
+
+	@Test
+	public void 시험_호출을_취소하면_다시_허락한다() throws InterruptedException {
+		CircuitBreaker breaker = open();
+
+		Thread.sleep(OPEN_MILLIS + 50);
+		assertTrue(breaker.allow());
+
+		breaker.cancelTrial();
+		assertTrue(breaker.allow());
+	}
+
+	@Test
+	public void openFor_는_정한_시간만_쉰다() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(3, 60000);
+
+		breaker.openFor(OPEN_MILLIS);
+		assertEquals(CircuitBreaker.OPEN, breaker.getState());
+		assertFalse(breaker.allow());
+
+		Thread.sleep(OPEN_MILLIS + 50);
+		assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+		assertTrue(breaker.allow());
+	}
+
+	private CircuitBreaker open() {
+		CircuitBreaker breaker = new CircuitBreaker(1, OPEN_MILLIS);
+		breaker.failure();
+		assertEquals(CircuitBreaker.OPEN, breaker.getState());
+		return breaker;
+	}
+
+}
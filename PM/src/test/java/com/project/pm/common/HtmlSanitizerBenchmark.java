@@ -0,0 +1,70 @@
+package com.project.pm.common;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * MyUtil.secureCode 성능 측정 (HtmlSanitizer 와 예전 replaceAll 방식 비교)
+ *
+ * 스마트에디터가 만드는 것과 비슷한 HTML(한글, style, 표, 링크, 그림)을 10KB, 1MB 로 만들어 측정한다.
+ * 실행: mvn test-compile 후 IDE 에서 main 실행
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlSanitizerBenchmark {
+
+	private static final String UNIT =
+		  "<p style=\"font-size:10pt; color:#333\"><span style=\"font-family:'맑은 고딕'\">회의 결과를 공유드립니다. "
+		+ "다음 주 일정은 <b>월요일</b> 오전 10시입니다.</span></p>"
+		+ "<table border=\"1\" cellpadding=\"2\"><tbody><tr><td>항목</td>"
+		+ "<td><a href=\"https://example.com/a?b=c\" target=\"_blank\" onclick=\"x()\">링크</a></td></tr></tbody></table>"
+		+ "<img src=\"/resources/photo_upload/a.png\" title=\"a.png\"><br>\n";
+
+	@Param({"10240", "1048576"})
+	private int size;
+
+	private String html;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(size + UNIT.length());
+		while(sb.length() < size) {
+			sb.append(UNIT);
+		}
+		html = sb.toString();
+	}
+
+	@Benchmark
+	public String sanitize() {
+		return HtmlSanitizer.sanitize(html);
+	}
+
+	// 예전 secureCode (script 만 바꾸고 이벤트 속성, javascript: 주소는 그대로 남는다)
+	@Benchmark
+	public String replaceAll() {
+		return html.replaceAll("<script", "&lt;script");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(HtmlSanitizerBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
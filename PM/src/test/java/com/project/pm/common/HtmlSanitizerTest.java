@@ -0,0 +1,87 @@
+package com.project.pm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class HtmlSanitizerTest {
+
+	@Test
+	public void 태그가_없으면_그대로() {
+		String text = "태그 없는 글";
+		assertSame(text, HtmlSanitizer.sanitize(text));
+		assertNull(HtmlSanitizer.sanitize(null));
+	}
+
+	@Test
+	public void 에디터_태그와_속성은_남긴다() {
+		assertEquals("<p style=\"color:red\"><b>굵게</b> <a href=\"https://example.com\" target=\"_blank\">링크</a></p>",
+		             HtmlSanitizer.sanitize("<P style='color:red'><b>굵게</b> <a href=https://example.com target=\"_blank\">링크</a></p>"));
+	}
+
+	@Test
+	public void 스크립트와_이벤트_속성은_버린다() {
+		assertEquals("<p>a</p><p>b</p>", HtmlSanitizer.sanitize("<p>a</p><script>alert(1)</script><p>b</p>"));
+		assertEquals("<img src=\"/a.png\">", HtmlSanitizer.sanitize("<img src=\"/a.png\" onerror=\"alert(1)\">"));
+		assertEquals("<a>x</a>", HtmlSanitizer.sanitize("<a href=\"javascript:alert(1)\">x</a>"));
+		assertEquals("<a>x</a>", HtmlSanitizer.sanitize("<a href=\"java\tscript:alert(1)\">x</a>"));
+		assertEquals("<p>x</p>", HtmlSanitizer.sanitize("<p style=\"width:expression(alert(1))\">x</p>"));
+	}
+
+	@Test
+	public void 빈_태그는_태그만_버린다() {
+		assertEquals("<p>before</p><p>after important text</p>",
+		             HtmlSanitizer.sanitize("<p>before</p><embed src=x><p>after important text</p>"));
+		assertEquals("<p>keep me</p>", HtmlSanitizer.sanitize("<frame src=x><p>keep me</p>"));
+	}
+
+	@Test
+	public void 스스로_닫는_태그는_태그만_버린다() {
+		assertEquals("<p>rest</p>", HtmlSanitizer.sanitize("<svg/><p>rest</p>"));
+		assertEquals("<p>rest</p>", HtmlSanitizer.sanitize("<svg width=\"1\" /><p>rest</p>"));
+	}
+
+	@Test
+	public void 닫는_태그가_없으면_여는_태그만_버린다() {
+		assertEquals("<p>a</p><p>b</p>", HtmlSanitizer.sanitize("<p>a</p><object data=x><p>b</p>"));
+		assertEquals("alert(1)<p>b</p>", HtmlSanitizer.sanitize("<script>alert(1)<p>b</p>"));
+	}
+
+	@Test
+	public void 닫는_태그가_있으면_내용까지_버린다() {
+		assertEquals("<p>a</p><p>b</p>", HtmlSanitizer.sanitize("<p>a</p><svg><script>x</script></SVG><p>b</p>"));
+		assertEquals("<p>a</p><p>b</p>", HtmlSanitizer.sanitize("<p>a</p><object data=x><param name=y></object><p>b</p>"));
+	}
+
+	@Test
+	public void 붙여넣은_그림은_남긴다() {
+		assertEquals("<img src=\"data:image/png;base64,iVBORw0KGgo=\">",
+		             HtmlSanitizer.sanitize("<img src=\"data:image/png;base64,iVBORw0KGgo=\">"));
+		assertEquals("<img src=\"DATA:image/JPEG;base64,/9j/\">",
+		             HtmlSanitizer.sanitize("<img src=\"DATA:image/JPEG;base64,/9j/\">"));
+	}
+
+	@Test
+	public void 그림이_아닌_data_주소는_버린다() {
+		assertEquals("<img>", HtmlSanitizer.sanitize("<img src=\"data:image/svg+xml;base64,PHN2Zz4=\">"));
+		assertEquals("<img>", HtmlSanitizer.sanitize("<img src=\"data:text/html,<script>alert(1)</script>\">"));
+		assertEquals("<a>x</a>", HtmlSanitizer.sanitize("<a href=\"data:image/png;base64,AAAA\">x</a>"));
+	}
+
+	@Test
+	public void 태그가_아닌_꺾쇠는_글자로() {
+		assertEquals("1 &lt; 2 &lt;", HtmlSanitizer.sanitize("1 < 2 <"));
+		assertEquals("&lt;p class=\"x", HtmlSanitizer.sanitize("<p class=\"x"));
+		assertEquals("ab", HtmlSanitizer.sanitize("a<!-- 주석 -->b"));
+	}
+
+	@Test
+	public void 빈_주석은_주석만_버린다() {
+		assertEquals("<p>before</p><p>after</p>", HtmlSanitizer.sanitize("<p>before</p><!--><p>after</p>"));
+		assertEquals("<p>before</p><p>after</p>", HtmlSanitizer.sanitize("<p>before</p><!---><p>after</p>"));
+		assertEquals("ab", HtmlSanitizer.sanitize("a<!---->b"));
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.project.pm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SlackClientTest {
+
+	private SlackStub stub;
+	private SlackClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		stub = new SlackStub();
+		client = new SlackClient(stub.getUrl(), "xoxb-test", 1000, 1000);
+	}
+
+	@After
+	public void tearDown() {
+		stub.close();
+	}
+
+
+	@Test
+	public void 성공하면_ok() {
+		SlackClient.Result result = client.post("C123", "출근 09:00\n퇴근 18:00 & 야근");
+
+		assertTrue(result.isOk());
+		assertFalse(result.isRetry());
+		assertNull(result.getError());
+
+		Map<String, String> request = stub.getRequests().get(0);
+		assertEquals("C123", request.get("channel"));
+		assertEquals("출근 09:00\n퇴근 18:00 & 야근", request.get("text"));
+		assertEquals("Bearer xoxb-test", request.get("authorization"));
+	}
+
+	@Test
+	public void 응답_429는_Retry_After_를_돌려준다() {
+		stub.reply429("7");
+		SlackClient.Result result = client.post("C123", "a");
+
+		assertFalse(result.isOk());
+		assertTrue(result.isRetry());
+		assertEquals(7, result.getRetryAfterSec());
+
+		// Retry-After 가 없으면 30초
+		stub.reply429(null);
+		assertEquals(30, client.post("C123", "a").getRetryAfterSec());
+	}
+
+	@Test
+	public void 서버오류와_ratelimited_는_다시_보낸다() {
+		stub.reply(503, "busy");
+		SlackClient.Result result = client.post("C123", "a");
+		assertTrue(result.isRetry());
+		assertEquals(0, result.getRetryAfterSec());
+		assertEquals("HTTP 503", result.getError());
+
+		stub.reply(200, "{\"ok\":false,\"error\":\"ratelimited\"}");
+		assertTrue(client.post("C123", "a").isRetry());
+
+		stub.reply(200, "<html>not json</html>");
+		assertTrue(client.post("C123", "a").isRetry());
+	}
+
+	@Test
+	public void 설정_오류는_다시_보내지_않는다() {
+		stub.reply(200, "{\"ok\":false,\"error\":\"channel_not_found\"}");
+		SlackClient.Result result = client.post("C123", "a");
+		assertFalse(result.isOk());
+		assertFalse(result.isRetry());
+		assertEquals("channel_not_found", result.getError());
+
+		stub.reply(404, "no such method");
+		assertFalse(client.post("C123", "a").isRetry());
+	}
+
+	@Test
+	public void 읽기_timeout_이상_기다리지_않는다() {
+		stub.setDelayMillis(2000);
+		SlackClient slow = new SlackClient(stub.getUrl(), "xoxb-test", 1000, 200);
+
+		long start = System.currentTimeMillis();
+		SlackClient.Result result = slow.post("C123", "a");
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue(result.isRetry());
+		assertTrue(result.getError(), result.getError().startsWith("SocketTimeoutException"));
+		assertTrue("elapsed " + elapsed, elapsed < 1500);
+	}
+
+	@Test
+	public void 연결이_안되면_다시_보낸다() throws IOException {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+
+		SlackClient.Result result = new SlackClient("http://127.0.0.1:" + port + "/api/chat.postMessage", "xoxb-test", 500, 500).post("C123", "a");
+
+		assertFalse(result.isOk());
+		assertTrue(result.isRetry());
+	}
+
+}
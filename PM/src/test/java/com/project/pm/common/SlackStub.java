@@ -0,0 +1,186 @@
+package com.project.pm.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 테스트용 Slack chat.postMessage 서버 (127.0.0.1, 빈 포트)
+ *
+ * 받은 요청(channel, text, Authorization)을 적어두고, reply 로 넣어둔 응답을 차례로 돌려준다. (없으면 200 ok:true)
+ * hold() 하면 release() 할 때까지 응답하지 않고 붙잡아 두므로 동시에 몇개가 보내지는지 볼 수 있다.
+ */
+public class SlackStub implements AutoCloseable {
+
+	private static class Reply {
+		final int status;
+		final String body;
+		final String retryAfter;
+
+		Reply(int status, String body, String retryAfter) {
+			this.status = status;
+			this.body = body;
+			this.retryAfter = retryAfter;
+		}
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final ConcurrentLinkedQueue<Reply> replies = new ConcurrentLinkedQueue<>();
+	private final List<Map<String, String>> requests = Collections.synchronizedList(new ArrayList<>());
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private volatile CountDownLatch gate;
+	private volatile long delayMillis;
+
+
+	public SlackStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/api/chat.postMessage", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/chat.postMessage";
+	}
+
+	// 다음 요청에 돌려줄 응답 (넣은 순서대로 1번씩)
+	public void reply(int status, String body) {
+		replies.add(new Reply(status, body, null));
+	}
+
+	public void reply429(String retryAfter) {
+		replies.add(new Reply(429, "", retryAfter));
+	}
+
+	// 응답하기 전에 기다릴 시간 (읽기 timeout 시험용)
+	public void setDelayMillis(long delayMillis) {
+		this.delayMillis = delayMillis;
+	}
+
+	public void hold() {
+		gate = new CountDownLatch(1);
+	}
+
+	public void release() {
+		CountDownLatch latch = gate;
+		gate = null;
+		if(latch != null) {
+			latch.countDown();
+		}
+	}
+
+	// 받은 요청 (channel, text, authorization)
+	public List<Map<String, String>> getRequests() {
+		synchronized (requests) {
+			return new ArrayList<>(requests);
+		}
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight.get();
+	}
+
+	@Override
+	public void close() {
+		release();
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+
+	private void handle(HttpExchange exchange) throws IOException {
+
+		int now = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(now, Math::max);
+
+		try {
+			Map<String, String> request = parseForm(readBody(exchange.getRequestBody()));
+			request.put("authorization", exchange.getRequestHeaders().getFirst("Authorization"));
+			requests.add(request);
+
+			CountDownLatch latch = gate;
+			if(latch != null) {
+				latch.await(10, TimeUnit.SECONDS);
+			}
+
+			if(delayMillis > 0) {
+				Thread.sleep(delayMillis);
+			}
+
+			Reply reply = replies.poll();
+			if(reply == null) {
+				reply = new Reply(200, "{\"ok\":true}", null);
+			}
+
+			if(reply.retryAfter != null) {
+				exchange.getResponseHeaders().add("Retry-After", reply.retryAfter);
+			}
+
+			byte[] body = reply.body.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(reply.status, body.length == 0 ? -1 : body.length);
+
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// 클라이언트가 timeout 으로 먼저 끊은 경우
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private String readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[4096];
+		int len;
+		while((len = in.read(buf)) != -1) {
+			out.write(buf, 0, len);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private Map<String, String> parseForm(String body) throws UnsupportedEncodingException {
+		Map<String, String> map = new HashMap<>();
+		for(String pair : body.split("&")) {
+			int index = pair.indexOf('=');
+			if(index > 0) {
+				map.put(URLDecoder.decode(pair.substring(0, index), "UTF-8"), URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+			}
+		}
+		return map;
+	}
+
+}
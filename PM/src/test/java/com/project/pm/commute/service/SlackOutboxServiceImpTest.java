@@ -0,0 +1,329 @@
+package com.project.pm.commute.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.project.pm.common.CircuitBreaker;
+import com.project.pm.common.SlackClient;
+import com.project.pm.common.SlackStub;
+import com.project.pm.commute.model.CommuteDAO;
+
+// 보낼함(tbl_slack_outbox)은 메모리로, Slack 은 SlackStub 으로 바꿔서 drain/send 를 본다
+public class SlackOutboxServiceImpTest {
+
+	// 보낼함 대신 (잡으면 waiting 에서 빠지고, 다시 보내기로 하면 waiting 뒤에 다시 들어간다)
+	private static class FakeOutbox implements InvocationHandler {
+
+		final Deque<String> waiting = new ArrayDeque<>();
+		final Map<String, Map<String, String>> rows = new HashMap<>();
+
+		final List<String> limits = new ArrayList<>();
+		final List<List<String>> sent = new ArrayList<>();
+		final List<Map<String, Object>> retried = new ArrayList<>();
+		final List<Map<String, Object>> failed = new ArrayList<>();
+
+		int seq;
+
+		synchronized void add(String channel, String message) {
+			Map<String, String> row = new HashMap<>();
+			row.put("outbox_no", String.valueOf(++seq));
+			row.put("channel", channel);
+			row.put("message", message);
+			rows.put(row.get("outbox_no"), row);
+			waiting.add(row.get("outbox_no"));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public synchronized Object invoke(Object proxy, Method method, Object[] args) {
+
+			switch (method.getName()) {
+
+			case "claimSlackOutbox": {
+				Map<String, String> paraMap = (Map<String, String>) args[0];
+				limits.add(paraMap.get("limit"));
+
+				List<String> claimList = new ArrayList<>();
+				for(int i=Integer.parseInt(paraMap.get("limit")); i>0 && !waiting.isEmpty(); i--) {
+					claimList.add(waiting.poll());
+				}
+				paraMap.put("claimList", String.join(",", claimList));
+				return null;
+			}
+			case "getSlackOutbox": {
+				List<Map<String, String>> list = new ArrayList<>();
+				for(String outbox_no : (List<String>) args[0]) {
+					list.add(new HashMap<>(rows.get(outbox_no)));
+				}
+				return list;
+			}
+			case "markSlackSent":
+				sent.add(new ArrayList<>((List<String>) args[0]));
+				return sent.get(sent.size() - 1).size();
+
+			case "retrySlackOutbox": {
+				Map<String, Object> paraMap = (Map<String, Object>) args[0];
+				retried.add(paraMap);
+				waiting.addAll((List<String>) paraMap.get("outboxNoList"));
+				return ((List<String>) paraMap.get("outboxNoList")).size();
+			}
+			case "failSlackOutbox":
+				failed.add((Map<String, Object>) args[0]);
+				return ((List<String>) ((Map<String, Object>) args[0]).get("outboxNoList")).size();
+
+			case "toString":
+				return "FakeOutbox";
+
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		}
+	}
+
+	private SlackStub stub;
+	private FakeOutbox outbox;
+	private SlackOutboxServiceImp service;
+
+	@Before
+	public void setUp() throws IOException {
+		stub = new SlackStub();
+		outbox = new FakeOutbox();
+
+		service = new SlackOutboxServiceImp();
+		ReflectionTestUtils.setField(service, "dao", Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { CommuteDAO.class }, outbox));
+		ReflectionTestUtils.setField(service, "client", new SlackClient(stub.getUrl(), "xoxb-test", 1000, 1000));
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		stub.release();
+		service.destroy();
+		stub.close();
+	}
+
+
+	@Test
+	public void 채널별로_20줄씩_묶어_보낸다() throws InterruptedException {
+		for(int i=1; i<=25; i++) {
+			outbox.add("A", "출근 " + i);
+		}
+		for(int i=1; i<=3; i++) {
+			outbox.add("B", "퇴근 " + i);
+		}
+
+		// 빈 자리 2개 * 20줄까지 잡고, 묶음 3개(A 20, A 5, B 3) 중 빈 자리만큼 2개를 보낸다
+		assertEquals(25, service.drain());
+		awaitIdle();
+
+		assertEquals(Arrays.asList("40"), outbox.limits);
+
+		List<Integer> lineCounts = new ArrayList<>();
+		for(Map<String, String> request : stub.getRequests()) {
+			assertEquals("A", request.get("channel"));
+			lineCounts.add(request.get("text").split("\n").length);
+		}
+		Collections.sort(lineCounts);
+		assertEquals(Arrays.asList(5, 20), lineCounts);
+
+		List<Integer> sentCounts = new ArrayList<>();
+		for(List<String> outboxNoList : outbox.sent) {
+			sentCounts.add(outboxNoList.size());
+		}
+		Collections.sort(sentCounts);
+		assertEquals(Arrays.asList(5, 20), sentCounts);
+	}
+
+	@Test
+	public void 긴_메시지는_3000자에서_나눈다() throws InterruptedException {
+		String message = String.join("", Collections.nCopies(1400, "가"));
+		outbox.add("A", message);
+		outbox.add("A", message);
+		outbox.add("A", message);
+
+		assertEquals(3, service.drain());
+		awaitIdle();
+
+		List<Integer> lineCounts = new ArrayList<>();
+		for(Map<String, String> request : stub.getRequests()) {
+			assertTrue(request.get("text").length() <= 3000);
+			lineCounts.add(request.get("text").split("\n").length);
+		}
+		Collections.sort(lineCounts);
+		assertEquals(Arrays.asList(1, 2), lineCounts);
+	}
+
+	@Test
+	public void 동시에_2묶음까지만_보낸다() throws InterruptedException {
+		outbox.add("A", "a");
+		outbox.add("B", "b");
+		outbox.add("C", "c");
+
+		stub.hold();
+
+		assertEquals(2, service.drain());
+		awaitInFlight(2);
+
+		// 보내는 중에는 빈 자리가 없으므로 잡지도 않는다
+		assertEquals(0, service.drain());
+		assertEquals(1, outbox.limits.size());
+
+		stub.release();
+		awaitIdle();
+
+		assertEquals(2, stub.getMaxInFlight());
+		assertEquals(2, outbox.sent.size());
+	}
+
+	@Test
+	public void 실패하면_backoff_로_다시_보낸다() throws InterruptedException {
+		outbox.add("A", "a");
+		stub.reply(500, "");
+
+		service.drain();
+		awaitIdle();
+
+		assertEquals(1, outbox.retried.size());
+		Map<String, Object> paraMap = outbox.retried.get(0);
+		assertEquals(Arrays.asList("1"), paraMap.get("outboxNoList"));
+		assertEquals("HTTP 500", paraMap.get("error"));
+		assertEquals("8", paraMap.get("maxTry"));
+		assertEquals("0", paraMap.get("minSec"));
+		assertEquals("5", paraMap.get("baseSec"));
+		assertEquals("600", paraMap.get("maxSec"));
+
+		double jitter = Double.parseDouble((String) paraMap.get("jitter"));
+		assertTrue(String.valueOf(jitter), jitter >= 1.0 && jitter <= 1.2);
+
+		// 1번 실패로는 멈추지 않는다
+		assertEquals(CircuitBreaker.CLOSED, breaker().getState());
+	}
+
+	@Test
+	public void 응답_429면_Retry_After_동안_보내지_않는다() throws InterruptedException {
+		outbox.add("A", "a");
+		stub.reply429("1");
+
+		service.drain();
+		awaitIdle();
+
+		assertEquals("1", outbox.retried.get(0).get("minSec"));
+		assertEquals(CircuitBreaker.OPEN, breaker().getState());
+
+		assertEquals(0, service.drain());
+		assertEquals(1, outbox.limits.size());
+
+		// Retry-After 가 지나면 시험으로 1줄만 보낸다
+		Thread.sleep(1100);
+
+		assertEquals(1, service.drain());
+		awaitIdle();
+
+		assertEquals("1", outbox.limits.get(1));
+		assertEquals(1, outbox.sent.size());
+		assertEquals(CircuitBreaker.CLOSED, breaker().getState());
+	}
+
+	@Test
+	public void 연속_실패면_open_되고_half_open_에서_1줄만_시험한다() throws InterruptedException {
+		ReflectionTestUtils.setField(service, "breaker", new CircuitBreaker(2, 200));
+
+		outbox.add("A", "a");
+		outbox.add("B", "b");
+		stub.reply(500, "");
+		stub.reply(500, "");
+
+		assertEquals(2, service.drain());
+		awaitIdle();
+
+		assertEquals(CircuitBreaker.OPEN, breaker().getState());
+		assertEquals(0, service.drain());
+		assertEquals(1, outbox.limits.size());
+
+		Thread.sleep(250);
+		assertEquals(CircuitBreaker.HALF_OPEN, breaker().getState());
+
+		assertEquals(1, service.drain());
+		awaitIdle();
+
+		assertEquals("1", outbox.limits.get(1));
+		assertEquals(CircuitBreaker.CLOSED, breaker().getState());
+
+		// 닫히면 남은 것을 다시 묶어 보낸다
+		assertEquals(1, service.drain());
+		awaitIdle();
+		assertEquals(2, outbox.sent.size());
+	}
+
+	@Test
+	public void 시험할_것이_없으면_시험을_취소한다() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(1, 100);
+		breaker.failure();
+		ReflectionTestUtils.setField(service, "breaker", breaker);
+
+		Thread.sleep(150);
+
+		assertEquals(0, service.drain());
+		assertEquals(Arrays.asList("1"), outbox.limits);
+
+		// 시험 호출을 하지 않았으므로 다음에 다시 시험할 수 있다
+		assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+		assertTrue(breaker.allow());
+	}
+
+	@Test
+	public void 설정_오류는_다시_보내지_않는다() throws InterruptedException {
+		outbox.add("A", "a");
+		stub.reply(200, "{\"ok\":false,\"error\":\"channel_not_found\"}");
+
+		service.drain();
+		awaitIdle();
+
+		assertEquals(0, outbox.retried.size());
+		assertEquals(1, outbox.failed.size());
+		assertEquals("channel_not_found", outbox.failed.get(0).get("error"));
+		assertEquals(CircuitBreaker.CLOSED, breaker().getState());
+	}
+
+
+	private CircuitBreaker breaker() {
+		return (CircuitBreaker) ReflectionTestUtils.getField(service, "breaker");
+	}
+
+	// 보내는 스레드가 모두 끝날 때까지 (빈 자리가 모두 돌아올 때까지)
+	private void awaitIdle() throws InterruptedException {
+		Semaphore permits = (Semaphore) ReflectionTestUtils.getField(service, "permits");
+		long until = System.currentTimeMillis() + 5000;
+		while(permits.availablePermits() < 2) {
+			assertTrue("보내기가 끝나지 않았습니다.", System.currentTimeMillis() < until);
+			Thread.sleep(10);
+		}
+	}
+
+	private void awaitInFlight(int cnt) throws InterruptedException {
+		long until = System.currentTimeMillis() + 5000;
+		while(stub.getInFlight() < cnt) {
+			assertTrue("보내기가 시작되지 않았습니다.", System.currentTimeMillis() < until);
+			Thread.sleep(10);
+		}
+	}
+
+}